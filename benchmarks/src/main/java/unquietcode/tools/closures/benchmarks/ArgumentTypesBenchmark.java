@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.benchmarks;
+
+import com.googlecode.gentyref.GenericTypeReflector;
+import org.openjdk.jmh.annotations.*;
+import unquietcode.tools.closures.AbstractClosure2;
+import unquietcode.tools.closures.ClosureSignature;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Compares the cached signature lookup against resolving the generic types on every call,
+ * which is what getArgumentTypes() used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgumentTypesBenchmark {
+	AbstractClosure2<String, Integer, Character> closure = new AbstractClosure2<String, Integer, Character>() {
+		public String run(Integer p1, Character p2) {
+			return null;
+		}
+	};
+
+	@Benchmark
+	public Class[] uncachedResolution() {
+		Type baseType = GenericTypeReflector.getExactSuperType(closure.getClass(), AbstractClosure2.class);
+		Type types[] = ((ParameterizedType) baseType).getActualTypeArguments();
+
+		Class classes[] = new Class[types.length-1];
+		for (int i=1; i < types.length; ++i) {
+			classes[i-1] = (Class) types[i];
+		}
+
+		return classes;
+	}
+
+	@Benchmark
+	public Class[] getArgumentTypes() {
+		return closure.getArgumentTypes();
+	}
+
+	@Benchmark
+	public ClosureSignature getSignature() {
+		return closure.getSignature();
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Runs the benchmarks with the GC profiler attached, so that each result includes the bytes
+ * allocated per operation, and writes the results as JSON.
+ *
+ *     java -cp target/benchmarks.jar unquietcode.tools.closures.benchmarks.BenchmarkRunner [regex] [output]
+ *
+ * By default every benchmark is run and the results go to jmh-result.json.
+ */
+public class BenchmarkRunner {
+	public static void main(String args[]) throws RunnerException {
+		String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*";
+		String output = args.length > 1 ? args[1] : "jmh-result.json";
+
+		Options options = new OptionsBuilder()
+			.include(include)
+			.addProfiler(GCProfiler.class)
+			.resultFormat(ResultFormatType.JSON)
+			.result(output)
+			.build();
+
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import unquietcode.tools.closures.AbstractClosure1;
+import unquietcode.tools.closures.Chain;
+import unquietcode.tools.closures.view.ClosureView;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A ten stage chain, run directly, after being compiled, and after being sealed with validation
+ * on. The same ten steps composed from plain lambdas serve as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChainBenchmark {
+	static final int STAGES = 10;
+
+	Chain<Integer> chain = new Chain<Integer>();
+	Chain<Integer> sealed = new Chain<Integer>();
+	ClosureView<Integer> compiled;
+	Function<Integer, Integer> lambdas = Function.identity();
+	Integer input = 1;
+
+	@Setup
+	public void setup() {
+		for (int i=0; i < STAGES; ++i) {
+			ClosureView<Integer> stage = new AbstractClosure1<Integer, Integer>() {
+				public Integer run(Integer p1) {
+					return p1 + 1;
+				}
+			}.toClosure();
+
+			chain.append(stage);
+			sealed.append(stage);
+			lambdas = lambdas.andThen(x -> x + 1);
+		}
+
+		compiled = chain.compile();
+		sealed.setValidation(true);
+		sealed.seal();
+	}
+
+	@Benchmark
+	public Integer run() {
+		return chain.run(input);
+	}
+
+	@Benchmark
+	public Integer lambdas() {
+		return lambdas.apply(input);
+	}
+
+	@Benchmark
+	public Integer sealed() {
+		return sealed.run(input);
+	}
+
+	@Benchmark
+	public Integer compiled() {
+		return compiled.run(input);
+	}
+}
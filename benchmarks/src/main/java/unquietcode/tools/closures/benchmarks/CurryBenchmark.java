@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import unquietcode.tools.closures.AbstractClosure1;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Compares currying through the cached setter table against the reflective path
+ * which looked up and opened the field on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurryBenchmark {
+	AbstractClosure1<String, String> closure = new AbstractClosure1<String, String>() {
+		String greeting = "Hello";
+		char ending = '.';
+
+		public String run(String p1) {
+			return greeting + " " + p1 + ending;
+		}
+	};
+
+	@Benchmark
+	public Object reflectiveCurry() throws IllegalAccessException {
+		Field field = closure.getClass().getDeclaredFields()[0];
+
+		if (!field.getName().replaceAll("^this\\$[0-9]+", "").equals("")) {
+			field.setAccessible(true);
+			field.set(closure, "Goodbye");
+		}
+
+		return closure;
+	}
+
+	@Benchmark
+	public Object curry() {
+		closure.curry(1, "Goodbye");
+		return closure;
+	}
+
+	@Benchmark
+	public Object curryAll() {
+		closure.curryAll("Goodbye", '!');
+		return closure;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import unquietcode.tools.closures.AbstractClosure1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * The cost of using a closure as a java.util.function.Function in a stream, compared to
+ * a plain lambda and to the hand-written adapter lambda that was needed before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InteropBenchmark {
+	List<Integer> input = new ArrayList<Integer>();
+
+	AbstractClosure1<Integer, Integer> closure = new AbstractClosure1<Integer, Integer>() {
+		public Integer run(Integer p1) {
+			return p1 + 1;
+		}
+	};
+
+	Function<Integer, Integer> lambda = x -> x + 1;
+
+	@Setup
+	public void setup() {
+		for (int i=0; i < 1000; ++i) {
+			input.add(i);
+		}
+	}
+
+	@Benchmark
+	public long lambda() {
+		return input.stream().map(lambda).mapToLong(Integer::longValue).sum();
+	}
+
+	@Benchmark
+	public long adapterLambda() {
+		return input.stream().map(x -> closure.run(x)).mapToLong(Integer::longValue).sum();
+	}
+
+	@Benchmark
+	public long asFunction() {
+		return input.stream().map(closure.asFunction()).mapToLong(Integer::longValue).sum();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import unquietcode.tools.closures.AbstractClosure2;
+import unquietcode.tools.closures.view.Closure2View;
+import unquietcode.tools.closures.view.ClosureView;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * The cost of calling a two argument closure each of the ways it can be called, against
+ * a plain lambda doing the same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvocationBenchmark {
+	AbstractClosure2<Integer, Integer, Integer> closure = new AbstractClosure2<Integer, Integer, Integer>() {
+		public Integer run(Integer p1, Integer p2) {
+			return p1 + p2;
+		}
+	};
+
+	Closure2View<Integer, Integer, Integer> view = closure.getView();
+	ClosureView<Integer> varargs = closure.toClosure();
+	BiFunction<Integer, Integer, Integer> asBiFunction = closure.asBiFunction();
+	BiFunction<Integer, Integer, Integer> lambda = (p1, p2) -> p1 + p2;
+
+	Integer a = 1;
+	Integer b = 2;
+
+	@Benchmark
+	public Integer lambda() {
+		return lambda.apply(a, b);
+	}
+
+	@Benchmark
+	public Integer run() {
+		return closure.run(a, b);
+	}
+
+	@Benchmark
+	public Integer view() {
+		return view.run(a, b);
+	}
+
+	@Benchmark
+	public Integer varargsView() {
+		return varargs.run(a, b);
+	}
+
+	@Benchmark
+	public Integer asBiFunction() {
+		return asBiFunction.apply(a, b);
+	}
+
+	@Benchmark
+	public Object create() {
+		return new AbstractClosure2<Integer, Integer, Integer>() {
+			public Integer run(Integer p1, Integer p2) {
+				return p1 + p2;
+			}
+		};
+	}
+}
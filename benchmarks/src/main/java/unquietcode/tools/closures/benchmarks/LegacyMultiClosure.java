@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.benchmarks;
+
+import unquietcode.tools.closures.NotImplementedException;
+import unquietcode.tools.closures.view.*;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * The anonymous class makeMultiClosure used to return, kept as a baseline. Every run method
+ * checks its view for null, and isImplemented is a switch.
+ */
+@SuppressWarnings("unchecked")
+class LegacyMultiClosure {
+	static MultiClosureView<?> make(final Closure0View c0, final Closure1View c1, final Closure2View c2,
+	                                final Closure3View c3, final Closure4View c4, final Closure5View c5,
+	                                final Closure6View c6, final Closure7View c7, final Closure8View c8,
+	                                final ClosureView cX) {
+		return new MultiClosureView() {
+
+			public boolean isImplemented(int x) {
+				if (cX != null)
+					return true;
+
+				switch (x) {
+					case 0: return c0 != null;
+					case 1: return c1 != null;
+					case 2: return c2 != null;
+					case 3: return c3 != null;
+					case 4: return c4 != null;
+					case 5: return c5 != null;
+					case 6: return c6 != null;
+					case 7: return c7 != null;
+					case 8: return c8 != null;
+					default: return false;
+				}
+			}
+
+			public Object run() {
+				if (c0 == null)
+					throw new NotImplementedException();
+				else
+					return c0.run();
+			}
+
+			public Object run(Object p1) {
+				if (c1 == null)
+					throw new NotImplementedException();
+				else
+					return c1.run(p1);
+			}
+
+			public Object run(Object p1, Object p2) {
+				if (c2 == null)
+					throw new NotImplementedException();
+				else
+					return c2.run(p1, p2);
+			}
+
+			public Object run(Object p1, Object p2, Object p3) {
+				if (c3 == null)
+					throw new NotImplementedException();
+				else
+					return c3.run(p1, p2, p3);
+			}
+
+			public Object run(Object p1, Object p2, Object p3, Object p4) {
+				if (c4 == null)
+					throw new NotImplementedException();
+				else
+					return c4.run(p1, p2, p3, p4);
+			}
+
+			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5) {
+				if (c5 == null)
+					throw new NotImplementedException();
+				else
+					return c5.run(p1, p2, p3, p4, p5);
+			}
+
+			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6) {
+				if (c6 == null)
+					throw new NotImplementedException();
+				else
+					return c6.run(p1, p2, p3, p4, p5, p6);
+			}
+
+			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7) {
+				if (c7 == null)
+					throw new NotImplementedException();
+				else
+					return c7.run(p1, p2, p3, p4, p5, p6, p7);
+			}
+
+			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
+				if (c8 == null)
+					throw new NotImplementedException();
+				else
+					return c8.run(p1, p2, p3, p4, p5, p6, p7, p8);
+			}
+
+			public Object run(Object...args) {
+				if (cX == null)
+					throw new NotImplementedException();
+				else
+					return cX.run(args);
+			}
+
+			public Closure0View toClosure0() {
+				return c0;
+			}
+
+			public Closure1View toClosure1() {
+				return c1;
+			}
+
+			public Closure2View toClosure2() {
+				return c2;
+			}
+
+			public Closure3View toClosure3() {
+				return c3;
+			}
+
+			public Closure4View toClosure4() {
+				return c4;
+			}
+
+			public Closure5View toClosure5() {
+				return c5;
+			}
+
+			public Closure6View toClosure6() {
+				return c6;
+			}
+
+			public Closure7View toClosure7() {
+				return c7;
+			}
+
+			public Closure8View toClosure8() {
+				return c8;
+			}
+
+			public ClosureView toClosure() {
+				return cX;
+			}
+		};
+	}
+}
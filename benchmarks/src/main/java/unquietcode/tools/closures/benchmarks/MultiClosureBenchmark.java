@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import unquietcode.tools.closures.AbstractClosure2;
+import unquietcode.tools.closures.AbstractMultiClosure;
+import unquietcode.tools.closures.view.Closure2View;
+import unquietcode.tools.closures.view.MultiClosureView;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Multi-closures, called with an arity they implement directly and with one that falls back
+ * to the varargs method. Also covers creating a multi-closure, and the views made by
+ * makeMultiClosure, against the anonymous class makeMultiClosure used to return.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiClosureBenchmark {
+	static class Adder extends AbstractMultiClosure<Integer> {
+		public Integer run(Object p1, Object p2) {
+			return (Integer) p1 + (Integer) p2;
+		}
+
+		public Integer run(Object...args) {
+			int sum = 0;
+
+			for (Object arg : args) {
+				sum += (Integer) arg;
+			}
+
+			return sum;
+		}
+	}
+
+	Adder multi = new Adder();
+	Closure2View adder = new AbstractClosure2<Integer, Object, Object>() {
+		public Integer run(Object p1, Object p2) {
+			return (Integer) p1 + (Integer) p2;
+		}
+	}.getView();
+
+	MultiClosureView<?> made = AbstractMultiClosure.makeMultiClosure(null, null, adder, null, null, null, null, null, null, null);
+	MultiClosureView<?> legacy = LegacyMultiClosure.make(null, null, adder, null, null, null, null, null, null, null);
+
+	BiFunction<Object, Object, Integer> lambda = (p1, p2) -> (Integer) p1 + (Integer) p2;
+
+	Integer a = 1;
+	Integer b = 2;
+	Integer c = 3;
+
+	@Benchmark
+	public Integer lambda() {
+		return lambda.apply(a, b);
+	}
+
+	@Benchmark
+	public Integer implemented() {
+		return multi.run(a, b);
+	}
+
+	@Benchmark
+	public Integer fallback() {
+		return multi.run(a, b, c);
+	}
+
+	@Benchmark
+	public Object made() {
+		return made.run(a, b);
+	}
+
+	@Benchmark
+	public Object legacy() {
+		return legacy.run(a, b);
+	}
+
+	@Benchmark
+	public boolean madeIsImplemented() {
+		return made.isImplemented(2);
+	}
+
+	@Benchmark
+	public boolean legacyIsImplemented() {
+		return legacy.isImplemented(2);
+	}
+
+	@Benchmark
+	public boolean isImplemented() {
+		return multi.isImplemented(3);
+	}
+
+	@Benchmark
+	public Object create() {
+		return new Adder();
+	}
+}
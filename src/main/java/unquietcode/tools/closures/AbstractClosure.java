@@ -23,12 +23,19 @@ package unquietcode.tools.closures;
 
 import unquietcode.tools.closures.view.ClosureView;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * @author  Benjamin Fagin
  * @version 12/12/10
  */
 public abstract class AbstractClosure<Z> extends ClosureBase<Z> implements Closure<Z> {
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractClosure, AbstractClosure.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractClosure.class, AbstractClosure.View.class, "view");
+
 	private int expectedArgs = -1;
+	private volatile View view;
 
 	public final void setExpectedArgs(int args) {
 		if (args >= 0)
@@ -49,20 +56,26 @@ public abstract class AbstractClosure<Z> extends ClosureBase<Z> implements Closu
 		return this.toClosure();
 	}
 
-	@SuppressWarnings("unchecked")
 	public final ClosureView<Z> toClosure() {
-		final Closure base = this;
+		View view = this.view;
 
-		return new ClosureView<Z>() {
-			public Z run(Object...args) {
-				return (Z) base.run(args);
-			}
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
 
-			public int getExpectedArgs() {
-				return base.getExpectedArgs();
-			}
-		};
+		return view;
 	}
 
 	public abstract Z run(Object...args);
+
+	private final class View implements ClosureView<Z> {
+		public Z run(Object...args) {
+			return AbstractClosure.this.run(args);
+		}
+
+		public int getExpectedArgs() {
+			return AbstractClosure.this.getExpectedArgs();
+		}
+	}
 }
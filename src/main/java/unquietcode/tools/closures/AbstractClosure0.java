@@ -22,40 +22,68 @@ package unquietcode.tools.closures;
 import unquietcode.tools.closures.view.Closure0View;
 import unquietcode.tools.closures.view.ClosureView;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Supplier;
+
 /**
  * @author  Benjamin Fagin
  * @version Dec 10, 2010
  */
 public abstract class AbstractClosure0<Z> extends ClosureBase<Z> implements Closure0<Z> {
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractClosure0, AbstractClosure0.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractClosure0.class, AbstractClosure0.View.class, "view");
+
+	private volatile View view;
+
 	public abstract Z run();
 
 	public AbstractClosure0(Object...args) {
 		super(args);
 	}
 
-	@SuppressWarnings("unchecked")
 	public final Closure0View<Z> getView() {
-		final Closure0 base = this;
-
-		return new Closure0View() {
-			public Object run() {
-				return base.run();
-			}
-		};
+		return view();
 	}
 
-	@SuppressWarnings("unchecked")
 	public final ClosureView<Z> toClosure() {
-		final Closure0 base = this;
+		return view();
+	}
+
+	/**
+	 * @return this closure as a Supplier, backed by its view
+	 */
+	public final Supplier<Z> asSupplier() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
+
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
+	}
+
+	private final class View implements Closure0View<Z>, ClosureView<Z>, Supplier<Z> {
+		public Z run() {
+			return AbstractClosure0.this.run();
+		}
+
+		public Z get() {
+			return AbstractClosure0.this.run();
+		}
 
-		return new ClosureView<Z>() {
-			public Z run(Object...args) {
-				return (Z) base.run();
-			}
+		public Z run(Object...args) {
+			return AbstractClosure0.this.run();
+		}
 
-			public int getExpectedArgs() {
-				return 0;
-			}
-		};
+		public int getExpectedArgs() {
+			return 0;
+		}
 	}
 }
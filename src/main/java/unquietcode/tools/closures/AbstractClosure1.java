@@ -22,54 +22,87 @@ package unquietcode.tools.closures;
 import unquietcode.tools.closures.view.Closure1View;
 import unquietcode.tools.closures.view.ClosureView;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+
 /**
  * @author  Benjamin Fagin
  * @version Dec 10, 2010
  *
  */
 public abstract class AbstractClosure1<Z, A> extends ClosureBase<Z> implements Closure1<Z, A> {
+	private static final ClassValue<ClosureSignature> SIGNATURES = signatures(AbstractClosure1.class);
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractClosure1, AbstractClosure1.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractClosure1.class, AbstractClosure1.View.class, "view");
+
+	private volatile View view;
+
 	public abstract Z run(A p1);
 
 	public AbstractClosure1(Object...args) {
 		super(args);
 	}
 
+	public final ClosureSignature getSignature() {
+		return SIGNATURES.get(getClass());
+	}
+
 	public final Class[] getArgumentTypes() {
-		return super.getArgumentTypes(AbstractClosure1.class);
+		return getSignature().getArgumentTypes();
 	}
 
-	@SuppressWarnings("unchecked")
 	public final Closure1View<Z, A> getView() {
-		final Closure1 base = this;
+		return view();
+	}
+
+	public final ClosureView<Z> toClosure() {
+		return view();
+	}
+
+	/**
+	 * @return this closure as a Function, backed by its view
+	 */
+	public final Function<A, Z> asFunction() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
 
-		return new Closure1View() {
-			public Object run(Object p1) {
-				return base.run(p1);
-			}
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		return view;
 	}
 
-	@SuppressWarnings("unchecked")
-	public final ClosureView<Z> toClosure() {
-		final Closure1 base = this;
+	private final class View implements Closure1View<Z, A>, ClosureView<Z>, Function<A, Z>, Signed {
+		public Z run(A p1) {
+			return AbstractClosure1.this.run(p1);
+		}
+
+		public Z apply(A p1) {
+			return AbstractClosure1.this.run(p1);
+		}
 
-		return new ClosureView<Z>() {
-			public Z run(Object...args) {
-				return (Z) base.run(args[0]);
-			}
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return AbstractClosure1.this.run((A) args[0]);
+		}
 
-			public int getExpectedArgs() {
-				return 1;
-			}
+		public int getExpectedArgs() {
+			return 1;
+		}
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		public Class[] getArgumentTypes() {
+			return AbstractClosure1.this.getArgumentTypes();
+		}
+
+		public ClosureSignature getSignature() {
+			return AbstractClosure1.this.getSignature();
+		}
 	}
 }
-
@@ -22,19 +22,33 @@ package unquietcode.tools.closures;
 import unquietcode.tools.closures.view.Closure2View;
 import unquietcode.tools.closures.view.ClosureView;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiFunction;
+
 /**
  * @author  Benjamin Fagin
  * @version Dec 10, 2010
  */
 public abstract class AbstractClosure2<Z, A,B> extends ClosureBase<Z> implements Closure2<Z, A,B> {
+	private static final ClassValue<ClosureSignature> SIGNATURES = signatures(AbstractClosure2.class);
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractClosure2, AbstractClosure2.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractClosure2.class, AbstractClosure2.View.class, "view");
+
+	private volatile View view;
+
 	public abstract Z run(A p1, B p2);
 
 	public AbstractClosure2(Object...args) {
 		super(args);
 	}
 
+	public final ClosureSignature getSignature() {
+		return SIGNATURES.get(getClass());
+	}
+
 	public final Class[] getArgumentTypes() {
-		return super.getArgumentTypes(AbstractClosure2.class);
+		return getSignature().getArgumentTypes();
 	}
 
 	public Void run(String hello, String world) {
@@ -45,37 +59,57 @@ public abstract class AbstractClosure2<Z, A,B> extends ClosureBase<Z> implements
 		//nothing
 	}
 
-	@SuppressWarnings("unchecked")
 	public final Closure2View<Z, A,B> getView() {
-		final Closure2 base = this;
+		return view();
+	}
 
-		return new Closure2View() {
-			public Object run(Object p1, Object p2) {
-				return base.run(p1, p2);
-			}
+	public final ClosureView<Z> toClosure() {
+		return view();
+	}
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+	/**
+	 * @return this closure as a BiFunction, backed by its view
+	 */
+	public final BiFunction<A, B, Z> asBiFunction() {
+		return view();
 	}
 
-	@SuppressWarnings("unchecked")
-	public final ClosureView<Z> toClosure() {
-		final Closure2 base = this;
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
+
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
+	}
+
+	private final class View implements Closure2View<Z, A,B>, ClosureView<Z>, BiFunction<A, B, Z>, Signed {
+		public Z run(A p1, B p2) {
+			return AbstractClosure2.this.run(p1, p2);
+		}
+
+		public Z apply(A p1, B p2) {
+			return AbstractClosure2.this.run(p1, p2);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return AbstractClosure2.this.run((A) args[0], (B) args[1]);
+		}
 
-		return new ClosureView<Z>() {
-			public Z run(Object...args) {
-				return (Z) base.run(args[0], args[1]);
-			}
+		public int getExpectedArgs() {
+			return 2;
+		}
 
-			public int getExpectedArgs() {
-				return 2;
-			}
+		public Class[] getArgumentTypes() {
+			return AbstractClosure2.this.getArgumentTypes();
+		}
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		public ClosureSignature getSignature() {
+			return AbstractClosure2.this.getSignature();
+		}
 	}
 }
@@ -22,52 +22,74 @@ package unquietcode.tools.closures;
 import unquietcode.tools.closures.view.Closure3View;
 import unquietcode.tools.closures.view.ClosureView;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * @author  Benjamin Fagin
  * @version Dec 10, 2010
  */
 public abstract class AbstractClosure3<Z, A,B,C> extends ClosureBase<Z> implements Closure3<Z, A,B,C>{
+	private static final ClassValue<ClosureSignature> SIGNATURES = signatures(AbstractClosure3.class);
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractClosure3, AbstractClosure3.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractClosure3.class, AbstractClosure3.View.class, "view");
+
+	private volatile View view;
+
 	public abstract Z run(A p1, B p2, C p3);
 
 	public AbstractClosure3(Object...args) {
 		super(args);
 	}
 
+	public final ClosureSignature getSignature() {
+		return SIGNATURES.get(getClass());
+	}
+
 	public final Class[] getArgumentTypes() {
-		return super.getArgumentTypes(AbstractClosure3.class);
+		return getSignature().getArgumentTypes();
 	}
 
-	@SuppressWarnings("unchecked")
 	public final Closure3View<Z, A,B,C> getView() {
-		final Closure3 base = this;
+		return view();
+	}
 
-		return new Closure3View() {
-			public Object run(Object p1, Object p2, Object p3) {
-				return base.run(p1, p2, p3);
-			}
+	public final ClosureView<Z> toClosure() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
 	}
 
-	@SuppressWarnings("unchecked")
-	public final ClosureView<Z> toClosure() {
-		final Closure3 base = this;
+	private final class View implements Closure3View<Z, A,B,C>, ClosureView<Z>, Signed {
+		public Z run(A p1, B p2, C p3) {
+			return AbstractClosure3.this.run(p1, p2, p3);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return AbstractClosure3.this.run((A) args[0], (B) args[1], (C) args[2]);
+		}
 
-		return new ClosureView<Z>() {
-			public Z run(Object...args) {
-				return (Z) base.run(args[0], args[1], args[2]);
-			}
+		public int getExpectedArgs() {
+			return 3;
+		}
 
-			public int getExpectedArgs() {
-				return 3;
-			}
+		public Class[] getArgumentTypes() {
+			return AbstractClosure3.this.getArgumentTypes();
+		}
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		public ClosureSignature getSignature() {
+			return AbstractClosure3.this.getSignature();
+		}
 	}
 }
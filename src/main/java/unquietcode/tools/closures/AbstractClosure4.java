@@ -22,52 +22,74 @@ package unquietcode.tools.closures;
 import unquietcode.tools.closures.view.Closure4View;
 import unquietcode.tools.closures.view.ClosureView;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * @author  Benjamin Fagin
  * @version Dec 10, 2010
  */
 public abstract class AbstractClosure4<Z, A,B,C,D> extends ClosureBase<Z> implements Closure4<Z, A,B,C,D> {
+	private static final ClassValue<ClosureSignature> SIGNATURES = signatures(AbstractClosure4.class);
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractClosure4, AbstractClosure4.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractClosure4.class, AbstractClosure4.View.class, "view");
+
+	private volatile View view;
+
 	public abstract Z run(A p1, B p2, C p3, D p4);
 
 	public AbstractClosure4(Object...args) {
 		super(args);
 	}
 
+	public final ClosureSignature getSignature() {
+		return SIGNATURES.get(getClass());
+	}
+
 	public final Class[] getArgumentTypes() {
-		return super.getArgumentTypes(AbstractClosure4.class);
+		return getSignature().getArgumentTypes();
 	}
 
-	@SuppressWarnings("unchecked")
 	public final Closure4View<Z, A,B,C,D> getView() {
-		final Closure4 base = this;
+		return view();
+	}
 
-		return new Closure4View() {
-			public Object run(Object p1, Object p2, Object p3, Object p4) {
-				return base.run(p1, p2, p3, p4);
-			}
+	public final ClosureView<Z> toClosure() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
 	}
 
-	@SuppressWarnings("unchecked")
-	public final ClosureView<Z> toClosure() {
-		final Closure4 base = this;
+	private final class View implements Closure4View<Z, A,B,C,D>, ClosureView<Z>, Signed {
+		public Z run(A p1, B p2, C p3, D p4) {
+			return AbstractClosure4.this.run(p1, p2, p3, p4);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return AbstractClosure4.this.run((A) args[0], (B) args[1], (C) args[2], (D) args[3]);
+		}
 
-		return new ClosureView<Z>() {
-			public Z run(Object...args) {
-				return (Z) base.run(args[0], args[1], args[2], args[3]);
-			}
+		public int getExpectedArgs() {
+			return 4;
+		}
 
-			public int getExpectedArgs() {
-				return 4;
-			}
+		public Class[] getArgumentTypes() {
+			return AbstractClosure4.this.getArgumentTypes();
+		}
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		public ClosureSignature getSignature() {
+			return AbstractClosure4.this.getSignature();
+		}
 	}
 }
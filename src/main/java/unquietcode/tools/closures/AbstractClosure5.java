@@ -22,52 +22,74 @@ package unquietcode.tools.closures;
 import unquietcode.tools.closures.view.Closure5View;
 import unquietcode.tools.closures.view.ClosureView;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * @author  Ben
  * @version Dec 10, 2010
  */
 public abstract class AbstractClosure5<Z, A,B,C,D,E> extends ClosureBase<Z> implements Closure5<Z, A,B,C,D,E> {
+	private static final ClassValue<ClosureSignature> SIGNATURES = signatures(AbstractClosure5.class);
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractClosure5, AbstractClosure5.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractClosure5.class, AbstractClosure5.View.class, "view");
+
+	private volatile View view;
+
 	public abstract Z run(A p1, B p2, C p3, D p4, E p5);
 
 	public AbstractClosure5(Object...args) {
 		super(args);
 	}
 
+	public final ClosureSignature getSignature() {
+		return SIGNATURES.get(getClass());
+	}
+
 	public final Class[] getArgumentTypes() {
-		return super.getArgumentTypes(AbstractClosure5.class);
+		return getSignature().getArgumentTypes();
 	}
 
-	@SuppressWarnings("unchecked")
 	public final Closure5View<Z, A,B,C,D,E> getView() {
-		final Closure5 base = this;
+		return view();
+	}
 
-		return new Closure5View() {
-			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5) {
-				return base.run(p1, p2, p3, p4, p5);
-			}
+	public final ClosureView<Z> toClosure() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
 	}
 
-	@SuppressWarnings("unchecked")
-	public final ClosureView<Z> toClosure() {
-		final Closure5 base = this;
+	private final class View implements Closure5View<Z, A,B,C,D,E>, ClosureView<Z>, Signed {
+		public Z run(A p1, B p2, C p3, D p4, E p5) {
+			return AbstractClosure5.this.run(p1, p2, p3, p4, p5);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return AbstractClosure5.this.run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4]);
+		}
 
-		return new ClosureView<Z>() {
-			public Z run(Object...args) {
-				return (Z) base.run(args[0], args[1], args[2], args[3], args[4]);
-			}
+		public int getExpectedArgs() {
+			return 5;
+		}
 
-			public int getExpectedArgs() {
-				return 5;
-			}
+		public Class[] getArgumentTypes() {
+			return AbstractClosure5.this.getArgumentTypes();
+		}
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		public ClosureSignature getSignature() {
+			return AbstractClosure5.this.getSignature();
+		}
 	}
 }
@@ -22,52 +22,74 @@ package unquietcode.tools.closures;
 import unquietcode.tools.closures.view.Closure6View;
 import unquietcode.tools.closures.view.ClosureView;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * @author  Benjamin Fagin
  * @version Dec 10, 2010
  */
 public abstract class AbstractClosure6<Z, A,B,C,D,E,F> extends ClosureBase<Z> implements Closure6<Z, A,B,C,D,E,F> {
+	private static final ClassValue<ClosureSignature> SIGNATURES = signatures(AbstractClosure6.class);
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractClosure6, AbstractClosure6.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractClosure6.class, AbstractClosure6.View.class, "view");
+
+	private volatile View view;
+
 	public abstract Z run(A p1, B p2, C p3, D p4, E p5, F p6);
 
 	public AbstractClosure6(Object...args) {
 		super(args);
 	}
 
+	public final ClosureSignature getSignature() {
+		return SIGNATURES.get(getClass());
+	}
+
 	public final Class[] getArgumentTypes() {
-		return super.getArgumentTypes(AbstractClosure6.class);
+		return getSignature().getArgumentTypes();
 	}
 
-	@SuppressWarnings("unchecked")
 	public final Closure6View<Z, A,B,C,D,E,F> getView() {
-		final Closure6 base = this;
+		return view();
+	}
 
-		return new Closure6View() {
-			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6) {
-				return base.run(p1, p2, p3, p4, p5, p6);
-			}
+	public final ClosureView<Z> toClosure() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
 	}
 
-	@SuppressWarnings("unchecked")
-	public final ClosureView<Z> toClosure() {
-		final Closure6 base = this;
+	private final class View implements Closure6View<Z, A,B,C,D,E,F>, ClosureView<Z>, Signed {
+		public Z run(A p1, B p2, C p3, D p4, E p5, F p6) {
+			return AbstractClosure6.this.run(p1, p2, p3, p4, p5, p6);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return AbstractClosure6.this.run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5]);
+		}
 
-		return new ClosureView<Z>() {
-			public Z run(Object...args) {
-				return (Z) base.run(args[0], args[1], args[2], args[3], args[4], args[5]);
-			}
+		public int getExpectedArgs() {
+			return 6;
+		}
 
-			public int getExpectedArgs() {
-				return 6;
-			}
+		public Class[] getArgumentTypes() {
+			return AbstractClosure6.this.getArgumentTypes();
+		}
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		public ClosureSignature getSignature() {
+			return AbstractClosure6.this.getSignature();
+		}
 	}
 }
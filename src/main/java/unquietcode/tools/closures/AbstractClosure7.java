@@ -22,52 +22,74 @@ package unquietcode.tools.closures;
 import unquietcode.tools.closures.view.Closure7View;
 import unquietcode.tools.closures.view.ClosureView;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * @author  Benjamin Fagin
  * @version Date: Dec 10, 2010
  */
 public abstract class AbstractClosure7<Z, A,B,C,D,E,F,G> extends ClosureBase<Z> implements Closure7<Z, A,B,C,D,E,F,G> {
+	private static final ClassValue<ClosureSignature> SIGNATURES = signatures(AbstractClosure7.class);
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractClosure7, AbstractClosure7.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractClosure7.class, AbstractClosure7.View.class, "view");
+
+	private volatile View view;
+
 	public abstract Z run(A p1, B p2, C p3, D p4, E p5, F p6, G p7);
 
 	public AbstractClosure7(Object...args) {
 		super(args);
 	}
 
+	public final ClosureSignature getSignature() {
+		return SIGNATURES.get(getClass());
+	}
+
 	public final Class[] getArgumentTypes() {
-		return super.getArgumentTypes(AbstractClosure7.class);
+		return getSignature().getArgumentTypes();
 	}
 
-	@SuppressWarnings("unchecked")
 	public final Closure7View<Z, A,B,C,D,E,F,G> getView() {
-		final Closure7 base = this;
+		return view();
+	}
 
-		return new Closure7View() {
-			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7) {
-				return base.run(p1, p2, p3, p4, p5, p6, p7);
-			}
+	public final ClosureView<Z> toClosure() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
 	}
 
-	@SuppressWarnings("unchecked")
-	public final ClosureView<Z> toClosure() {
-		final Closure7 base = this;
+	private final class View implements Closure7View<Z, A,B,C,D,E,F,G>, ClosureView<Z>, Signed {
+		public Z run(A p1, B p2, C p3, D p4, E p5, F p6, G p7) {
+			return AbstractClosure7.this.run(p1, p2, p3, p4, p5, p6, p7);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return AbstractClosure7.this.run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5], (G) args[6]);
+		}
 
-		return new ClosureView<Z>() {
-			public Z run(Object...args) {
-				return (Z) base.run(args[0], args[1], args[2], args[3], args[4], args[5], args[6]);
-			}
+		public int getExpectedArgs() {
+			return 7;
+		}
 
-			public int getExpectedArgs() {
-				return 7;
-			}
+		public Class[] getArgumentTypes() {
+			return AbstractClosure7.this.getArgumentTypes();
+		}
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		public ClosureSignature getSignature() {
+			return AbstractClosure7.this.getSignature();
+		}
 	}
 }
@@ -22,11 +22,20 @@ package unquietcode.tools.closures;
 import unquietcode.tools.closures.view.Closure8View;
 import unquietcode.tools.closures.view.ClosureView;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * @author  Benjamin Fagin
  * @version Dec 10, 2010
  */
 public abstract class AbstractClosure8<Z, A,B,C,D,E,F,G,H> extends ClosureBase<Z> implements Closure8<Z, A,B,C,D,E,F,G,H> {
+	private static final ClassValue<ClosureSignature> SIGNATURES = signatures(AbstractClosure8.class);
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractClosure8, AbstractClosure8.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractClosure8.class, AbstractClosure8.View.class, "view");
+
+	private volatile View view;
+
 	public abstract Z run(A p1, B p2, C p3, D p4, E p5, F p6, G p7, H p8);
 
 	public AbstractClosure8(Object...args) {
@@ -34,41 +43,54 @@ public abstract class AbstractClosure8<Z, A,B,C,D,E,F,G,H> extends ClosureBase<Z
 
 	}
 
+	public final ClosureSignature getSignature() {
+		return SIGNATURES.get(getClass());
+	}
+
 	public final Class[] getArgumentTypes() {
-		return super.getArgumentTypes(AbstractClosure8.class);
+		return getSignature().getArgumentTypes();
 	}
 
-	@SuppressWarnings("unchecked")
 	public final Closure8View<Z, A,B,C,D,E,F,G,H> getView() {
-		final Closure8 base = this;
+		return view();
+	}
 
-		return new Closure8View() {
-			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
-				return base.run(p1, p2, p3, p4, p5, p6, p7, p8);
-			}
+	public final ClosureView<Z> toClosure() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
 	}
 
-	@SuppressWarnings("unchecked")
-	public final ClosureView<Z> toClosure() {
-		final Closure8 base = this;
+	private final class View implements Closure8View<Z, A,B,C,D,E,F,G,H>, ClosureView<Z>, Signed {
+		public Z run(A p1, B p2, C p3, D p4, E p5, F p6, G p7, H p8) {
+			return AbstractClosure8.this.run(p1, p2, p3, p4, p5, p6, p7, p8);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return AbstractClosure8.this.run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5], (G) args[6], (H) args[7]);
+		}
 
-		return new ClosureView<Z>() {
-			public Z run(Object...args) {
-				return (Z) base.run(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7]);
-			}
+		public int getExpectedArgs() {
+			return 8;
+		}
 
-			public int getExpectedArgs() {
-				return 8;
-			}
+		public Class[] getArgumentTypes() {
+			return AbstractClosure8.this.getArgumentTypes();
+		}
 
-			public Class[] getArgumentTypes() {
-				return base.getArgumentTypes();
-			}
-		};
+		public ClosureSignature getSignature() {
+			return AbstractClosure8.this.getSignature();
+		}
 	}
 }
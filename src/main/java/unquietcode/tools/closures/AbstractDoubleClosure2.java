@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.ClosureView;
+import unquietcode.tools.closures.view.DoubleClosure2View;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A closure over primitive doubles, which avoids boxing its arguments and result.
+ */
+public abstract class AbstractDoubleClosure2 extends ClosureBase<Double> implements DoubleClosure2 {
+	private static final ClosureSignature SIGNATURE = new ClosureSignature(double.class, double.class, double.class);
+	private static final AtomicReferenceFieldUpdater<AbstractDoubleClosure2, View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractDoubleClosure2.class, View.class, "view");
+
+	private volatile View view;
+
+	public abstract double run(double p1, double p2);
+
+	public AbstractDoubleClosure2(Object...args) {
+		super(args);
+	}
+
+	public final ClosureSignature getSignature() {
+		return SIGNATURE;
+	}
+
+	public final Class[] getArgumentTypes() {
+		return getSignature().getArgumentTypes();
+	}
+
+	public final DoubleClosure2View getView() {
+		return view();
+	}
+
+	public final ClosureView<Double> toClosure() {
+		return view();
+	}
+
+	/**
+	 * @return this closure as a DoubleBinaryOperator, backed by its view
+	 */
+	public final DoubleBinaryOperator asDoubleBinaryOperator() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
+
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
+	}
+
+	private final class View implements DoubleClosure2View, ClosureView<Double>, DoubleBinaryOperator, Signed {
+		public double run(double p1, double p2) {
+			return AbstractDoubleClosure2.this.run(p1, p2);
+		}
+
+		public double applyAsDouble(double p1, double p2) {
+			return AbstractDoubleClosure2.this.run(p1, p2);
+		}
+
+		public Double run(Object...args) {
+			return AbstractDoubleClosure2.this.run((Double) args[0], (Double) args[1]);
+		}
+
+		public int getExpectedArgs() {
+			return 2;
+		}
+
+		public Class[] getArgumentTypes() {
+			return AbstractDoubleClosure2.this.getArgumentTypes();
+		}
+
+		public ClosureSignature getSignature() {
+			return AbstractDoubleClosure2.this.getSignature();
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.ClosureView;
+import unquietcode.tools.closures.view.IntClosure2View;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A closure over primitive ints, which avoids boxing its arguments and result.
+ */
+public abstract class AbstractIntClosure2 extends ClosureBase<Integer> implements IntClosure2 {
+	private static final ClosureSignature SIGNATURE = new ClosureSignature(int.class, int.class, int.class);
+	private static final AtomicReferenceFieldUpdater<AbstractIntClosure2, View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractIntClosure2.class, View.class, "view");
+
+	private volatile View view;
+
+	public abstract int run(int p1, int p2);
+
+	public AbstractIntClosure2(Object...args) {
+		super(args);
+	}
+
+	public final ClosureSignature getSignature() {
+		return SIGNATURE;
+	}
+
+	public final Class[] getArgumentTypes() {
+		return getSignature().getArgumentTypes();
+	}
+
+	public final IntClosure2View getView() {
+		return view();
+	}
+
+	public final ClosureView<Integer> toClosure() {
+		return view();
+	}
+
+	/**
+	 * @return this closure as an IntBinaryOperator, backed by its view
+	 */
+	public final IntBinaryOperator asIntBinaryOperator() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
+
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
+	}
+
+	private final class View implements IntClosure2View, ClosureView<Integer>, IntBinaryOperator, Signed {
+		public int run(int p1, int p2) {
+			return AbstractIntClosure2.this.run(p1, p2);
+		}
+
+		public int applyAsInt(int p1, int p2) {
+			return AbstractIntClosure2.this.run(p1, p2);
+		}
+
+		public Integer run(Object...args) {
+			return AbstractIntClosure2.this.run((Integer) args[0], (Integer) args[1]);
+		}
+
+		public int getExpectedArgs() {
+			return 2;
+		}
+
+		public Class[] getArgumentTypes() {
+			return AbstractIntClosure2.this.getArgumentTypes();
+		}
+
+		public ClosureSignature getSignature() {
+			return AbstractIntClosure2.this.getSignature();
+		}
+	}
+}
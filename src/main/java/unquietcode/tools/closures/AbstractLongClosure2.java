@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.ClosureView;
+import unquietcode.tools.closures.view.LongClosure2View;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A closure over primitive longs, which avoids boxing its arguments and result.
+ */
+public abstract class AbstractLongClosure2 extends ClosureBase<Long> implements LongClosure2 {
+	private static final ClosureSignature SIGNATURE = new ClosureSignature(long.class, long.class, long.class);
+	private static final AtomicReferenceFieldUpdater<AbstractLongClosure2, View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractLongClosure2.class, View.class, "view");
+
+	private volatile View view;
+
+	public abstract long run(long p1, long p2);
+
+	public AbstractLongClosure2(Object...args) {
+		super(args);
+	}
+
+	public final ClosureSignature getSignature() {
+		return SIGNATURE;
+	}
+
+	public final Class[] getArgumentTypes() {
+		return getSignature().getArgumentTypes();
+	}
+
+	public final LongClosure2View getView() {
+		return view();
+	}
+
+	public final ClosureView<Long> toClosure() {
+		return view();
+	}
+
+	/**
+	 * @return this closure as a LongBinaryOperator, backed by its view
+	 */
+	public final LongBinaryOperator asLongBinaryOperator() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
+
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
+	}
+
+	private final class View implements LongClosure2View, ClosureView<Long>, LongBinaryOperator, Signed {
+		public long run(long p1, long p2) {
+			return AbstractLongClosure2.this.run(p1, p2);
+		}
+
+		public long applyAsLong(long p1, long p2) {
+			return AbstractLongClosure2.this.run(p1, p2);
+		}
+
+		public Long run(Object...args) {
+			return AbstractLongClosure2.this.run((Long) args[0], (Long) args[1]);
+		}
+
+		public int getExpectedArgs() {
+			return 2;
+		}
+
+		public Class[] getArgumentTypes() {
+			return AbstractLongClosure2.this.getArgumentTypes();
+		}
+
+		public ClosureSignature getSignature() {
+			return AbstractLongClosure2.this.getSignature();
+		}
+	}
+}
@@ -24,6 +24,7 @@ import unquietcode.tools.closures.view.*;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * @author  Benjamin Fagin
@@ -33,34 +34,45 @@ public abstract class AbstractMultiClosure<Z> extends ClosureBase<Z> implements
 	@Retention(RetentionPolicy.RUNTIME)
 	private @interface Original { }
 
-	private static final int MAX_PARAMS = 6;                // for now, it's set at 6
-	boolean isImplemented[] = new boolean[MAX_PARAMS+2];    // 0-6, and then 7 is vararg
+	private static final int MAX_PARAMS = 8;                // the same as the largest ClosureN
+	private static final int VARARGS = 1 << (MAX_PARAMS+1); // bits 0-8 are the fixed arities, then the vararg
 
+	/*
+	 * Which run methods a class overrides, as a bitmask. Finding out takes reflection,
+	 * so it is only done once for each class.
+	 */
+	private static final ClassValue<Integer> IMPLEMENTED = new ClassValue<Integer>() {
+		protected Integer computeValue(Class<?> type) {
+			int implemented = 0;
 
-	public AbstractMultiClosure(Object...args) {
-		super(args);
-
-		//set up an implemented map
-		Class c = this.getClass();
-		Method methods[] = c.getMethods();
+			for (Method method : type.getMethods()) {
+				if (!method.getName().equals("run") || method.isAnnotationPresent(Original.class))
+					continue;
 
-		for (Method method : methods) {
-			if (method.getName().equals("run")) {
 				if (method.isVarArgs()) {
-					isImplemented[MAX_PARAMS+1] = !method.isAnnotationPresent(Original.class);
+					implemented |= VARARGS;
 				} else {
-					//find out how many param
-					Class classes[] = method.getParameterTypes();
-					int number = classes == null ? -1 : classes.length;
-					
-					if (number < 0 || number > MAX_PARAMS) {
-						continue; //not one of our methods
-					}
-
-					isImplemented[number] = !method.isAnnotationPresent(Original.class);
+					int number = method.getParameterTypes().length;
+
+					if (number <= MAX_PARAMS)
+						implemented |= 1 << number;
 				}
 			}
+
+			return implemented;
 		}
+	};
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractMultiClosure, AbstractMultiClosure.Views> VIEWS
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractMultiClosure.class, AbstractMultiClosure.Views.class, "views");
+
+	private final int implemented = IMPLEMENTED.get(getClass());
+	private volatile Views views;
+
+
+	public AbstractMultiClosure(Object...args) {
+		super(args);
 	}
 
 	public final boolean isImplemented(int x) {
@@ -70,48 +82,151 @@ public abstract class AbstractMultiClosure<Z> extends ClosureBase<Z> implements
 		if (x > MAX_PARAMS+1)
 			x = MAX_PARAMS+1;
 
-		return isImplemented[MAX_PARAMS+1] || isImplemented[x];
+		return (implemented & (VARARGS | 1 << x)) != 0;
 	}
 
 
 	@Original
 	public Z run() {
+		checkVarargs();
 		return run(new Object[]{});
 	}
 	@Original
 	public Z run(Object p1) {
+		checkVarargs();
 		return run(new Object[]{p1});
 	}
 	@Original
 	public Z run(Object p1, Object p2) {
+		checkVarargs();
 		return run(new Object[]{p1, p2});
 	}
 	@Original
 	public Z run(Object p1, Object p2, Object p3) {
+		checkVarargs();
 		return run(new Object[]{p1, p2, p3});
 	}
 	@Original
 	public Z run(Object p1, Object p2, Object p3, Object p4) {
-		return run(new Object[]{p1, p2, p3 ,p4});
+		checkVarargs();
+		return run(new Object[]{p1, p2, p3, p4});
 	}
 	@Original
 	public Z run(Object p1, Object p2, Object p3, Object p4, Object p5) {
-		return run(new Object[]{p1, p2, p3 ,p4, p5});
+		checkVarargs();
+		return run(new Object[]{p1, p2, p3, p4, p5});
 	}
 	@Original
 	public Z run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6) {
-		return run(new Object[]{p1, p2, p3 ,p4, p5, p6});
+		checkVarargs();
+		return run(new Object[]{p1, p2, p3, p4, p5, p6});
+	}
+	@Original
+	public Z run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7) {
+		checkVarargs();
+		return run(new Object[]{p1, p2, p3, p4, p5, p6, p7});
 	}
+	@Original
+	public Z run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
+		checkVarargs();
+		return run(new Object[]{p1, p2, p3, p4, p5, p6, p7, p8});
+	}
+
 	@Original
 	public Z run(Object...args) {
+		int arity = args == null ? -1 : args.length;
+
+		// hand the arguments to an overload of the same arity, if there is one
+		if (arity >= 0 && arity <= MAX_PARAMS && (implemented & 1 << arity) != 0) {
+			switch (arity) {
+				case 0: return run();
+				case 1: return run(args[0]);
+				case 2: return run(args[0], args[1]);
+				case 3: return run(args[0], args[1], args[2]);
+				case 4: return run(args[0], args[1], args[2], args[3]);
+				case 5: return run(args[0], args[1], args[2], args[3], args[4]);
+				case 6: return run(args[0], args[1], args[2], args[3], args[4], args[5]);
+				case 7: return run(args[0], args[1], args[2], args[3], args[4], args[5], args[6]);
+				case 8: return run(args[0], args[1], args[2], args[3], args[4], args[5], args[6], args[7]);
+			}
+		}
+
 		throw new NotImplementedException();
 	}
 
+	/*
+	 * The fixed arity methods fall back on the vararg method. If it was not implemented
+	 * either, there is no point in building the array.
+	 */
+	private void checkVarargs() {
+		if ((implemented & VARARGS) == 0)
+			throw new NotImplementedException();
+	}
+
 //TODO this is indicative of a larger problem in the class design
 	public final MultiClosureView<Z> getView() {
-		final MultiClosure<Z> base = this;
+		return views().multi;
+	}
+
+	public final Closure0View<Z> toClosure0() {
+		return views().c0;
+	}
+
+	public final Closure1View toClosure1() {
+		return views().c1;
+	}
+
+	public final Closure2View toClosure2() {
+		return views().c2;
+	}
+
+	public final Closure3View toClosure3() {
+		return views().c3;
+	}
+
+	public final Closure4View toClosure4() {
+		return views().c4;
+	}
+
+	public final Closure5View toClosure5() {
+		return views().c5;
+	}
+
+	public final Closure6View toClosure6() {
+		return views().c6;
+	}
+
+	public final Closure7View toClosure7() {
+		return views().c7;
+	}
+
+	public final Closure8View toClosure8() {
+		return views().c8;
+	}
+
+	public final ClosureView<Z> toClosure() {
+		return views().cX;
+	}
+
+	private Views views() {
+		Views views = this.views;
+
+		if (views == null) {
+			VIEWS.compareAndSet(this, null, new Views());
+			views = this.views;
+		}
 
-		return new MultiClosureView<Z>() {
+		return views;
+	}
+
+	/*
+	 * All of the views of this closure, created together the first time one is asked for.
+	 * Unimplemented views are null.
+	 */
+	private final class Views {
+		final MultiClosure<Z> base = AbstractMultiClosure.this;
+
+		final MultiClosureView<Z> multi = new MultiClosureView<Z>() {
 			public Z run() {
 				return base.run();
 			}
@@ -140,6 +255,14 @@ public abstract class AbstractMultiClosure<Z> extends ClosureBase<Z> implements
 				return base.run(p1,p2,p3,p4,p5,p6);
 			}
 
+			public Z run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7) {
+				return base.run(p1,p2,p3,p4,p5,p6,p7);
+			}
+
+			public Z run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
+				return base.run(p1,p2,p3,p4,p5,p6,p7,p8);
+			}
+
 			public Z run(Object...args) {
 				return base.run(args);
 			}
@@ -172,6 +295,14 @@ public abstract class AbstractMultiClosure<Z> extends ClosureBase<Z> implements
 				return base.toClosure6();
 			}
 
+			public Closure7View toClosure7() {
+				return base.toClosure7();
+			}
+
+			public Closure8View toClosure8() {
+				return base.toClosure8();
+			}
+
 			public ClosureView<Z> toClosure() {
 				return base.toClosure();
 			}
@@ -180,130 +311,94 @@ public abstract class AbstractMultiClosure<Z> extends ClosureBase<Z> implements
 				return base.isImplemented(x);
 			}
 		};
-	}
-
-	public final Closure0View<Z> toClosure0() {
-		if (!isImplemented(0))
-			return null;
-
-		final MultiClosure<Z> base = this;
 
-		return new Closure0View<Z>() {
+		final Closure0View<Z> c0 = !isImplemented(0) ? null : new Closure0View<Z>() {
 			public Z run() {
 				return base.run();
 			}
 		};
-	}
 
-	public final Closure1View toClosure1() {
-		if (!isImplemented(1))
-			return null;
-
-		final MultiClosure base = this;
-
-		return new Closure1View() {
+		final Closure1View c1 = !isImplemented(1) ? null : new Closure1View() {
 			public Object run(Object p1) {
 				return base.run(p1);
 			}
 
 			public Class[] getArgumentTypes() {
-				return new Class[]{Object.class};
+				return ClosureSignature.objectTypes(1);
 			}
 		};
-	}
-
-	public final Closure2View toClosure2() {
-		if (!isImplemented(2))
-			return null;
-
-		final MultiClosure base = this;
 
-		return new Closure2View() {
+		final Closure2View c2 = !isImplemented(2) ? null : new Closure2View() {
 			public Object run(Object p1, Object p2) {
 				return base.run(p1, p2);
 			}
 
 			public Class[] getArgumentTypes() {
-				return new Class[]{Object.class, Object.class};
+				return ClosureSignature.objectTypes(2);
 			}
 		};
-	}
-
-	public final Closure3View toClosure3() {
-		if (!isImplemented(3))
-			return null;
-
-		final MultiClosure base = this;
 
-		return new Closure3View() {
+		final Closure3View c3 = !isImplemented(3) ? null : new Closure3View() {
 			public Object run(Object p1, Object p2, Object p3) {
 				return base.run(p1, p2, p3);
 			}
 
 			public Class[] getArgumentTypes() {
-				return new Class[]{Object.class, Object.class, Object.class};
+				return ClosureSignature.objectTypes(3);
 			}
 		};
-	}
-
-	public final Closure4View toClosure4() {
-		if (!isImplemented(4))
-			return null;
 
-		final MultiClosure base = this;
-
-		return new Closure4View() {
+		final Closure4View c4 = !isImplemented(4) ? null : new Closure4View() {
 			public Object run(Object p1, Object p2, Object p3, Object p4) {
 				return base.run(p1, p2, p3, p4);
 			}
 
 			public Class[] getArgumentTypes() {
-				return new Class[]{Object.class, Object.class, Object.class, Object.class};
+				return ClosureSignature.objectTypes(4);
 			}
 		};
-	}
 
-	public final Closure5View toClosure5() {
-		if (!isImplemented(5))
-			return null;
-
-		final MultiClosure base = this;
-
-		return new Closure5View() {
+		final Closure5View c5 = !isImplemented(5) ? null : new Closure5View() {
 			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5) {
 				return base.run(p1, p2, p3, p4, p5);
 			}
 
 			public Class[] getArgumentTypes() {
-				return new Class[]{Object.class, Object.class, Object.class, Object.class, Object.class};
+				return ClosureSignature.objectTypes(5);
 			}
 		};
-	}
-
-	public final Closure6View toClosure6() {
-		if (!isImplemented(6))
-			return null;
 
-		final MultiClosure base = this;
-
-		return new Closure6View() {
+		final Closure6View c6 = !isImplemented(6) ? null : new Closure6View() {
 			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6) {
 				return base.run(p1, p2, p3, p4, p5, p6);
 			}
 
 			public Class[] getArgumentTypes() {
-				return new Class[]{Object.class, Object.class, Object.class, Object.class, Object.class, Object.class};
+				return ClosureSignature.objectTypes(6);
 			}
 		};
-	}
 
-	public final ClosureView<Z> toClosure() {
-		if (!isImplemented(MAX_PARAMS + 1))
-			return null;
+		final Closure7View c7 = !isImplemented(7) ? null : new Closure7View() {
+			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7) {
+				return base.run(p1, p2, p3, p4, p5, p6, p7);
+			}
+
+			public Class[] getArgumentTypes() {
+				return ClosureSignature.objectTypes(7);
+			}
+		};
 
-		final MultiClosure<Z> base = this;
+		final Closure8View c8 = !isImplemented(8) ? null : new Closure8View() {
+			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
+				return base.run(p1, p2, p3, p4, p5, p6, p7, p8);
+			}
 
-		return new ClosureView<Z>() {
+			public Class[] getArgumentTypes() {
+				return ClosureSignature.objectTypes(8);
+			}
+		};
+
+		final ClosureView<Z> cX = !isImplemented(MAX_PARAMS + 1) ? null : new ClosureView<Z>() {
 			public Z run(Object...args) {
 				return base.run(args);
 			}
@@ -323,6 +418,19 @@ public abstract class AbstractMultiClosure<Z> extends ClosureBase<Z> implements
 	public static MultiClosureView<?> makeMultiClosure(final Closure0 c0, final Closure1 c1, final Closure2 c2,
 	                                                   final Closure3 c3, final Closure4 c4, final Closure5 c5,
 	                                                   final Closure6 c6, final Closure cX) {
+		return makeMultiClosure(c0, c1, c2, c3, c4, c5, c6, null, null, cX);
+	}
+
+	/**
+	 * Convenient version of makeMultiClosure which accepts closures instead of views.
+	 * Null parameters mean that the resulting multiclosure will have those run methods unimplemented.
+	 *
+	 * @return  A new MultiClosureView, with the appropriately implemented methods.
+	 */
+	public static MultiClosureView<?> makeMultiClosure(final Closure0 c0, final Closure1 c1, final Closure2 c2,
+	                                                   final Closure3 c3, final Closure4 c4, final Closure5 c5,
+	                                                   final Closure6 c6, final Closure7 c7, final Closure8 c8,
+	                                                   final Closure cX) {
 		return makeMultiClosure(
 			c0 == null ? null : c0.getView(),
 			c1 == null ? null : c1.getView(),
@@ -331,10 +439,22 @@ public abstract class AbstractMultiClosure<Z> extends ClosureBase<Z> implements
 			c4 == null ? null : c4.getView(),
 			c5 == null ? null : c5.getView(),
 			c6 == null ? null : c6.getView(),
+			c7 == null ? null : c7.getView(),
+			c8 == null ? null : c8.getView(),
 			cX == null ? null : cX.getView()
 		);
 	}
 
+	/**
+	 * Takes a series of ClosureView objects and combines them into one MultiClosureView.
+	 * @see #makeMultiClosure(Closure0View, Closure1View, Closure2View, Closure3View, Closure4View, Closure5View, Closure6View, Closure7View, Closure8View, ClosureView)
+	 */
+	public static MultiClosureView<?> makeMultiClosure(final Closure0View c0, final Closure1View c1, final Closure2View c2,
+	                                                   final Closure3View c3, final Closure4View c4, final Closure5View c5,
+	                                                   final Closure6View c6, final ClosureView cX) {
+		return makeMultiClosure(c0, c1, c2, c3, c4, c5, c6, null, null, cX);
+	}
+
 	/**
 	 * Takes a series of ClosureView objects and combines them into one MultiClosureView.
 	 * null parameters will mean that run method is unimplemented in the resulting combined view.
@@ -347,112 +467,8 @@ public abstract class AbstractMultiClosure<Z> extends ClosureBase<Z> implements
 	 */
 	public static MultiClosureView<?> makeMultiClosure(final Closure0View c0, final Closure1View c1, final Closure2View c2,
 	                                                   final Closure3View c3, final Closure4View c4, final Closure5View c5,
-	                                                   final Closure6View c6, final ClosureView cX) {
-		return new MultiClosureView() {
-
-			public boolean isImplemented(int x) {
-				if (cX != null)
-					return true;
-
-				switch (x) {
-					case 0: return c0 != null;
-					case 1: return c1 != null;
-					case 2: return c2 != null;
-					case 3: return c3 != null;
-					case 4: return c4 != null;
-					case 5: return c5 != null;
-					case 6: return c6 != null;
-					default: return false;
-				}
-			}
-
-			public Object run() {
-				if (c0 == null)
-					throw new NotImplementedException();
-				else
-					return c0.run();
-			}
-
-			public Object run(Object p1) {
-				if (c1 == null)
-					throw new NotImplementedException();
-				else
-					return c1.run(p1);
-			}
-
-			public Object run(Object p1, Object p2) {
-				if (c2 == null)
-					throw new NotImplementedException();
-				else
-					return c2.run(p1, p2);
-			}
-
-			public Object run(Object p1, Object p2, Object p3) {
-				if (c3 == null)
-					throw new NotImplementedException();
-				else
-					return c3.run(p1, p2, p3);
-			}
-
-			public Object run(Object p1, Object p2, Object p3, Object p4) {
-				if (c4 == null)
-					throw new NotImplementedException();
-				else
-					return c4.run(p1, p2, p3, p4);
-			}
-
-			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5) {
-				if (c5 == null)
-					throw new NotImplementedException();
-				else
-					return c5.run(p1, p2, p3, p4, p5);
-			}
-
-			public Object run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6) {
-				if (c6 == null)
-					throw new NotImplementedException();
-				else
-					return c6.run(p1, p2, p3, p4, p5, p6);
-			}
-
-			public Object run(Object...args) {
-				if (cX == null)
-					throw new NotImplementedException();
-				else
-					return cX.run(args);
-			}
-
-			public Closure0View toClosure0() {
-				return c0;
-			}
-
-			public Closure1View toClosure1() {
-				return c1;
-			}
-
-			public Closure2View toClosure2() {
-				return c2;
-			}
-
-			public Closure3View toClosure3() {
-				return c3;
-			}
-
-			public Closure4View toClosure4() {
-				return c4;
-			}
-
-			public Closure5View toClosure5() {
-				return c5;
-			}
-
-			public Closure6View toClosure6() {
-				return c6;
-			}
-
-			public ClosureView toClosure() {
-				return cX;
-			}
-		};
+	                                                   final Closure6View c6, final Closure7View c7, final Closure8View c8,
+	                                                   final ClosureView cX) {
+		return new MultiClosureDispatcher(c0, c1, c2, c3, c4, c5, c6, c7, c8, cX);
 	}
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.ClosureView;
+import unquietcode.tools.closures.view.ToDoubleClosure1View;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A closure which takes an object and returns a primitive double, without boxing the result.
+ */
+public abstract class AbstractToDoubleClosure1<A> extends ClosureBase<Double> implements ToDoubleClosure1<A> {
+	private static final ClassValue<ClosureSignature> SIGNATURES = signatures(AbstractToDoubleClosure1.class, double.class);
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractToDoubleClosure1, AbstractToDoubleClosure1.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractToDoubleClosure1.class, AbstractToDoubleClosure1.View.class, "view");
+
+	private volatile View view;
+
+	public abstract double run(A p1);
+
+	public AbstractToDoubleClosure1(Object...args) {
+		super(args);
+	}
+
+	public final ClosureSignature getSignature() {
+		return SIGNATURES.get(getClass());
+	}
+
+	public final Class[] getArgumentTypes() {
+		return getSignature().getArgumentTypes();
+	}
+
+	public final ToDoubleClosure1View<A> getView() {
+		return view();
+	}
+
+	public final ClosureView<Double> toClosure() {
+		return view();
+	}
+
+	/**
+	 * @return this closure as a ToDoubleFunction, backed by its view
+	 */
+	public final ToDoubleFunction<A> asToDoubleFunction() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
+
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
+	}
+
+	private final class View implements ToDoubleClosure1View<A>, ClosureView<Double>, ToDoubleFunction<A>, Signed {
+		public double run(A p1) {
+			return AbstractToDoubleClosure1.this.run(p1);
+		}
+
+		public double applyAsDouble(A p1) {
+			return AbstractToDoubleClosure1.this.run(p1);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Double run(Object...args) {
+			return AbstractToDoubleClosure1.this.run((A) args[0]);
+		}
+
+		public int getExpectedArgs() {
+			return 1;
+		}
+
+		public Class[] getArgumentTypes() {
+			return AbstractToDoubleClosure1.this.getArgumentTypes();
+		}
+
+		public ClosureSignature getSignature() {
+			return AbstractToDoubleClosure1.this.getSignature();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.ClosureView;
+import unquietcode.tools.closures.view.ToIntClosure1View;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.ToIntFunction;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A closure which takes an object and returns a primitive int, without boxing the result.
+ */
+public abstract class AbstractToIntClosure1<A> extends ClosureBase<Integer> implements ToIntClosure1<A> {
+	private static final ClassValue<ClosureSignature> SIGNATURES = signatures(AbstractToIntClosure1.class, int.class);
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<AbstractToIntClosure1, AbstractToIntClosure1.View> VIEW
+		= AtomicReferenceFieldUpdater.newUpdater(AbstractToIntClosure1.class, AbstractToIntClosure1.View.class, "view");
+
+	private volatile View view;
+
+	public abstract int run(A p1);
+
+	public AbstractToIntClosure1(Object...args) {
+		super(args);
+	}
+
+	public final ClosureSignature getSignature() {
+		return SIGNATURES.get(getClass());
+	}
+
+	public final Class[] getArgumentTypes() {
+		return getSignature().getArgumentTypes();
+	}
+
+	public final ToIntClosure1View<A> getView() {
+		return view();
+	}
+
+	public final ClosureView<Integer> toClosure() {
+		return view();
+	}
+
+	/**
+	 * @return this closure as a ToIntFunction, backed by its view
+	 */
+	public final ToIntFunction<A> asToIntFunction() {
+		return view();
+	}
+
+	// all of the views are served by the same object, created once per closure
+	private View view() {
+		View view = this.view;
+
+		if (view == null) {
+			VIEW.compareAndSet(this, null, new View());
+			view = this.view;
+		}
+
+		return view;
+	}
+
+	private final class View implements ToIntClosure1View<A>, ClosureView<Integer>, ToIntFunction<A>, Signed {
+		public int run(A p1) {
+			return AbstractToIntClosure1.this.run(p1);
+		}
+
+		public int applyAsInt(A p1) {
+			return AbstractToIntClosure1.this.run(p1);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Integer run(Object...args) {
+			return AbstractToIntClosure1.this.run((A) args[0]);
+		}
+
+		public int getExpectedArgs() {
+			return 1;
+		}
+
+		public Class[] getArgumentTypes() {
+			return AbstractToIntClosure1.this.getArgumentTypes();
+		}
+
+		public ClosureSignature getSignature() {
+			return AbstractToIntClosure1.this.getSignature();
+		}
+	}
+}
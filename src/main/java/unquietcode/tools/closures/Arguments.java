@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Storage for the arguments captured by a closure when it is created. Up to four values are
+ * kept in fields rather than an array, and the common empty and single-null cases are shared.
+ * The storage doubles as a read-only list, so it can be handed out without being copied.
+ */
+abstract class Arguments extends AbstractList<Object> implements RandomAccess {
+	static final Arguments EMPTY = new Arguments() {
+		public Object get(int index) {
+			throw outOfBounds(index);
+		}
+
+		public int size() {
+			return 0;
+		}
+	};
+
+	static final Arguments NULL = new One(null);
+
+
+	static Arguments of(Object...args) {
+		if (args == null)
+			return NULL;
+
+		switch (args.length) {
+			case 0:  return EMPTY;
+			case 1:  return args[0] == null ? NULL : new One(args[0]);
+			case 2:  return new Two(args[0], args[1]);
+			case 3:  return new Three(args[0], args[1], args[2]);
+			case 4:  return new Four(args[0], args[1], args[2], args[3]);
+			default: return new Many(args);
+		}
+	}
+
+	IndexOutOfBoundsException outOfBounds(int index) {
+		return new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+	}
+
+	private static class One extends Arguments {
+		private final Object a;
+
+		One(Object a) {
+			this.a = a;
+		}
+
+		public Object get(int index) {
+			if (index != 0)
+				throw outOfBounds(index);
+
+			return a;
+		}
+
+		public int size() {
+			return 1;
+		}
+	}
+
+	private static final class Two extends Arguments {
+		private final Object a, b;
+
+		Two(Object a, Object b) {
+			this.a = a;
+			this.b = b;
+		}
+
+		public Object get(int index) {
+			switch (index) {
+				case 0:  return a;
+				case 1:  return b;
+				default: throw outOfBounds(index);
+			}
+		}
+
+		public int size() {
+			return 2;
+		}
+	}
+
+	private static final class Three extends Arguments {
+		private final Object a, b, c;
+
+		Three(Object a, Object b, Object c) {
+			this.a = a;
+			this.b = b;
+			this.c = c;
+		}
+
+		public Object get(int index) {
+			switch (index) {
+				case 0:  return a;
+				case 1:  return b;
+				case 2:  return c;
+				default: throw outOfBounds(index);
+			}
+		}
+
+		public int size() {
+			return 3;
+		}
+	}
+
+	private static final class Four extends Arguments {
+		private final Object a, b, c, d;
+
+		Four(Object a, Object b, Object c, Object d) {
+			this.a = a;
+			this.b = b;
+			this.c = c;
+			this.d = d;
+		}
+
+		public Object get(int index) {
+			switch (index) {
+				case 0:  return a;
+				case 1:  return b;
+				case 2:  return c;
+				case 3:  return d;
+				default: throw outOfBounds(index);
+			}
+		}
+
+		public int size() {
+			return 4;
+		}
+	}
+
+	private static final class Many extends Arguments {
+		private final Object args[];
+
+		Many(Object args[]) {
+			this.args = args;
+		}
+
+		public Object get(int index) {
+			if (index < 0 || index >= args.length)
+				throw outOfBounds(index);
+
+			return args[index];
+		}
+
+		public int size() {
+			return args.length;
+		}
+	}
+}
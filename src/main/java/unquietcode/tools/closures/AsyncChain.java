@@ -0,0 +1,186 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.AsyncClosureView;
+import unquietcode.tools.closures.view.ClosureView;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A snapshot of a chain which runs asynchronously. Runs of neighboring closures which are not
+ * marked as blocking are done together as one task on the main executor. Blocking closures are
+ * handed to a separate executor, so that they can wait without holding on to the threads meant
+ * for computing.
+ */
+final class AsyncChain<Z> implements AsyncClosureView<Z> {
+	private final ClosureView segments[][];
+	private final Executor executors[];
+	private final boolean validate;
+	private final int expectedArgs;
+
+
+	@SuppressWarnings("unchecked")
+	AsyncChain(ClosureView<Z> chain[], boolean validate, Executor executor, Executor blocking) {
+		if (executor == null)
+			throw new NullPointerException("executor");
+
+		if (blocking == null)
+			throw new NullPointerException("blocking executor");
+
+		List<ClosureView[]> segments = new ArrayList<ClosureView[]>();
+		List<Executor> executors = new ArrayList<Executor>();
+
+		for (int from=0, to; from < chain.length; from = to) {
+			boolean blocks = chain[from] instanceof Blocking;
+
+			for (to = from + 1; to < chain.length; ++to) {
+				if ((chain[to] instanceof Blocking) != blocks)
+					break;
+			}
+
+			ClosureView segment[] = new ClosureView[to - from];
+			System.arraycopy(chain, from, segment, 0, segment.length);
+
+			segments.add(segment);
+			executors.add(blocks ? blocking : executor);
+		}
+
+		this.segments = segments.toArray(new ClosureView[segments.size()][]);
+		this.executors = executors.toArray(new Executor[executors.size()]);
+		this.validate = validate;
+		this.expectedArgs = chain.length == 0 || chain[0] == null ? -1 : chain[0].getExpectedArgs();
+	}
+
+	/*
+	 * The executor used for blocking closures when none is given. On Java 21 and newer, this
+	 * runs each task in its own virtual thread. Otherwise it is a pool of at most
+	 * MAX_BLOCKING_THREADS daemon threads, with further tasks queued until a thread is free.
+	 */
+	static Executor defaultBlockingExecutor() {
+		return DefaultBlocking.EXECUTOR;
+	}
+
+	static <Z> ClosureView<Z> blocking(ClosureView<Z> closure) {
+		if (closure == null)
+			throw new NullPointerException("closure");
+
+		if (closure instanceof Blocking)
+			return closure;
+
+		return new Blocking<Z>(closure);
+	}
+
+	@SuppressWarnings("unchecked")
+	public CompletableFuture<Z> run(final Object...args) {
+		if (segments.length == 0)
+			return CompletableFuture.completedFuture(null);
+
+		final ClosureView first[] = segments[0];
+		CompletableFuture<Object> future = CompletableFuture.supplyAsync(new Supplier<Object>() {
+			public Object get() {
+				return Chain.run(first, validate, args);
+			}
+		}, executors[0]);
+
+		for (int i=1; i < segments.length; ++i) {
+			final ClosureView segment[] = segments[i];
+
+			future = future.thenApplyAsync(new Function<Object, Object>() {
+				public Object apply(Object result) {
+					return Chain.run(segment, validate, Chain.toArgs(result));
+				}
+			}, executors[i]);
+		}
+
+		return (CompletableFuture<Z>) future;
+	}
+
+	public int getExpectedArgs() {
+		return expectedArgs;
+	}
+
+	// marks a closure which waits on something, and otherwise stays out of the way
+	private static final class Blocking<Z> implements ClosureView<Z>, Signed {
+		private final ClosureView<Z> closure;
+
+		Blocking(ClosureView<Z> closure) {
+			this.closure = closure;
+		}
+
+		public Z run(Object...args) {
+			return closure.run(args);
+		}
+
+		public int getExpectedArgs() {
+			return closure.getExpectedArgs();
+		}
+
+		public ClosureSignature getSignature() {
+			return closure instanceof Signed ? ((Signed) closure).getSignature() : null;
+		}
+	}
+
+	private static final class DefaultBlocking {
+		static final int MAX_BLOCKING_THREADS = 64;
+		static final Executor EXECUTOR = create();
+
+		private static Executor create() {
+			try {
+				Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (Executor) virtual.invoke(null);
+			} catch (ReflectiveOperationException ex) {
+				// no virtual threads before Java 21
+			}
+
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(
+				MAX_BLOCKING_THREADS, MAX_BLOCKING_THREADS, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					private final AtomicInteger counter = new AtomicInteger();
+
+					public Thread newThread(Runnable task) {
+						Thread thread = new Thread(task, "Chain-blocking-" + counter.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				}
+			);
+
+			pool.allowCoreThreadTimeOut(true);    // idle threads go away
+			return pool;
+		}
+	}
+}
@@ -19,10 +19,22 @@
 
 package unquietcode.tools.closures;
 
+import unquietcode.tools.closures.profiling.ChainProfiler;
+import unquietcode.tools.closures.view.AsyncClosureView;
+import unquietcode.tools.closures.view.Closure1View;
 import unquietcode.tools.closures.view.ClosureView;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author  Benjamin Fagin
@@ -34,18 +46,31 @@ import java.util.LinkedList;
  * object, arrays of objects can be returned, which will be fed to the next closure as varargs. Only the last closure
  * need return the 'correct' return type, as specified in the type parameter (optional, of course).
  *
- * All of the normal concerns apply: No concurrency out of the box, mutable objects passed as arguments could produce
- * unexpected results, etc.
+ * All of the normal concerns apply: mutable objects passed as arguments could produce unexpected results, etc.
+ * A chain runs on the caller's thread. To spread a stream of inputs over several threads, see @see{ChainPipeline}.
+ * Batches of independent inputs can also be split across a fork/join pool with runAll, and a single run can be made
+ * asynchronous with runAsync. Chains also work as a stage of a java.util.stream pipeline, through asFunction
+ * and stream.
  *
  * It should be pointed out that by default no validation occurs here whatsoever. Null closures will throw a Java NPE
  * when they are executed. The "expectedArguments" value is ignored.
  *
  * However, enabling validation will wrap these errors in an unchecked @see{ClosureException}.
+ * Calling validate() or seal() instead checks the closures against each other once, ahead of time.
  *
  */
 public class Chain<Z> implements Iterable<ClosureView<Z>> {
-	private LinkedList<ClosureView<Z>> chain = new LinkedList<ClosureView<Z>>();
+	private static final ClosureView EMPTY[] = {};
+
+	/*
+	 * The closures are kept in an array which is never modified once it has been published.
+	 * Changes replace the array, so a chain can be run (or built upon) while it is being changed.
+	 */
+	@SuppressWarnings("unchecked")
+	private volatile ClosureView<Z> chain[] = EMPTY;
 	private boolean validate = false;
+	private volatile ClosureView<Z> sealed;    // the compiled plan, once the chain is sealed
+	private volatile ChainProfiler profiler;   // null unless profiling
 	//final Class expectedReturn;
 
 
@@ -59,9 +84,7 @@ public class Chain<Z> implements Iterable<ClosureView<Z>> {
 	 * @param closures
 	 */
 	public Chain(ClosureView<Z>...closures) {
-		for (ClosureView<Z> c : closures) {
-			chain.add(c);
-		}
+		chain = closures.clone();
 	}
 
 	/**
@@ -70,12 +93,11 @@ public class Chain<Z> implements Iterable<ClosureView<Z>> {
 	 * @param chains
 	 */
 	public Chain(Chain<Z>...chains) {
-		for (Chain<Z> c : chains)
-			for (ClosureView<Z> cv : c.chain)
-				chain.addLast(cv);
+		chain = concat(EMPTY, chains);
 	}
 
-	public void setValidation(boolean validate) {
+	public synchronized void setValidation(boolean validate) {
+		checkMutable();
 		this.validate = validate;
 	}
 
@@ -83,17 +105,30 @@ public class Chain<Z> implements Iterable<ClosureView<Z>> {
 		return validate;
 	}
 
+	/**
+	 * Starts recording the number of runs, errors and the latency of each closure when the chain
+	 * is run with {@link #run(Object...)}. Profiling can be turned on and off at any time, even
+	 * after the chain has been sealed.
+	 *
+	 * @param profiler  where to record, or null to stop recording
+	 */
+	public void setProfiler(ChainProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	public ChainProfiler getProfiler() {
+		return profiler;
+	}
+
 	/**
 	 * Prepends a series of closures to the chain.
 	 *
 	 * @param   closures    ClosureView objects to prepend.
 	 * @return  this Chain, with the newly added closures
 	 */
-	public Chain<Z> prepend(ClosureView<Z>...closures) {
-		for (int i=closures.length-1; i >= 0; --i) {
-			chain.addFirst(closures[i]);
-		}
-
+	public synchronized Chain<Z> prepend(ClosureView<Z>...closures) {
+		checkMutable();
+		chain = splice(chain, 0, closures);
 		return this;
 	}
 
@@ -103,11 +138,9 @@ public class Chain<Z> implements Iterable<ClosureView<Z>> {
 	 * @param   closures    ClosureView objects to append.
 	 * @return  this Chain, with the newly added closures
 	 */
-	public Chain<Z> append(ClosureView<Z>...closures) {
-		for (ClosureView<Z> closure : closures) {
-			chain.addLast(closure);
-		}
-
+	public synchronized Chain<Z> append(ClosureView<Z>...closures) {
+		checkMutable();
+		chain = splice(chain, chain.length, closures);
 		return this;
 	}
 
@@ -115,8 +148,9 @@ public class Chain<Z> implements Iterable<ClosureView<Z>> {
 	 * Inserts a ClosureView into the desired location.
 	 *
 	 */
-	public Chain<Z> insert(int i, ClosureView<Z> closure) {
-		chain.add(i, closure);
+	public synchronized Chain<Z> insert(int i, ClosureView<Z> closure) {
+		checkMutable();
+		chain = splice(chain, checkPosition(i), closure);
 		return this;
 	}
 
@@ -124,11 +158,9 @@ public class Chain<Z> implements Iterable<ClosureView<Z>> {
 	 * Inserts an existing chain into the desired location.
 	 *
 	 */
-	public Chain<Z> insert(int i, Chain<Z> chain) {
-		for (int j=chain.chain.size()-1; j >= 0; --j) {
-			this.chain.add(i, chain.chain.get(j));
-		}
-
+	public synchronized Chain<Z> insert(int i, Chain<Z> chain) {
+		checkMutable();
+		this.chain = splice(this.chain, checkPosition(i), chain.chain);
 		return this;
 	}
 
@@ -136,8 +168,15 @@ public class Chain<Z> implements Iterable<ClosureView<Z>> {
 	 * Removes a closure from the desired location, shifting everything after it to the left.
 	 *
 	 */
-	public Chain<Z> remove(int i) {
-		chain.remove(i);
+	public synchronized Chain<Z> remove(int i) {
+		checkMutable();
+		ClosureView<Z> current[] = chain;
+		checkIndex(current, i);
+
+		ClosureView<Z> removed[] = Arrays.copyOf(current, current.length-1);
+		System.arraycopy(current, i+1, removed, i, current.length-i-1);
+		chain = removed;
+
 		return this;
 	}
 
@@ -146,7 +185,9 @@ public class Chain<Z> implements Iterable<ClosureView<Z>> {
 	 *
 	 */
 	public ClosureView<Z> get(int i) {
-		return chain.get(i);
+		ClosureView<Z> current[] = chain;
+		checkIndex(current, i);
+		return current[i];
 	}
 
 	/**
@@ -155,15 +196,9 @@ public class Chain<Z> implements Iterable<ClosureView<Z>> {
 	 * @param   chains    ClosureView objects to prepend.
 	 * @return  this Chain, with the newly added closures
 	 */
-	public Chain<Z> prepend(Chain<Z>...chains) {
-		for (int i = chains.length-1; i >= 0; --i) {
-			Chain<Z> c = chains[i];
-
-			for (int j = c.chain.size()-1; j >= 0; --j) {
-				chain.addFirst(c.chain.get(j));
-			}
-		}
-
+	public synchronized Chain<Z> prepend(Chain<Z>...chains) {
+		checkMutable();
+		chain = splice(chain, 0, concat(EMPTY, chains));
 		return this;
 	}
 
@@ -173,68 +208,160 @@ public class Chain<Z> implements Iterable<ClosureView<Z>> {
 	 * @param   chains    ClosureView objects to append.
 	 * @return  this Chain, with the newly added closures
 	 */
-	public Chain<Z> append(Chain<Z>...chains) {
-		for (Chain<Z> c : chains)
-			for (ClosureView<Z> cv : c.chain)
-				chain.addLast(cv);
+	public synchronized Chain<Z> append(Chain<Z>...chains) {
+		checkMutable();
+		chain = concat(chain, chains);
+		return this;
+	}
+
+	/**
+	 * Starts an immutable builder from the closures currently in this chain.
+	 * Nothing done to the builder will affect this chain, and vice versa.
+	 *
+	 * @return  a builder sharing this chain's closures
+	 */
+	public Builder<Z> toBuilder() {
+		return new Builder<Z>(Builder.leaf(chain));
+	}
+
+	/**
+	 * @return  a new, empty builder
+	 */
+	public static <Z> Builder<Z> builder() {
+		return new Builder<Z>(null);
+	}
 
+	/**
+	 * Checks the closures against each other, once, rather than on every run. Null closures and
+	 * closures given the wrong number of arguments by the one before them are reported, as are
+	 * closures which declare an argument type that the one before them could never return.
+	 *
+	 * @return  this Chain
+	 * @throws  ClosureChainException if a problem was found
+	 */
+	public Chain<Z> validate() {
+		ChainValidation.check(chain);
 		return this;
 	}
 
+	/**
+	 * Validates the chain and then fixes it in place. A sealed chain can no longer be changed,
+	 * and every run uses a plan compiled when it was sealed, so validation costs nothing extra
+	 * on each run. Errors are still wrapped when validation is enabled.
+	 *
+	 * @return  this Chain
+	 * @throws  ClosureChainException if the chain failed validation
+	 */
+	public synchronized Chain<Z> seal() {
+		if (sealed == null) {
+			ChainValidation.check(chain);
+			sealed = CompiledChain.compile(chain, validate);
+		}
+
+		return this;
+	}
+
+	public boolean isSealed() {
+		return sealed != null;
+	}
+
+	private void checkMutable() {
+		if (sealed != null)
+			throw new ClosureChainException("The chain is sealed and cannot be changed.");
+	}
+
+	private int checkPosition(int i) {
+		if (i < 0 || i > chain.length)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + chain.length);
+
+		return i;
+	}
+
+	private static void checkIndex(ClosureView current[], int i) {
+		if (i < 0 || i >= current.length)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + current.length);
+	}
+
+	// a copy of the array with the closures inserted at position i
+	@SuppressWarnings("unchecked")
+	private static <Z> ClosureView<Z>[] splice(ClosureView<Z> current[], int i, ClosureView<Z>...closures) {
+		if (closures.length == 0)
+			return current;
+
+		ClosureView<Z> spliced[] = new ClosureView[current.length + closures.length];
+		System.arraycopy(current, 0, spliced, 0, i);
+		System.arraycopy(closures, 0, spliced, i, closures.length);
+		System.arraycopy(current, i, spliced, i + closures.length, current.length - i);
+
+		return spliced;
+	}
+
+	// a copy of the array with the closures from every chain added to the end
+	@SuppressWarnings("unchecked")
+	private static <Z> ClosureView<Z>[] concat(ClosureView<Z> current[], Chain<Z>...chains) {
+		ClosureView<Z> snapshots[][] = new ClosureView[chains.length][];
+		int total = current.length;
+
+		for (int i=0; i < chains.length; ++i) {
+			snapshots[i] = chains[i].chain;
+			total += snapshots[i].length;
+		}
+
+		ClosureView<Z> joined[] = Arrays.copyOf(current, total);
+		int position = current.length;
+
+		for (ClosureView<Z> snapshot[] : snapshots) {
+			System.arraycopy(snapshot, 0, joined, position, snapshot.length);
+			position += snapshot.length;
+		}
+
+		return joined;
+	}
+
+	/*
+	 * The closures as they are right now. The array must not be modified.
+	 */
+	ClosureView<Z>[] stages() {
+		return chain;
+	}
+
 	/**
 	 * Execute the chain, starting from the first to the last (index 0 to size-1).
 	 *
 	 * @param args
 	 * @return
 	 */
-	@SuppressWarnings("unchecked")
 	public Z run(Object...args) {
+		ChainProfiler profiler = this.profiler;
+
+		if (profiler != null)
+			return run(chain, validate, profiler, args);
+
+		ClosureView<Z> sealed = this.sealed;
+
+		if (sealed != null)
+			return sealed.run(args);
+
+		return run(chain, validate, args);
+	}
+
+	/*
+	 * Runs a snapshot of the closures.
+	 */
+	@SuppressWarnings("unchecked")
+	static <Z> Z run(ClosureView<Z> chain[], boolean validate, Object...args) {
 		Object result = null;
 
 		if (validate) {
-			int lcv = -1;
-
-			for (ClosureView<Z> closure : chain) {
-				++lcv;
-
-				if (closure == null)
-					throw new ClosureChainException("Closure is null and will not execute! Index: " + lcv);
-
-				try {
-
-					int expected = closure.getExpectedArgs();
-					if (args == null && expected != 1) {
-						throw new ClosureChainException("Wrong number of arguments. Expected: 0, Found: 1");
-					} else if (expected != args.length) {
-						throw new ClosureChainException("Wrong number of arguments. Expected: " + expected + ", Found: " + args.length);
-					}
-
-					result = closure.run(args);
-
-					if (result == null) {
-						args = new Object[]{null};
-					} else if (result.getClass().isArray()) {
-						args = (Object[]) result;
-					} else {
-						args = new Object[]{result};
-					}
-				} catch (ClosureChainException ex) {
-					throw ex;
-				} catch (Exception ex) {
-					throw new ClosureChainException("Error while executing closure.", ex);
-				}
+			for (int i=0; i < chain.length; ++i) {
+				result = runValidated(chain[i], i, args);
+				args = toArgs(result);
 			}
 		} else {
 			for (ClosureView<Z> closure : chain) {
 				result = closure.run(args);
 
-				if (result == null) {
-					args = new Object[]{null};
-				} else if (result.getClass().isArray()) {
-					args = (Object[]) result;
-				} else {
-					args = new Object[]{result};
-				}
+				args = toArgs(result);
 			}
 		}
 
@@ -249,11 +376,465 @@ public class Chain<Z> implements Iterable<ClosureView<Z>> {
 		}
 	}
 
+	/*
+	 * Runs one closure of the chain, first checking that it can take the arguments.
+	 */
+	private static <Z> Object runValidated(ClosureView<Z> closure, int index, Object args[]) {
+		if (closure == null)
+			throw new ClosureChainException("Closure is null and will not execute! Index: " + index);
+
+		try {
+			checkArgs(closure.getExpectedArgs(), args);
+			return closure.run(args);
+		} catch (ClosureChainException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new ClosureChainException("Error while executing closure.", ex);
+		}
+	}
+
+	/*
+	 * Checks the number of arguments given to a closure against the number it expects.
+	 */
+	static void checkArgs(int expected, Object args[]) {
+		if (args == null && expected != 1) {
+			throw new ClosureChainException("Wrong number of arguments. Expected: 0, Found: 1");
+		} else if (expected != args.length) {
+			throw new ClosureChainException("Wrong number of arguments. Expected: " + expected + ", Found: " + args.length);
+		}
+	}
+
+	/*
+	 * Runs a snapshot of the closures in the same way as above, timing each one.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <Z> Z run(ClosureView<Z> chain[], boolean validate, ChainProfiler profiler, Object...args) {
+		Object result = null;
+
+		for (int i=0; i < chain.length; ++i) {
+			ClosureView<Z> closure = chain[i];
+			long start = System.nanoTime();
+
+			try {
+				result = validate ? runValidated(closure, i, args) : closure.run(args);
+			} catch (Throwable ex) {
+				profiler.recordError(i, System.nanoTime() - start);
+				throw Chain.<RuntimeException>rethrow(ex);
+			}
+
+			profiler.record(i, System.nanoTime() - start);
+			args = toArgs(result);
+		}
+
+		return (Z) result;
+	}
+
+	/*
+	 * Rethrows the throwable as-is, so that whatever a closure throws reaches the caller
+	 * unchanged.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends Throwable> T rethrow(Throwable ex) throws T {
+		throw (T) ex;
+	}
+
+	/*
+	 * Each closure outputs a single object, which becomes the arguments to the next one.
+	 * Arrays are fed in as varargs.
+	 */
+	static Object[] toArgs(Object result) {
+		if (result == null) {
+			return new Object[]{null};
+		} else if (result.getClass().isArray()) {
+			return (Object[]) result;
+		} else {
+			return new Object[]{result};
+		}
+	}
+
+	/**
+	 * Compiles the chain into a single ClosureView which runs every closure in turn. The stages
+	 * are fused into one MethodHandle, and single values are passed directly to closures known
+	 * to take exactly one argument, so no argument arrays are needed between them.
+	 *
+	 * The compiled view is a snapshot, and is not affected by later changes to this chain.
+	 * If validation is enabled, errors are wrapped as they would be by {@link #run(Object...)},
+	 * but the argument counts are not checked.
+	 *
+	 * @return  an immutable view of the chain as it is now
+	 * @throws  ClosureChainException if the chain contains a null closure
+	 */
+	@SuppressWarnings("unchecked")
+	public ClosureView<Z> compile() {
+		ClosureView<Z> sealed = this.sealed;
+		return sealed != null ? sealed : CompiledChain.compile(chain, validate);
+	}
+
+	/**
+	 * Runs the chain on an executor, without waiting for it to finish. Closures marked with
+	 * {@link #blocking(ClosureView)} are run elsewhere, so that they never tie up the executor's
+	 * threads while they wait: in virtual threads on Java 21 and newer, and otherwise on a shared
+	 * pool of up to 64 daemon threads, where they queue once all of the threads are busy.
+	 *
+	 * @param executor  runs the closures which are not blocking
+	 * @param args      arguments to the first closure
+	 * @return          a future for the result of the last closure
+	 */
+	public CompletableFuture<Z> runAsync(Executor executor, Object...args) {
+		return toAsync(executor).run(args);
+	}
+
+	/**
+	 * Runs the chain without waiting for it to finish. On Java 21 and newer, a virtual thread
+	 * per task executor makes a good choice for the blocking closures.
+	 *
+	 * @param executor  runs the closures which are not blocking
+	 * @param blocking  runs the closures marked with {@link #blocking(ClosureView)}
+	 * @param args      arguments to the first closure
+	 * @return          a future for the result of the last closure
+	 */
+	public CompletableFuture<Z> runAsync(Executor executor, Executor blocking, Object...args) {
+		return toAsync(executor, blocking).run(args);
+	}
+
+	/**
+	 * Creates an asynchronous view of the chain as it is now.
+	 * @see #runAsync(Executor, Object...)
+	 */
+	public AsyncClosureView<Z> toAsync(Executor executor) {
+		return toAsync(executor, AsyncChain.defaultBlockingExecutor());
+	}
+
+	/**
+	 * Creates an asynchronous view of the chain as it is now.
+	 * @see #runAsync(Executor, Executor, Object...)
+	 */
+	public AsyncClosureView<Z> toAsync(Executor executor, Executor blocking) {
+		return new AsyncChain<Z>(chain, validate, executor, blocking);
+	}
+
+	/**
+	 * Marks a closure as one which blocks, waiting on I/O or the like. When the chain is run
+	 * asynchronously, the closure is kept off of the executor meant for computation. Otherwise,
+	 * the mark makes no difference.
+	 *
+	 * @param closure  the closure to mark
+	 * @return         a view which runs the closure
+	 */
+	public static <Z> ClosureView<Z> blocking(ClosureView<Z> closure) {
+		return AsyncChain.blocking(closure);
+	}
+
+	/**
+	 * Runs the chain once for every input, with the inputs split across the common fork/join pool.
+	 * The closures must be safe to run from several threads at once.
+	 *
+	 * @param inputs  argument arrays, one for each run of the chain
+	 * @return        the results, in the same order as the inputs
+	 */
+	public List<Z> runAll(List<? extends Object[]> inputs) {
+		return runAll(inputs, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs the chain once for every input, with the inputs split across a fork/join pool.
+	 * The closures must be safe to run from several threads at once.
+	 *
+	 * @param inputs  argument arrays, one for each run of the chain
+	 * @param pool    the pool to run in
+	 * @return        the results, in the same order as the inputs
+	 */
+	public List<Z> runAll(List<? extends Object[]> inputs, ForkJoinPool pool) {
+		return new ParallelChain<Z>(chain, validate, pool).runAll(inputs);
+	}
+
+	/**
+	 * Runs the chain once for every input, with the inputs split across the common fork/join pool.
+	 * The results are handed to the sink as they are produced, in no particular order and from
+	 * several threads at once, so the sink as well as the closures must be thread safe.
+	 *
+	 * @param inputs  argument arrays, one for each run of the chain
+	 * @param sink    receives every result
+	 */
+	public void runAll(Spliterator<? extends Object[]> inputs, Closure1View<?, ? super Z> sink) {
+		runAll(inputs, sink, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs the chain once for every input, with the inputs split across a fork/join pool.
+	 * The results are handed to the sink as they are produced, in no particular order and from
+	 * several threads at once, so the sink as well as the closures must be thread safe.
+	 *
+	 * @param inputs  argument arrays, one for each run of the chain
+	 * @param sink    receives every result
+	 * @param pool    the pool to run in
+	 */
+	public void runAll(Spliterator<? extends Object[]> inputs, Closure1View<?, ? super Z> sink, ForkJoinPool pool) {
+		if (sink == null)
+			throw new NullPointerException("sink");
+
+		new ParallelChain<Z>(chain, validate, pool).runAll(inputs, sink);
+	}
+
+	/**
+	 * Gets the chain as it is now as a function, for use with {@link Stream#map}. Each value
+	 * is passed to the first closure as its only argument, even if it is an array.
+	 */
+	public <A> Function<A, Z> asFunction() {
+		final ClosureView<Z> snapshot = snapshot();
+
+		return new Function<A, Z>() {
+			public Z apply(A value) {
+				return snapshot.run(new Object[] {value});
+			}
+		};
+	}
+
+	/**
+	 * Creates a sequential stream of the results of running the chain as it is now once for
+	 * every input. Inputs are only run as the stream asks for them.
+	 *
+	 * @param inputs  argument arrays, one for each run of the chain
+	 */
+	public Stream<Z> stream(Spliterator<? extends Object[]> inputs) {
+		return stream(inputs, false);
+	}
+
+	/**
+	 * Creates a stream of the results of running the chain as it is now once for every input.
+	 * A parallel stream splits wherever the inputs can be split, and knows its size whenever
+	 * they know theirs, so the closures must be safe to run from several threads at once.
+	 *
+	 * @param inputs    argument arrays, one for each run of the chain
+	 * @param parallel  whether the stream should be parallel
+	 */
+	public Stream<Z> stream(Spliterator<? extends Object[]> inputs, boolean parallel) {
+		return StreamSupport.stream(new ChainSpliterator<Z>(inputs, snapshot()), parallel);
+	}
+
+	// the chain as it is now, sealed or not
+	private ClosureView<Z> snapshot() {
+		ClosureView<Z> sealed = this.sealed;
+
+		if (sealed != null)
+			return sealed;
+
+		final ClosureView<Z> closures[] = chain;
+		final boolean validate = this.validate;
+		final int expectedArgs = closures.length == 0 || closures[0] == null ? -1 : closures[0].getExpectedArgs();
+
+		return new ClosureView<Z>() {
+			public Z run(Object...args) {
+				return Chain.run(closures, validate, args);
+			}
+
+			public int getExpectedArgs() {
+				return expectedArgs;
+			}
+		};
+	}
+
 	public int size() {
-		return chain.size();
+		return chain.length;
 	}
 
+	/**
+	 * Iterates over the closures as they were when this method was called.
+	 * The iterator is read-only.
+	 */
 	public Iterator<ClosureView<Z>> iterator() {
-		return chain.iterator();
+		return Collections.unmodifiableList(Arrays.asList(chain)).iterator();
+	}
+
+	/**
+	 * An immutable way of assembling chains. Every change returns a new builder, and leaves the
+	 * original untouched. Builders share as much as they can with the builders and chains they
+	 * came from, so deriving many variations of a common base chain is cheap.
+	 *
+	 * Call {@link #build()} to get a runnable Chain.
+	 */
+	public static final class Builder<Z> {
+		private static final int MAX_DEPTH = 32;
+		private static final int MERGE_SIZE = 16;
+
+		private final Node root;     // null when empty
+
+
+		private Builder(Node root) {
+			this.root = root;
+		}
+
+		public int size() {
+			return root == null ? 0 : root.size;
+		}
+
+		public ClosureView<Z> get(int i) {
+			if (i < 0 || i >= size())
+				throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+
+			return root.get(i);
+		}
+
+		public Builder<Z> append(ClosureView<Z>...closures) {
+			return new Builder<Z>(join(root, leaf(closures.clone())));
+		}
+
+		public Builder<Z> append(Chain<Z> chain) {
+			return new Builder<Z>(join(root, leaf(chain.chain)));
+		}
+
+		public Builder<Z> prepend(ClosureView<Z>...closures) {
+			return new Builder<Z>(join(leaf(closures.clone()), root));
+		}
+
+		public Builder<Z> prepend(Chain<Z> chain) {
+			return new Builder<Z>(join(leaf(chain.chain), root));
+		}
+
+		public Builder<Z> insert(int i, ClosureView<Z>...closures) {
+			return insert(i, leaf(closures.clone()));
+		}
+
+		public Builder<Z> insert(int i, Chain<Z> chain) {
+			return insert(i, leaf(chain.chain));
+		}
+
+		public Builder<Z> remove(int i) {
+			if (i < 0 || i >= size())
+				throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+
+			return new Builder<Z>(join(slice(root, 0, i), slice(root, i+1, size())));
+		}
+
+		/**
+		 * @return  a new Chain containing the closures in this builder
+		 */
+		@SuppressWarnings("unchecked")
+		public Chain<Z> build() {
+			Chain<Z> built = new Chain<Z>();
+
+			if (root instanceof Leaf && ((Leaf) root).isWhole()) {
+				built.chain = ((Leaf) root).closures;
+			} else if (root != null) {
+				ClosureView<Z> closures[] = new ClosureView[root.size];
+				root.copyTo(closures, 0);
+				built.chain = closures;
+			}
+
+			return built;
+		}
+
+		private Builder<Z> insert(int i, Node inserted) {
+			if (i < 0 || i > size())
+				throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+
+			return new Builder<Z>(join(join(slice(root, 0, i), inserted), slice(root, i, size())));
+		}
+
+		static Node leaf(ClosureView closures[]) {
+			return closures.length == 0 ? null : new Leaf(closures, 0, closures.length);
+		}
+
+		private static Node join(Node left, Node right) {
+			if (left == null)
+				return right;
+
+			if (right == null)
+				return left;
+
+			// small pieces are cheaper to copy than to keep track of
+			if (left.size + right.size <= MERGE_SIZE || Math.max(left.depth, right.depth) >= MAX_DEPTH) {
+				ClosureView closures[] = new ClosureView[left.size + right.size];
+				left.copyTo(closures, 0);
+				right.copyTo(closures, left.size);
+				return new Leaf(closures, 0, closures.length);
+			}
+
+			return new Concat(left, right);
+		}
+
+		private static Node slice(Node node, int from, int to) {
+			if (node == null || from >= to)
+				return null;
+
+			if (from == 0 && to == node.size)
+				return node;
+
+			if (node instanceof Leaf) {
+				Leaf leaf = (Leaf) node;
+				return new Leaf(leaf.closures, leaf.from + from, leaf.from + to);
+			}
+
+			Concat concat = (Concat) node;
+			int split = concat.left.size;
+
+			if (to <= split)
+				return slice(concat.left, from, to);
+
+			if (from >= split)
+				return slice(concat.right, from - split, to - split);
+
+			return join(slice(concat.left, from, split), slice(concat.right, 0, to - split));
+		}
+
+		/*
+		 * The builder's closures are held in a tree of nodes, whose leaves are ranges of arrays
+		 * which are never modified. Slicing and joining creates new nodes, never new arrays
+		 * (except when merging small pieces).
+		 */
+		private static abstract class Node {
+			final int size;
+			final int depth;
+
+			Node(int size, int depth) {
+				this.size = size;
+				this.depth = depth;
+			}
+
+			abstract ClosureView get(int i);
+			abstract void copyTo(ClosureView dest[], int position);
+		}
+
+		private static final class Leaf extends Node {
+			final ClosureView closures[];
+			final int from;
+
+			Leaf(ClosureView closures[], int from, int to) {
+				super(to - from, 1);
+				this.closures = closures;
+				this.from = from;
+			}
+
+			boolean isWhole() {
+				return from == 0 && size == closures.length;
+			}
+
+			ClosureView get(int i) {
+				return closures[from + i];
+			}
+
+			void copyTo(ClosureView dest[], int position) {
+				System.arraycopy(closures, from, dest, position, size);
+			}
+		}
+
+		private static final class Concat extends Node {
+			final Node left, right;
+
+			Concat(Node left, Node right) {
+				super(left.size + right.size, Math.max(left.depth, right.depth) + 1);
+				this.left = left;
+				this.right = right;
+			}
+
+			ClosureView get(int i) {
+				return i < left.size ? left.get(i) : right.get(i - left.size);
+			}
+
+			void copyTo(ClosureView dest[], int position) {
+				left.copyTo(dest, position);
+				right.copyTo(dest, position + left.size);
+			}
+		}
 	}
 }
@@ -0,0 +1,436 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.Closure1View;
+import unquietcode.tools.closures.view.ClosureView;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Runs a chain over a series of inputs, with the closures split into groups and each group
+ * running on its own thread. While one input is in the third group, the next can be in the
+ * second and the one after that in the first, so an n stage chain can keep n cores busy.
+ *
+ * Groups hand results to each other through bounded ring buffers. When a buffer is full the
+ * group feeding it waits, and so on back to the first group, which stops pulling inputs.
+ * Every buffer is first in, first out, so results reach the sink in the order the inputs
+ * were given. The sink is always called from the last group's thread.
+ *
+ * The closures in the chain are shared by every input, but each closure is only ever run
+ * by one thread at a time. Errors stop the whole pipeline, and are wrapped in a
+ * {@link ClosureChainException} when it is awaited. So does interrupting one of the
+ * pipeline's threads, or aborting the execution.
+ *
+ * Each execution takes its threads from a {@link ThreadFactory}, which by default makes
+ * daemon threads. The threads are never pooled, since every group runs for as long as
+ * the execution does.
+ */
+public final class ChainPipeline<Z> {
+	private static final int DEFAULT_BUFFER_SIZE = 1024;
+	private static final ThreadFactory DEFAULT_THREADS = new ThreadFactory() {
+		private final AtomicInteger counter = new AtomicInteger();
+
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "ChainPipeline-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+
+	private static final Object NULL = new Object();    // stands in for null results in the buffers
+	private static final Object END = new Object();     // follows the last input through the pipeline
+
+	private final ClosureView<Z> stages[];
+	private final int bounds[];     // group i runs stages bounds[i] until bounds[i+1]
+	private final int bufferSize;
+	private final ThreadFactory threadFactory;
+
+
+	/**
+	 * Creates a pipeline with a thread for each closure, up to the number of processors.
+	 *
+	 * @param chain  the closures to run, as they are now
+	 */
+	public ChainPipeline(Chain<Z> chain) {
+		this(chain, Math.min(chain.size(), Runtime.getRuntime().availableProcessors()), DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param chain       the closures to run, as they are now
+	 * @param threads     the number of groups to split the closures into
+	 * @param bufferSize  how many results can wait between two groups
+	 */
+	public ChainPipeline(Chain<Z> chain, int threads, int bufferSize) {
+		this(chain, threads, bufferSize, DEFAULT_THREADS);
+	}
+
+	/**
+	 * @param chain          the closures to run, as they are now
+	 * @param threads        the number of groups to split the closures into
+	 * @param bufferSize     how many results can wait between two groups
+	 * @param threadFactory  makes the threads for each execution
+	 */
+	public ChainPipeline(Chain<Z> chain, int threads, int bufferSize, ThreadFactory threadFactory) {
+		if (threadFactory == null)
+			throw new NullPointerException("threadFactory");
+
+		stages = chain.stages();
+
+		if (stages.length == 0)
+			throw new ClosureChainException("Cannot create a pipeline from an empty chain.");
+
+		for (int i=0; i < stages.length; ++i) {
+			if (stages[i] == null)
+				throw new ClosureChainException("Closure is null and will not execute! Index: " + i);
+		}
+
+		if (threads < 1)
+			throw new IllegalArgumentException("at least one thread is required");
+
+		if (bufferSize < 1)
+			throw new IllegalArgumentException("buffer size must be positive");
+
+		threads = Math.min(threads, stages.length);
+		bounds = new int[threads + 1];
+
+		for (int i=0; i <= threads; ++i) {
+			bounds[i] = i * stages.length / threads;
+		}
+
+		this.bufferSize = bufferSize;
+		this.threadFactory = threadFactory;
+	}
+
+	/**
+	 * @return  the number of threads used by each execution
+	 */
+	public int getThreads() {
+		return bounds.length - 1;
+	}
+
+	/**
+	 * Runs every input through the pipeline and collects the results.
+	 *
+	 * @param inputs  argument arrays, one for each run of the chain
+	 * @return        the results, in the same order as the inputs
+	 */
+	public List<Z> run(Iterable<? extends Object[]> inputs) {
+		final List<Z> results = new ArrayList<Z>();
+
+		run(inputs, new AbstractClosure1<Void, Z>() {
+			public Void run(Z result) {
+				results.add(result);
+				return null;
+			}
+		}.getView());
+
+		return results;
+	}
+
+	/**
+	 * Runs every input through the pipeline, handing each result to the sink,
+	 * and waits for the last one.
+	 *
+	 * @param inputs  argument arrays, one for each run of the chain
+	 * @param sink    receives the results, in the same order as the inputs
+	 */
+	public void run(Iterable<? extends Object[]> inputs, Closure1View<?, ? super Z> sink) {
+		start(inputs.iterator(), sink).await();
+	}
+
+	/**
+	 * Starts running the inputs through the pipeline, and returns without waiting.
+	 * The iterator is only ever used by the pipeline's first thread.
+	 *
+	 * @param inputs  argument arrays, one for each run of the chain
+	 * @param sink    receives the results, in the same order as the inputs
+	 * @return        a handle for stopping and waiting on the execution
+	 */
+	public Execution start(Iterator<? extends Object[]> inputs, Closure1View<?, ? super Z> sink) {
+		if (inputs == null)
+			throw new NullPointerException("inputs");
+
+		if (sink == null)
+			throw new NullPointerException("sink");
+
+		Execution execution = new Execution(inputs, sink);
+		execution.launch();
+		return execution;
+	}
+
+	/*
+	 * Waits a little longer on each attempt: spinning, then yielding, then parking.
+	 */
+	private static void idle(int attempt) {
+		if (attempt < 64) {
+			return;
+		} else if (attempt < 128) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(50000);
+		}
+	}
+
+	/**
+	 * A single pass of inputs through the pipeline.
+	 */
+	public final class Execution {
+		private final Iterator<? extends Object[]> inputs;
+		private final Closure1View<?, ? super Z> sink;
+		private final CountDownLatch finished = new CountDownLatch(bounds.length - 1);
+		private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		private final Thread threads[] = new Thread[bounds.length - 1];
+
+		private volatile boolean stopping = false;  // no more inputs will be taken
+		private volatile boolean aborted = false;   // something failed, drop everything
+
+		private Execution(Iterator<? extends Object[]> inputs, Closure1View<?, ? super Z> sink) {
+			this.inputs = inputs;
+			this.sink = sink;
+		}
+
+		private void launch() {
+			SpscRingBuffer<Object> in = null;
+
+			for (int i=0; i < threads.length; ++i) {
+				boolean last = i == threads.length - 1;
+				SpscRingBuffer<Object> out = last ? null : new SpscRingBuffer<Object>(bufferSize);
+
+				threads[i] = threadFactory.newThread(new Group(bounds[i], bounds[i+1], in, out));
+
+				if (threads[i] == null)
+					throw new ClosureChainException("The thread factory did not make a thread.");
+
+				in = out;
+			}
+
+			for (Thread thread : threads) {
+				thread.start();
+			}
+		}
+
+		/**
+		 * Stops taking new inputs. Inputs already taken continue through the pipeline
+		 * and are delivered to the sink.
+		 */
+		public void shutdown() {
+			stopping = true;
+		}
+
+		/**
+		 * Stops the pipeline as soon as possible. Inputs already taken are dropped, threads
+		 * waiting for room in a buffer give up, and the pipeline's threads are interrupted.
+		 * Awaiting the execution afterwards throws a {@link ClosureChainException}.
+		 */
+		public void abort() {
+			fail(new ClosureChainException("The pipeline was aborted."));
+
+			for (Thread thread : threads) {
+				thread.interrupt();
+			}
+		}
+
+		/**
+		 * @return  true if every thread in the pipeline has finished
+		 */
+		public boolean isDone() {
+			return finished.getCount() == 0;
+		}
+
+		/**
+		 * Waits for every input to pass through the pipeline.
+		 *
+		 * @throws ClosureChainException if a closure, the sink, or the inputs failed
+		 */
+		public void await() {
+			try {
+				finished.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new ClosureChainException("Interrupted while waiting for the pipeline.", ex);
+			}
+
+			rethrow();
+		}
+
+		/**
+		 * Waits for every input to pass through the pipeline, up to a limit.
+		 *
+		 * @return  true if the pipeline finished in time
+		 * @throws  ClosureChainException if a closure, the sink, or the inputs failed
+		 */
+		public boolean await(long timeout, TimeUnit unit) {
+			boolean done;
+
+			try {
+				done = finished.await(timeout, unit);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new ClosureChainException("Interrupted while waiting for the pipeline.", ex);
+			}
+
+			if (done)
+				rethrow();
+
+			return done;
+		}
+
+		private void rethrow() {
+			Throwable ex = error.get();
+
+			if (ex == null)
+				return;
+
+			if (ex instanceof ClosureChainException)
+				throw (ClosureChainException) ex;
+
+			throw new ClosureChainException("Error while executing pipeline.", ex);
+		}
+
+		private void fail(Throwable ex) {
+			error.compareAndSet(null, ex);
+			aborted = true;
+		}
+
+		// true if this thread should stop, either because the pipeline was aborted or the thread interrupted
+		private boolean halted() {
+			if (aborted)
+				return true;
+
+			if (Thread.currentThread().isInterrupted()) {
+				fail(new ClosureChainException("Interrupted while running the pipeline.", new InterruptedException()));
+				return true;
+			}
+
+			return false;
+		}
+
+		private final class Group implements Runnable {
+			private final int from, to;
+			private final SpscRingBuffer<Object> in, out;     // null for the first and last groups
+
+			Group(int from, int to, SpscRingBuffer<Object> in, SpscRingBuffer<Object> out) {
+				this.from = from;
+				this.to = to;
+				this.in = in;
+				this.out = out;
+			}
+
+			public void run() {
+				try {
+					if (in == null) {
+						feed();
+					} else {
+						relay();
+					}
+				} catch (Throwable ex) {
+					fail(ex);
+				} finally {
+					finished.countDown();
+				}
+			}
+
+			// the first group pulls straight from the inputs
+			private void feed() {
+				while (!stopping && !halted() && inputs.hasNext()) {
+					if (!emit(apply(inputs.next())))
+						return;
+				}
+
+				emit(END);
+			}
+
+			private void relay() {
+				int attempt = 0;
+
+				while (!halted()) {
+					Object item = in.poll();
+
+					if (item == null) {
+						idle(attempt++);
+						continue;
+					}
+
+					attempt = 0;
+
+					if (item == END) {
+						emit(END);
+						return;
+					}
+
+					if (!emit(apply(Chain.toArgs(item == NULL ? null : item))))
+						return;
+				}
+			}
+
+			private Object apply(Object args[]) {
+				Object result = null;
+
+				for (int i=from; i < to; ++i) {
+					try {
+						result = stages[i].run(args);
+					} catch (RuntimeException ex) {
+						throw new ClosureChainException("Error while executing closure. Index: " + i, ex);
+					}
+
+					if (i + 1 < to)
+						args = Chain.toArgs(result);
+				}
+
+				return result;
+			}
+
+			// returns false if the pipeline was aborted or the thread interrupted while waiting for room
+			@SuppressWarnings("unchecked")
+			private boolean emit(Object result) {
+				if (out == null) {
+					if (result != END)
+						((Closure1View<?, Object>) sink).run(result);
+
+					return true;
+				}
+
+				Object item = result == null ? NULL : result;
+				int attempt = 0;
+
+				while (!out.offer(item)) {
+					if (halted())
+						return false;
+
+					idle(attempt++);
+				}
+
+				return true;
+			}
+		}
+	}
+}
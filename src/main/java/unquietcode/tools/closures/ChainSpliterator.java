@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.ClosureView;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A spliterator over the results of running a chain on each input of another spliterator.
+ * Splitting is left to the source, so a stream of results divides up for parallel work exactly
+ * as well as the inputs do, and keeps their size. Results can repeat, come out unsorted, or be
+ * null, whatever the inputs were like.
+ */
+final class ChainSpliterator<Z> implements Spliterator<Z> {
+	private static final int KEPT = SIZED | SUBSIZED | ORDERED | IMMUTABLE | CONCURRENT;
+
+	private final Spliterator<? extends Object[]> inputs;
+	private final ClosureView<Z> chain;
+
+
+	ChainSpliterator(Spliterator<? extends Object[]> inputs, ClosureView<Z> chain) {
+		if (inputs == null)
+			throw new NullPointerException("inputs");
+
+		this.inputs = inputs;
+		this.chain = chain;
+	}
+
+	public boolean tryAdvance(final Consumer<? super Z> action) {
+		return inputs.tryAdvance(new Consumer<Object[]>() {
+			public void accept(Object args[]) {
+				action.accept(chain.run(args));
+			}
+		});
+	}
+
+	public void forEachRemaining(final Consumer<? super Z> action) {
+		inputs.forEachRemaining(new Consumer<Object[]>() {
+			public void accept(Object args[]) {
+				action.accept(chain.run(args));
+			}
+		});
+	}
+
+	public Spliterator<Z> trySplit() {
+		Spliterator<? extends Object[]> prefix = inputs.trySplit();
+		return prefix == null ? null : new ChainSpliterator<Z>(prefix, chain);
+	}
+
+	public long estimateSize() {
+		return inputs.estimateSize();
+	}
+
+	public long getExactSizeIfKnown() {
+		return inputs.getExactSizeIfKnown();
+	}
+
+	public int characteristics() {
+		return inputs.characteristics() & KEPT;
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.ClosureView;
+
+import java.lang.reflect.Modifier;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Checks the closures of a chain against each other, before the chain is run.
+ *
+ * Only mistakes which are certain are reported. A closure returning an array (or a type an array
+ * could hide behind, such as Object or Serializable) could produce any number of arguments, and
+ * a value declared as one type might still turn out to be another, so those are left for run
+ * time. Closures which do not know their own signature are only checked for null.
+ */
+final class ChainValidation {
+	private ChainValidation() { }
+
+	static void check(ClosureView chain[]) {
+		for (int i=0; i < chain.length; ++i) {
+			if (chain[i] == null)
+				throw new ClosureChainException("Closure is null and will not execute! Index: " + i);
+		}
+
+		for (int i=1; i < chain.length; ++i) {
+			ClosureSignature before = signature(chain[i-1]);
+
+			if (before == null)
+				continue;
+
+			Class returned = before.getReturnType();
+
+			// arrays are spread out as varargs, and anything declared as Object, Serializable
+			// or Cloneable might be an array
+			if (returned.isArray() || returned.isAssignableFrom(Object[].class))
+				continue;
+
+			int expected = chain[i].getExpectedArgs();
+
+			if (expected >= 0 && expected != 1) {
+				throw new ClosureChainException(
+					"Wrong number of arguments. Expected: " + expected + ", Found: 1 (" + returned.getSimpleName() + ")"
+					+ " Index: " + i
+				);
+			}
+
+			ClosureSignature after = signature(chain[i]);
+
+			if (after == null || after.size() != 1)
+				continue;
+
+			Class wanted = after.getArgumentType(0);
+
+			if (!compatible(wanted, returned)) {
+				throw new ClosureChainException(
+					"Incompatible types. Expected: " + wanted.getSimpleName() + ", Found: " + returned.getSimpleName()
+					+ " Index: " + i
+				);
+			}
+		}
+	}
+
+	private static ClosureSignature signature(ClosureView closure) {
+		return closure instanceof Signed ? ((Signed) closure).getSignature() : null;
+	}
+
+	/*
+	 * Whether a value declared as one type could be passed as another, allowing for boxing.
+	 */
+	static boolean compatible(Class wanted, Class given) {
+		wanted = box(wanted);
+		given = box(given);
+
+		if (wanted.isAssignableFrom(given) || given.isAssignableFrom(wanted))
+			return true;
+
+		// a subclass of one might still implement the other
+		if (wanted.isInterface() && !Modifier.isFinal(given.getModifiers()))
+			return true;
+
+		if (given.isInterface() && !Modifier.isFinal(wanted.getModifiers()))
+			return true;
+
+		return false;
+	}
+
+	private static Class box(Class type) {
+		if (!type.isPrimitive())
+			return type;
+
+		if (type == int.class)      return Integer.class;
+		if (type == long.class)     return Long.class;
+		if (type == double.class)   return Double.class;
+		if (type == float.class)    return Float.class;
+		if (type == boolean.class)  return Boolean.class;
+		if (type == char.class)     return Character.class;
+		if (type == byte.class)     return Byte.class;
+		if (type == short.class)    return Short.class;
+
+		return Void.class;
+	}
+}
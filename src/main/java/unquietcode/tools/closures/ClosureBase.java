@@ -23,23 +23,20 @@ import com.googlecode.gentyref.GenericTypeReflector;
 import unquietcode.tools.closures.view.ClosureView;
 import unquietcode.tools.closures.view.ClosureViewBase;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author  Benjamin Fagin
  * @version Dec 7, 2010
  */
 abstract class ClosureBase<Z> {
-	private Object arguments[];
+	private Arguments arguments;
 
 	protected ClosureBase(Object...args) {
-		if (args == null)
-			arguments = new Object[] {null};
-		else
-			arguments = args;
+		arguments = Arguments.of(args);
 	}
 
 	// to get passed in variables
@@ -65,72 +62,108 @@ abstract class ClosureBase<Z> {
 
 	@SuppressWarnings("unchecked")
 	protected final <A> A arg(int var) {
-		try {
-			return (A) arguments[--var];
-		} catch (ArrayIndexOutOfBoundsException ex) {
+		if (var < 1 || var > arguments.size()) {
 			throw new ClosureException("invalid argument index: " + var);
 		}
+
+		return (A) arguments.get(var-1);
+	}
+
+	/**
+	 * @return a read-only list of the arguments passed in when the closure was created
+	 */
+	protected final List<Object> getArgumentList() {
+		return arguments;
+	}
+
+	/*
+	 * Replaces the arguments, for closures which were created without running their constructors.
+	 */
+	final void restoreArguments(Object...args) {
+		arguments = Arguments.of(args);
 	}
 
+	/**
+	 * @deprecated  copies the arguments on every call, use {@link #getArgumentList()}
+	 */
+	@Deprecated
 	protected final Object[] getArguments() {
-		return Arrays.copyOf(arguments, arguments.length);
+		return arguments.toArray();
 	}
 
-	@SuppressWarnings("unchecked")
 	public final void curry(int var, Object replacement) {
-		var -= 1;
-		Field f[] = this.getClass().getDeclaredFields();
+		CurrySlots.of(this.getClass()).set(this, var, replacement);
+	}
 
-		if (var >= f.length) {
-			throw new ClosureException("invalid field ("+ (var+1) +")");
-		}
+	/*
+	 * Curries fields 1 through n in one pass, using the replacements in order.
+	 */
+	public final void curryAll(Object...replacements) {
+		if (replacements == null)
+			replacements = new Object[] {null};
 
-		Field field = f[var];
-		String name = field.getName();
+		CurrySlots slots = CurrySlots.of(this.getClass());
 
-		//TODO this might be compiler dependant, so need a better way!
-		if (name.replaceAll("^this\\$[0-9]+", "").equals("")) {
-			throw new ClosureException("invalid field ("+ (var+1) +")");
+		for (int i=0; i < replacements.length; ++i) {
+			slots.set(this, i+1, replacements[i]);
 		}
+	}
 
-		//make accessible
-		if (!field.isAccessible())
-			field.setAccessible(true);
+	/*
+	 * Creates a per-class cache of signatures for closures extending the given base class.
+	 * The generic types are resolved the first time a closure class is seen, and are then
+	 * shared by every instance of that class.
+	 */
+	static ClassValue<ClosureSignature> signatures(final Class<? extends ClosureBase> base) {
+		return new ClassValue<ClosureSignature>() {
+			protected ClosureSignature computeValue(Class<?> type) {
+				return resolveSignature(type, base);
+			}
+		};
+	}
 
-		try {
-			field.set(this, replacement);
-		} catch (IllegalAccessException ex) {
-			throw new ClosureException("Could not access field to change.", ex);
-		} catch (IllegalArgumentException ex) {
-			throw new ClosureException("Invalid object type for replacement.", ex);
-		}
+	/*
+	 * As above, but for closures whose return type is fixed by the base class (such as the
+	 * primitive closures), so that the declared type can be reported instead of its box.
+	 */
+	static ClassValue<ClosureSignature> signatures(final Class<? extends ClosureBase> base, final Class returnType) {
+		return new ClassValue<ClosureSignature>() {
+			protected ClosureSignature computeValue(Class<?> type) {
+				return new ClosureSignature(returnType, resolveSignature(type, base).getArgumentTypes());
+			}
+		};
 	}
 
-	protected final <T extends ClosureBase> Class[] getArgumentTypes(Class<T> clazz) {
-		Type baseType = GenericTypeReflector.getExactSuperType((Type) this.getClass(), clazz);
+	private static ClosureSignature resolveSignature(Class<?> type, Class<? extends ClosureBase> base) {
+		// figure out which of the base's type parameters (if any) is the return type
+		Type closureType = base.getGenericSuperclass();
+		Type returnType = closureType instanceof ParameterizedType
+		                ? ((ParameterizedType) closureType).getActualTypeArguments()[0]
+		                : Object.class;
+		int returnIndex = Arrays.asList(base.getTypeParameters()).indexOf(returnType);
+
+		Type baseType = GenericTypeReflector.getExactSuperType(type, base);
 
-		if (baseType instanceof Class<?>) {
+		if (!(baseType instanceof ParameterizedType)) {
 			// raw class, type parameters not known
-			return new Class[]{};
+			return new ClosureSignature(returnIndex < 0 ? GenericTypeReflector.erase(returnType) : Object.class);
 		}
 
 		ParameterizedType pBaseType = (ParameterizedType) baseType;
 		Type types[] = pBaseType.getActualTypeArguments();
-
-		if (types.length <= 1) {
-			return new Class[]{};
-		}
-
-		Class classes[] = new Class[types.length-1];
-		for (int i=1; i < types.length; ++i) {
-			classes[i-1] = (Class) types[i];
+		Class classes[] = new Class[returnIndex < 0 ? types.length : types.length-1];
+
+		for (int i=0, j=0; i < types.length; ++i) {
+			if (i == returnIndex) {
+				returnType = types[i];
+			} else {
+				classes[j++] = GenericTypeReflector.erase(types[i]);
+			}
 		}
 
-		return classes;
+		return new ClosureSignature(GenericTypeReflector.erase(returnType), classes);
 	}
 
 	public abstract ClosureView<Z> toClosure();
 	public abstract <T extends ClosureViewBase<Z>> T getView();
-
-	//TODO generate a "signature" version of the argument types array
 }
@@ -0,0 +1,727 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.codec.Codec;
+import unquietcode.tools.closures.codec.Codecs;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A compact binary format for closures, so that they can be sent to another JVM or kept for
+ * later. A closure is written as its class, the arguments it was created with, and the values
+ * of its fields (see {@link ClosureLayout} for which ones). Primitive fields are written as they
+ * are, and everything else as a tagged value, which may be another closure.
+ *
+ * Classes are named the first time they appear, and referred to by number after that. A
+ * {@link Writer} and {@link Reader} keep their table of classes across calls, so a stream of
+ * closures pays for each class name once. Used as a {@link Codec}, each closure stands alone.
+ *
+ * Only closures, primitives, strings, enums, classes, arrays, lists and maps can be written.
+ * Lists and maps come back as an ArrayList and a LinkedHashMap. Shared values are written once
+ * for each place they appear, and values which contain themselves can't be written at all.
+ *
+ * Decoded closures are created without running their own constructors, and a reference to an
+ * enclosing instance comes back as null. The decoding JVM must have the same closure classes,
+ * which is checked for each one. Since a decoder will create any closure class it can find,
+ * bytes from anyone who isn't trusted should be read with a {@link ClassResolver} which only
+ * knows the expected classes, such as one from {@link #allowing(Class[])}. Lengths are checked
+ * against the bytes actually there before anything is allocated for them.
+ */
+public final class ClosureCodec implements Codec<ClosureInterfaceBase<?>> {
+	private static final int MAX_DEPTH = 256;
+
+	private static final byte NULL = 0;
+	private static final byte TRUE = 1;
+	private static final byte FALSE = 2;
+	private static final byte BYTE = 3;
+	private static final byte SHORT = 4;
+	private static final byte CHAR = 5;
+	private static final byte INT = 6;
+	private static final byte LONG = 7;
+	private static final byte FLOAT = 8;
+	private static final byte DOUBLE = 9;
+	private static final byte STRING = 10;
+	private static final byte CLOSURE = 11;
+	private static final byte ENUM = 12;
+	private static final byte CLASS = 13;
+	private static final byte BYTES = 14;
+	private static final byte ARRAY = 15;
+	private static final byte LIST = 16;
+	private static final byte MAP = 17;
+
+	private static final Map<String, Class<?>> PRIMITIVES = new HashMap<String, Class<?>>();
+
+	static {
+		for (Class<?> type : new Class<?>[] {
+			boolean.class, byte.class, short.class, char.class, int.class, long.class, float.class, double.class, void.class
+		}) {
+			PRIMITIVES.put(type.getName(), type);
+		}
+	}
+
+	// the last closure sized by each thread, so that writing it next doesn't mean encoding it
+	// again. The closure, and a buffer which has grown large, are let go on the next write.
+	private final ThreadLocal<Sized> sized = new ThreadLocal<Sized>() {
+		protected Sized initialValue() {
+			return new Sized();
+		}
+	};
+
+	private final ClassResolver resolver;
+
+
+	/**
+	 * Decodes classes with the context class loader of the calling thread.
+	 * Only suitable for bytes from a trusted source.
+	 */
+	public ClosureCodec() {
+		this(loading(null));
+	}
+
+	/**
+	 * Decodes classes with the given class loader.
+	 * Only suitable for bytes from a trusted source.
+	 *
+	 * @param loader  where to find classes, or null for the context class loader
+	 */
+	public ClosureCodec(ClassLoader loader) {
+		this(loading(loader));
+	}
+
+	/**
+	 * @param resolver  finds the classes named by the bytes being decoded
+	 */
+	public ClosureCodec(ClassResolver resolver) {
+		if (resolver == null)
+			throw new NullPointerException("resolver");
+
+		this.resolver = resolver;
+	}
+
+	/**
+	 * Finds the classes named in encoded closures. A resolver decides which classes a decoder
+	 * is willing to create instances of, so it should refuse anything unexpected.
+	 */
+	public interface ClassResolver {
+
+		/**
+		 * @throws ClassNotFoundException  if the class is unknown, or not allowed
+		 */
+		Class<?> resolve(String name) throws ClassNotFoundException;
+	}
+
+	/**
+	 * A resolver which loads any class it is asked for.
+	 *
+	 * @param loader  where to find classes, or null for the context class loader
+	 */
+	public static ClassResolver loading(final ClassLoader loader) {
+		return new ClassResolver() {
+			public Class<?> resolve(String name) throws ClassNotFoundException {
+				ClassLoader from = loader;
+
+				if (from == null)
+					from = Thread.currentThread().getContextClassLoader();
+
+				if (from == null)
+					from = ClosureCodec.class.getClassLoader();
+
+				return Class.forName(name, false, from);
+			}
+		};
+	}
+
+	/**
+	 * A resolver which only knows the given classes. Closures, enums, array component types
+	 * and class values must all be listed. Primitive types are always known.
+	 */
+	public static ClassResolver allowing(Class<?>...classes) {
+		final Map<String, Class<?>> allowed = new HashMap<String, Class<?>>();
+
+		for (Class<?> type : Arrays.asList(classes)) {
+			allowed.put(type.getName(), type);
+		}
+
+		return new ClassResolver() {
+			public Class<?> resolve(String name) throws ClassNotFoundException {
+				Class<?> type = allowed.get(name);
+
+				if (type == null)
+					throw new ClassNotFoundException(name + " is not allowed");
+
+				return type;
+			}
+		};
+	}
+
+	public int size(ClosureInterfaceBase<?> closure) {
+		Sized last = sized.get();
+		last.closure = null;
+
+		for (;;) {
+			last.bytes.clear();
+
+			try {
+				new Writer().write(closure, last.bytes);
+				last.closure = closure;
+				return last.bytes.position();
+			} catch (BufferOverflowException ex) {
+				last.bytes = ByteBuffer.allocate(last.bytes.capacity() << 1);
+			}
+		}
+	}
+
+	public void write(ClosureInterfaceBase<?> closure, ByteBuffer out) {
+		Sized last = sized.get();
+
+		try {
+			if (last.closure == closure) {
+				ByteBuffer bytes = last.bytes.duplicate();
+				bytes.flip();
+				out.put(bytes);
+			} else {
+				new Writer().write(closure, out);
+			}
+		} finally {
+			last.release();
+		}
+	}
+
+	public ClosureInterfaceBase<?> read(ByteBuffer in) {
+		return new Reader(resolver).read(in);
+	}
+
+	private static final class Sized {
+		static final int INITIAL = 256;
+		static final int MAX_RETAINED = 64 * 1024;
+
+		ByteBuffer bytes = ByteBuffer.allocate(INITIAL);
+		Object closure;
+
+		// lets go of the closure, and of the buffer if a large closure made it grow
+		void release() {
+			closure = null;
+
+			if (bytes.capacity() > MAX_RETAINED)
+				bytes = ByteBuffer.allocate(INITIAL);
+		}
+	}
+
+	/**
+	 * Writes closures one after another, naming each class only once.
+	 * Not safe for use by more than one thread at a time.
+	 */
+	public static final class Writer {
+		private final Map<Class<?>, Integer> classes = new IdentityHashMap<Class<?>, Integer>();
+		private final List<Class<?>> order = new ArrayList<Class<?>>();
+
+		/**
+		 * Writes a closure at the position of the buffer. If it doesn't fit, nothing is
+		 * written and the buffer's position is left where it was, so that the write can be
+		 * tried again with more room.
+		 *
+		 * @throws BufferOverflowException  if the buffer is too small
+		 * @throws ClosureException         if one of the values can't be written
+		 */
+		public void write(ClosureInterfaceBase<?> closure, ByteBuffer out) {
+			if (!(closure instanceof ClosureBase))
+				throw new ClosureException("Only closures extending the provided base classes can be encoded.");
+
+			int position = out.position();
+			int known = order.size();
+			boolean written = false;
+
+			try {
+				writeValue(closure, out, 0);
+				written = true;
+			} finally {
+				if (!written) {
+					out.position(position);
+
+					while (order.size() > known) {
+						classes.remove(order.remove(order.size() - 1));
+					}
+				}
+			}
+		}
+
+		private void writeValue(Object value, ByteBuffer out, int depth) {
+			if (depth > MAX_DEPTH)
+				throw new ClosureException("Value is nested too deeply, or contains itself.");
+
+			if (value == null) {
+				out.put(NULL);
+			} else if (value instanceof Boolean) {
+				out.put((Boolean) value ? TRUE : FALSE);
+			} else if (value instanceof Integer) {
+				out.put(INT);
+				putVarLong(out, (Integer) value);
+			} else if (value instanceof Long) {
+				out.put(LONG);
+				putVarLong(out, (Long) value);
+			} else if (value instanceof String) {
+				out.put(STRING);
+				putString(out, (String) value);
+			} else if (value instanceof Double) {
+				out.put(DOUBLE).putDouble((Double) value);
+			} else if (value instanceof Float) {
+				out.put(FLOAT).putFloat((Float) value);
+			} else if (value instanceof Byte) {
+				out.put(BYTE).put((Byte) value);
+			} else if (value instanceof Short) {
+				out.put(SHORT).putShort((Short) value);
+			} else if (value instanceof Character) {
+				out.put(CHAR).putChar((Character) value);
+			} else if (value instanceof ClosureBase) {
+				out.put(CLOSURE);
+				writeClosure((ClosureBase) value, out, depth);
+			} else if (value instanceof Enum) {
+				out.put(ENUM);
+				writeClass(((Enum) value).getDeclaringClass(), out);
+				putVarInt(out, ((Enum) value).ordinal());
+			} else if (value instanceof Class) {
+				out.put(CLASS);
+				writeClass((Class<?>) value, out);
+			} else if (value instanceof byte[]) {
+				byte bytes[] = (byte[]) value;
+				out.put(BYTES);
+				putVarInt(out, bytes.length);
+				out.put(bytes);
+			} else if (value.getClass().isArray()) {
+				Class<?> component = value.getClass().getComponentType();
+				int length = Array.getLength(value);
+
+				out.put(ARRAY);
+				writeClass(component, out);
+				putVarInt(out, length);
+
+				for (int i=0; i < length; ++i) {
+					if (component.isPrimitive())
+						writePrimitive(component, Array.get(value, i), out);
+					else
+						writeValue(Array.get(value, i), out, depth + 1);
+				}
+			} else if (value instanceof List) {
+				List<?> list = (List<?>) value;
+				out.put(LIST);
+				putVarInt(out, list.size());
+
+				for (Object element : list) {
+					writeValue(element, out, depth + 1);
+				}
+			} else if (value instanceof Map) {
+				Map<?, ?> map = (Map<?, ?>) value;
+				out.put(MAP);
+				putVarInt(out, map.size());
+
+				for (Map.Entry<?, ?> entry : map.entrySet()) {
+					writeValue(entry.getKey(), out, depth + 1);
+					writeValue(entry.getValue(), out, depth + 1);
+				}
+			} else {
+				throw new ClosureException("Cannot encode a value of type " + value.getClass().getName());
+			}
+		}
+
+		private void writeClosure(ClosureBase closure, ByteBuffer out, int depth) {
+			writeClass(closure.getClass(), out);
+
+			List<Object> args = closure.getArgumentList();
+			putVarInt(out, args.size());
+
+			for (Object arg : args) {
+				writeValue(arg, out, depth + 1);
+			}
+
+			for (Field field : ClosureLayout.of(closure.getClass()).fields) {
+				Object value = get(field, closure);
+
+				if (field.getType().isPrimitive())
+					writePrimitive(field.getType(), value, out);
+				else
+					writeValue(value, out, depth + 1);
+			}
+		}
+
+		// a class is named the first time, and referred to by its number after that
+		private void writeClass(Class<?> type, ByteBuffer out) {
+			Integer known = classes.get(type);
+
+			if (known != null) {
+				putVarInt(out, known + 1);
+				return;
+			}
+
+			putVarInt(out, 0);
+			putString(out, type.getName());
+
+			if (ClosureBase.class.isAssignableFrom(type))
+				out.putInt(ClosureLayout.of(type).fingerprint);
+
+			classes.put(type, order.size());
+			order.add(type);
+		}
+	}
+
+	/**
+	 * Reads closures written by a {@link Writer}, one after another.
+	 * Not safe for use by more than one thread at a time.
+	 */
+	public static final class Reader {
+		private final List<Class<?>> classes = new ArrayList<Class<?>>();
+		private final ClassResolver resolver;
+
+		/**
+		 * Finds classes with the context class loader of the calling thread.
+		 * Only suitable for bytes from a trusted source.
+		 */
+		public Reader() {
+			this(loading(null));
+		}
+
+		/**
+		 * @param resolver  finds the classes named by the bytes being read
+		 */
+		public Reader(ClassResolver resolver) {
+			if (resolver == null)
+				throw new NullPointerException("resolver");
+
+			this.resolver = resolver;
+		}
+
+		/**
+		 * Reads a closure from the position of the buffer. If the buffer ends before the
+		 * closure does, its position is left where it was, so that the read can be tried
+		 * again once more has arrived.
+		 *
+		 * @throws java.nio.BufferUnderflowException  if the buffer doesn't hold all of the closure
+		 * @throws ClosureException                   if the closure can't be decoded
+		 */
+		@SuppressWarnings("unchecked")
+		public <T extends ClosureInterfaceBase<?>> T read(ByteBuffer in) {
+			int position = in.position();
+			int known = classes.size();
+			boolean read = false;
+
+			try {
+				Object value = readValue(in, 0);
+
+				if (!(value instanceof ClosureInterfaceBase))
+					throw new ClosureException("The buffer does not hold a closure.");
+
+				read = true;
+				return (T) value;
+			} finally {
+				if (!read) {
+					in.position(position);
+
+					while (classes.size() > known) {
+						classes.remove(classes.size() - 1);
+					}
+				}
+			}
+		}
+
+		private Object readValue(ByteBuffer in, int depth) {
+			if (depth > MAX_DEPTH)
+				throw new ClosureException("Value is nested too deeply.");
+
+			byte tag = in.get();
+
+			switch (tag) {
+				case NULL:    return null;
+				case TRUE:    return Boolean.TRUE;
+				case FALSE:   return Boolean.FALSE;
+				case BYTE:    return in.get();
+				case SHORT:   return in.getShort();
+				case CHAR:    return in.getChar();
+				case INT:     return (int) getVarLong(in);
+				case LONG:    return getVarLong(in);
+				case FLOAT:   return in.getFloat();
+				case DOUBLE:  return in.getDouble();
+				case STRING:  return getString(in);
+				case CLOSURE: return readClosure(in, depth);
+				case CLASS:   return readClass(in);
+
+				case ENUM: {
+					Class<?> type = readClass(in);
+					Object constants[] = type.getEnumConstants();
+					int ordinal = getVarInt(in);
+
+					if (constants == null || ordinal >= constants.length)
+						throw new ClosureException("Unknown constant " + ordinal + " of " + type.getName());
+
+					return constants[ordinal];
+				}
+
+				case BYTES: {
+					byte bytes[] = new byte[getLength(in, 1)];
+					in.get(bytes);
+					return bytes;
+				}
+
+				case ARRAY: {
+					Class<?> component = readClass(in);
+					int length = getLength(in, component.isPrimitive() ? primitiveSize(component) : 1);
+					Object array = Array.newInstance(component, length);
+
+					for (int i=0; i < length; ++i) {
+						Array.set(array, i, component.isPrimitive() ? readPrimitive(component, in) : readValue(in, depth + 1));
+					}
+
+					return array;
+				}
+
+				case LIST: {
+					int size = getLength(in, 1);
+					List<Object> list = new ArrayList<Object>(size);
+
+					for (int i=0; i < size; ++i) {
+						list.add(readValue(in, depth + 1));
+					}
+
+					return list;
+				}
+
+				case MAP: {
+					int size = getLength(in, 2);
+					Map<Object, Object> map = new LinkedHashMap<Object, Object>();
+
+					for (int i=0; i < size; ++i) {
+						Object key = readValue(in, depth + 1);
+						map.put(key, readValue(in, depth + 1));
+					}
+
+					return map;
+				}
+
+				default:
+					throw new ClosureException("Unknown tag " + tag);
+			}
+		}
+
+		private ClosureBase readClosure(ByteBuffer in, int depth) {
+			Class<?> type = readClass(in);
+
+			if (!ClosureBase.class.isAssignableFrom(type))
+				throw new ClosureException(type.getName() + " is not a closure.");
+
+			ClosureLayout layout = ClosureLayout.of(type);
+			Object args[] = new Object[getLength(in, 1)];
+
+			for (int i=0; i < args.length; ++i) {
+				args[i] = readValue(in, depth + 1);
+			}
+
+			ClosureBase closure = layout.newInstance();
+			closure.restoreArguments(args);
+
+			for (Field field : layout.fields) {
+				Object value = field.getType().isPrimitive() ? readPrimitive(field.getType(), in) : readValue(in, depth + 1);
+				set(field, closure, value);
+			}
+
+			return closure;
+		}
+
+		private Class<?> readClass(ByteBuffer in) {
+			int known = getVarInt(in);
+
+			if (known > 0) {
+				if (known > classes.size())
+					throw new ClosureException("Unknown class " + known);
+
+				return classes.get(known - 1);
+			}
+
+			String name = getString(in);
+			Class<?> type = PRIMITIVES.get(name);
+
+			if (type == null) {
+				try {
+					type = resolver.resolve(name);
+				} catch (ClassNotFoundException ex) {
+					throw new ClosureException("Unknown class " + name, ex);
+				}
+			}
+
+			if (ClosureBase.class.isAssignableFrom(type) && in.getInt() != ClosureLayout.of(type).fingerprint)
+				throw new ClosureException("The fields of " + name + " are not the same as when it was encoded.");
+
+			classes.add(type);
+			return type;
+		}
+	}
+
+	private static void writePrimitive(Class<?> type, Object value, ByteBuffer out) {
+		if (type == int.class)
+			putVarLong(out, (Integer) value);
+		else if (type == long.class)
+			putVarLong(out, (Long) value);
+		else if (type == boolean.class)
+			out.put((Boolean) value ? TRUE : FALSE);
+		else if (type == double.class)
+			out.putDouble((Double) value);
+		else if (type == float.class)
+			out.putFloat((Float) value);
+		else if (type == byte.class)
+			out.put((Byte) value);
+		else if (type == short.class)
+			out.putShort((Short) value);
+		else
+			out.putChar((Character) value);
+	}
+
+	private static Object readPrimitive(Class<?> type, ByteBuffer in) {
+		if (type == int.class)
+			return (int) getVarLong(in);
+		else if (type == long.class)
+			return getVarLong(in);
+		else if (type == boolean.class)
+			return in.get() == TRUE;
+		else if (type == double.class)
+			return in.getDouble();
+		else if (type == float.class)
+			return in.getFloat();
+		else if (type == byte.class)
+			return in.get();
+		else if (type == short.class)
+			return in.getShort();
+		else
+			return in.getChar();
+	}
+
+	private static Object get(Field field, Object target) {
+		try {
+			return field.get(target);
+		} catch (IllegalAccessException ex) {
+			throw new ClosureException("Could not read field " + field.getName(), ex);
+		}
+	}
+
+	private static void set(Field field, Object target, Object value) {
+		try {
+			field.set(target, value);
+		} catch (IllegalAccessException ex) {
+			throw new ClosureException("Could not set field " + field.getName(), ex);
+		} catch (IllegalArgumentException ex) {
+			throw new ClosureException("Invalid value for field " + field.getName(), ex);
+		}
+	}
+
+	// zig-zag encoded, so that small negative numbers are short too
+	private static void putVarLong(ByteBuffer out, long value) {
+		long bits = (value << 1) ^ (value >> 63);
+
+		while ((bits & ~0x7FL) != 0) {
+			out.put((byte) (bits & 0x7F | 0x80));
+			bits >>>= 7;
+		}
+
+		out.put((byte) bits);
+	}
+
+	private static long getVarLong(ByteBuffer in) {
+		long bits = 0;
+
+		for (int shift=0; ; shift += 7) {
+			if (shift > 63)
+				throw new ClosureException("Malformed number.");
+
+			byte b = in.get();
+			bits |= (long) (b & 0x7F) << shift;
+
+			if (b >= 0)
+				break;
+		}
+
+		return (bits >>> 1) ^ -(bits & 1);
+	}
+
+	private static void putVarInt(ByteBuffer out, int value) {
+		putVarLong(out, value);
+	}
+
+	private static int getVarInt(ByteBuffer in) {
+		long value = getVarLong(in);
+
+		if (value < 0 || value > Integer.MAX_VALUE)
+			throw new ClosureException("Malformed length.");
+
+		return (int) value;
+	}
+
+	/*
+	 * Reads the number of items which follow, making sure that there are enough bytes left
+	 * for them before anything is allocated.
+	 */
+	private static int getLength(ByteBuffer in, int minimumBytes) {
+		int length = getVarInt(in);
+
+		if ((long) length * minimumBytes > in.remaining())
+			throw new BufferUnderflowException();
+
+		return length;
+	}
+
+	// the fewest bytes a primitive can be written in
+	private static int primitiveSize(Class<?> type) {
+		if (type == double.class)
+			return 8;
+
+		if (type == float.class)
+			return 4;
+
+		if (type == short.class || type == char.class)
+			return 2;
+
+		return 1;
+	}
+
+	private static void putString(ByteBuffer out, String value) {
+		Codec<String> strings = Codecs.strings();
+		putVarInt(out, strings.size(value));
+		strings.write(value, out);
+	}
+
+	private static String getString(ByteBuffer in) {
+		int length = getLength(in, 1);
+		ByteBuffer bytes = in.slice();
+		bytes.limit(length);
+		in.position(in.position() + length);
+
+		return Codecs.strings().read(bytes);
+	}
+}
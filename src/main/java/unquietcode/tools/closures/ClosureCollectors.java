@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.Closure0View;
+import unquietcode.tools.closures.view.Closure1View;
+import unquietcode.tools.closures.view.Closure2View;
+
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Collectors for streams which are driven by closures. In a parallel stream, each thread
+ * collects into its own container, and the containers are combined pairwise at the end, so
+ * the closures do not need to be thread safe, but the combiners must be associative.
+ */
+public final class ClosureCollectors {
+	private ClosureCollectors() { }
+
+	/**
+	 * Reduces the values to one, starting from the identity.
+	 *
+	 * @param identity  the result for no values, which must not change a value it is combined with
+	 * @param combiner  combines two values
+	 */
+	public static <T> Collector<T, ?, T> reducing(T identity, Closure2<T, T, T> combiner) {
+		return reducing(identity, combiner.getView());
+	}
+
+	public static <T> Collector<T, ?, T> reducing(final T identity, final Closure2View<T, T, T> combiner) {
+		if (combiner == null)
+			throw new NullPointerException("combiner");
+
+		return Collector.of(
+			new Supplier<Object[]>() {
+				public Object[] get() {
+					return new Object[] {identity};
+				}
+			},
+			new BiConsumer<Object[], T>() {
+				@SuppressWarnings("unchecked")
+				public void accept(Object box[], T value) {
+					box[0] = combiner.run((T) box[0], value);
+				}
+			},
+			new BinaryOperator<Object[]>() {
+				@SuppressWarnings("unchecked")
+				public Object[] apply(Object left[], Object right[]) {
+					left[0] = combiner.run((T) left[0], (T) right[0]);
+					return left;
+				}
+			},
+			new Function<Object[], T>() {
+				@SuppressWarnings("unchecked")
+				public T apply(Object box[]) {
+					return (T) box[0];
+				}
+			}
+		);
+	}
+
+	/**
+	 * Collects the values into a mutable container.
+	 *
+	 * @param supplier     creates an empty container
+	 * @param accumulator  adds a value to a container, and returns nothing of interest
+	 * @param combiner     merges the second container into the first, and returns the result
+	 */
+	public static <T, A> Collector<T, A, A> of(Closure0<A> supplier, Closure2<?, A, T> accumulator, Closure2<A, A, A> combiner) {
+		return of(supplier.getView(), accumulator.getView(), combiner.getView());
+	}
+
+	public static <T, A> Collector<T, A, A> of(Closure0View<A> supplier, Closure2View<?, A, T> accumulator, Closure2View<A, A, A> combiner) {
+		return Collector.of(supplier(supplier), accumulator(accumulator), combiner(combiner), Collector.Characteristics.IDENTITY_FINISH);
+	}
+
+	/**
+	 * Collects the values into a mutable container, and then turns that into the result.
+	 *
+	 * @param supplier     creates an empty container
+	 * @param accumulator  adds a value to a container, and returns nothing of interest
+	 * @param combiner     merges the second container into the first, and returns the result
+	 * @param finisher     turns the final container into the result
+	 */
+	public static <T, A, R> Collector<T, A, R> of(
+		Closure0<A> supplier, Closure2<?, A, T> accumulator, Closure2<A, A, A> combiner, Closure1<R, A> finisher
+	) {
+		return of(supplier.getView(), accumulator.getView(), combiner.getView(), finisher.getView());
+	}
+
+	public static <T, A, R> Collector<T, A, R> of(
+		Closure0View<A> supplier, Closure2View<?, A, T> accumulator, Closure2View<A, A, A> combiner, final Closure1View<R, A> finisher
+	) {
+		if (finisher == null)
+			throw new NullPointerException("finisher");
+
+		return Collector.of(supplier(supplier), accumulator(accumulator), combiner(combiner), new Function<A, R>() {
+			public R apply(A container) {
+				return finisher.run(container);
+			}
+		});
+	}
+
+	private static <A> Supplier<A> supplier(final Closure0View<A> supplier) {
+		if (supplier == null)
+			throw new NullPointerException("supplier");
+
+		return new Supplier<A>() {
+			public A get() {
+				return supplier.run();
+			}
+		};
+	}
+
+	private static <T, A> BiConsumer<A, T> accumulator(final Closure2View<?, A, T> accumulator) {
+		if (accumulator == null)
+			throw new NullPointerException("accumulator");
+
+		return new BiConsumer<A, T>() {
+			public void accept(A container, T value) {
+				accumulator.run(container, value);
+			}
+		};
+	}
+
+	private static <A> BinaryOperator<A> combiner(final Closure2View<A, A, A> combiner) {
+		if (combiner == null)
+			throw new NullPointerException("combiner");
+
+		return new BinaryOperator<A>() {
+			public A apply(A left, A right) {
+				return combiner.run(left, right);
+			}
+		};
+	}
+}
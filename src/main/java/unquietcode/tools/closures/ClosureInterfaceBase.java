@@ -27,5 +27,19 @@ import unquietcode.tools.closures.view.ClosureView;
  */
 public interface ClosureInterfaceBase<Z> {
 	void curry(int var, Object replacement);
+
+	/*
+	 * Curries fields 1 through n, using the replacements in order. Implementations
+	 * may do this in a single pass.
+	 */
+	default void curryAll(Object...replacements) {
+		if (replacements == null)
+			replacements = new Object[] {null};
+
+		for (int i=0; i < replacements.length; ++i) {
+			curry(i+1, replacements[i]);
+		}
+	}
+
 	ClosureView<Z> toClosure();
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * The fields of a closure class which are written by a {@link ClosureCodec}, in the order they
+ * are written, and a way of creating instances of the class without running its constructors.
+ * The layout is worked out once per class.
+ *
+ * Every instance field of the closure's own classes is included, except for transient ones and
+ * the synthetic reference to an enclosing instance, which can't be sent anywhere. Fields of the
+ * library's base classes (those extending ClosureBase directly) are only included when they are
+ * plain; final ones are derived from the class, and volatile ones are caches.
+ */
+final class ClosureLayout {
+	private static final ClassValue<ClosureLayout> LAYOUTS = new ClassValue<ClosureLayout>() {
+		protected ClosureLayout computeValue(Class<?> type) {
+			return new ClosureLayout(type);
+		}
+	};
+
+	final Field fields[];
+	final int fingerprint;
+	private final Class<?> type;
+	private volatile Constructor<?> constructor;
+
+
+	private ClosureLayout(Class<?> type) {
+		List<Field> fields = new ArrayList<Field>();
+		final List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+
+		for (Class<?> c = type; c != ClosureBase.class && c != null; c = c.getSuperclass()) {
+			hierarchy.add(0, c);
+			boolean library = c.getSuperclass() == ClosureBase.class;
+
+			for (Field field : c.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+
+				if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers))
+					continue;
+
+				if (field.isSynthetic() && field.getName().matches("^this\\$[0-9]+$"))
+					continue;
+
+				if (library && (Modifier.isFinal(modifiers) || Modifier.isVolatile(modifiers)))
+					continue;
+
+				field.setAccessible(true);
+				fields.add(field);
+			}
+		}
+
+		// the order of declared fields isn't fixed, so put them in one which is
+		Collections.sort(fields, new Comparator<Field>() {
+			public int compare(Field a, Field b) {
+				int depth = hierarchy.indexOf(a.getDeclaringClass()) - hierarchy.indexOf(b.getDeclaringClass());
+				return depth != 0 ? depth : a.getName().compareTo(b.getName());
+			}
+		});
+
+		int fingerprint = 1;
+
+		for (Field field : fields) {
+			fingerprint = fingerprint * 31 + field.getName().hashCode();
+			fingerprint = fingerprint * 31 + field.getType().getName().hashCode();
+		}
+
+		this.fields = fields.toArray(new Field[fields.size()]);
+		this.fingerprint = fingerprint;
+		this.type = type;
+	}
+
+	static ClosureLayout of(Class<?> type) {
+		return LAYOUTS.get(type);
+	}
+
+	/*
+	 * Creates an instance of the class, running only the constructors of the library's base
+	 * classes, the same way serialization handles a superclass which isn't serializable.
+	 */
+	ClosureBase newInstance() {
+		try {
+			return (ClosureBase) constructor().newInstance(new Object[] { new Object[0] });
+		} catch (ClosureException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new ClosureException("Could not create an instance of " + type.getName(), ex);
+		}
+	}
+
+	private Constructor<?> constructor() throws Exception {
+		Constructor<?> constructor = this.constructor;
+
+		if (constructor != null)
+			return constructor;
+
+		Class<?> base = type;
+
+		while (base.getSuperclass() != ClosureBase.class) {
+			base = base.getSuperclass();
+		}
+
+		if (Modifier.isAbstract(type.getModifiers()))
+			throw new ClosureException("Cannot create an instance of abstract class " + type.getName());
+
+		// the factory is internal to the JDK, so it is looked up rather than linked against
+		Class<?> factoryClass;
+
+		try {
+			factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+		} catch (ClassNotFoundException ex) {
+			throw new ClosureException("Closures can't be decoded on this JVM.", ex);
+		}
+
+		Object factory = factoryClass.getMethod("getReflectionFactory").invoke(null);
+		Method create = factoryClass.getMethod("newConstructorForSerialization", Class.class, Constructor.class);
+
+		constructor = (Constructor<?>) create.invoke(factory, type, base.getDeclaredConstructor(Object[].class));
+		constructor.setAccessible(true);
+
+		return this.constructor = constructor;
+	}
+}
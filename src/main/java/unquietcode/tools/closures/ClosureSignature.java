@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import java.util.Arrays;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * An immutable description of a closure's return and argument types. Signatures are resolved
+ * once per closure class and then shared, so asking for one never allocates.
+ *
+ * If the type parameters of a closure could not be determined (for example, it was declared
+ * using a raw type) the signature will have no argument types and an Object return type.
+ */
+public final class ClosureSignature {
+	private static final Class NO_CLASSES[] = {};
+	private static final Class OBJECT_TYPES[][] = new Class[9][];
+
+	static {
+		for (int i=0; i < OBJECT_TYPES.length; ++i) {
+			OBJECT_TYPES[i] = new Class[i];
+			Arrays.fill(OBJECT_TYPES[i], Object.class);
+		}
+	}
+
+	private final Class returnType;
+	private final Class argumentTypes[];
+
+	ClosureSignature(Class returnType, Class...argumentTypes) {
+		this.returnType = returnType == null ? Object.class : returnType;
+		this.argumentTypes = argumentTypes == null || argumentTypes.length == 0
+		                   ? NO_CLASSES
+		                   : argumentTypes.clone();
+	}
+
+	/*
+	 * Gets a shared array of Object argument types, for views of untyped closures. The same
+	 * array is handed to every caller, so it must not be modified.
+	 */
+	static Class[] objectTypes(int arguments) {
+		return OBJECT_TYPES[arguments];
+	}
+
+	public Class getReturnType() {
+		return returnType;
+	}
+
+	/**
+	 * @return the number of argument types known
+	 */
+	public int size() {
+		return argumentTypes.length;
+	}
+
+	/**
+	 * Gets an argument type by position.
+	 * Unlike argument access inside of a closure, this index is 0-based, like the array form.
+	 *
+	 * @param i  position of the argument
+	 * @return   the type of the argument
+	 */
+	public Class getArgumentType(int i) {
+		if (i < 0 || i >= argumentTypes.length) {
+			throw new ClosureException("invalid argument index: " + i);
+		}
+
+		return argumentTypes[i];
+	}
+
+	/**
+	 * @return a copy of the argument types, which is safe to modify
+	 */
+	public Class[] getArgumentTypes() {
+		return argumentTypes.length == 0 ? NO_CLASSES : argumentTypes.clone();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other)
+			return true;
+
+		if (!(other instanceof ClosureSignature))
+			return false;
+
+		ClosureSignature that = (ClosureSignature) other;
+		return returnType == that.returnType && Arrays.equals(argumentTypes, that.argumentTypes);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * returnType.hashCode() + Arrays.hashCode(argumentTypes);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("(");
+
+		for (int i=0; i < argumentTypes.length; ++i) {
+			if (i > 0)
+				sb.append(", ");
+
+			sb.append(argumentTypes[i].getSimpleName());
+		}
+
+		return sb.append(") -> ").append(returnType.getSimpleName()).toString();
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.Closure0View;
+import unquietcode.tools.closures.view.Closure1View;
+import unquietcode.tools.closures.view.ClosureView;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A chain which has been fused into a single MethodHandle. Each stage's handle filters the
+ * return value of the one before it, so a run is one handle invocation.
+ *
+ * Stages which are known to take exactly zero or one argument (the views of AbstractClosure0
+ * and AbstractClosure1, for instance) are called through their fixed arity run method, and
+ * a single value is handed to them directly. Other stages receive an argument array, built
+ * the same way Chain.run would build it.
+ */
+final class CompiledChain<Z> implements ClosureView<Z> {
+	private static final MethodHandle RUN;          // (ClosureView, Object[])Object
+	private static final MethodHandle RUN_0;        // (Closure0View)Object
+	private static final MethodHandle RUN_1;        // (Closure1View, Object)Object
+	private static final MethodHandle TO_ARGS;      // (Object)Object[]
+	private static final MethodHandle FIRST;        // (Object)Object
+	private static final MethodHandle FIRST_ARG;    // (Object[])Object
+
+	static {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		try {
+			RUN = lookup.findVirtual(ClosureView.class, "run", MethodType.methodType(Object.class, Object[].class));
+			RUN_0 = lookup.findVirtual(Closure0View.class, "run", MethodType.methodType(Object.class));
+			RUN_1 = lookup.findVirtual(Closure1View.class, "run", MethodType.methodType(Object.class, Object.class));
+			TO_ARGS = lookup.findStatic(Chain.class, "toArgs", MethodType.methodType(Object[].class, Object.class));
+			FIRST = lookup.findStatic(CompiledChain.class, "first", MethodType.methodType(Object.class, Object.class));
+			FIRST_ARG = lookup.findStatic(CompiledChain.class, "firstArg", MethodType.methodType(Object.class, Object[].class));
+		} catch (Exception ex) {
+			throw new ExceptionInInitializerError(ex);
+		}
+	}
+
+	private final MethodHandle handle;      // (Object[])Object
+	private final int expectedArgs;
+	private final boolean validate;
+
+
+	private CompiledChain(MethodHandle handle, int expectedArgs, boolean validate) {
+		this.handle = handle;
+		this.expectedArgs = expectedArgs;
+		this.validate = validate;
+	}
+
+	static <Z> CompiledChain<Z> compile(ClosureView<Z> stages[], boolean validate) {
+		if (stages.length == 0) {
+			MethodHandle nothing = MethodHandles.constant(Object.class, null);
+			return new CompiledChain<Z>(MethodHandles.dropArguments(nothing, 0, Object[].class), -1, validate);
+		}
+
+		MethodHandle handle = null;
+
+		for (int i=0; i < stages.length; ++i) {
+			ClosureView<Z> stage = stages[i];
+
+			if (stage == null) {
+				throw new ClosureChainException("Closure is null and will not execute! Index: " + i);
+			}
+
+			if (handle == null) {
+				handle = entry(stage);
+			} else {
+				handle = MethodHandles.filterReturnValue(handle, link(stage));
+			}
+		}
+
+		return new CompiledChain<Z>(handle, stages[0].getExpectedArgs(), validate);
+	}
+
+	// the first stage, taking the arguments array as passed in
+	private static MethodHandle entry(ClosureView stage) {
+		switch (directArity(stage)) {
+			case 0:  return MethodHandles.dropArguments(RUN_0.bindTo(stage), 0, Object[].class);
+			case 1:  return MethodHandles.filterArguments(RUN_1.bindTo(stage), 0, FIRST_ARG);
+			default: return RUN.bindTo(stage);
+		}
+	}
+
+	// every later stage, taking the result of the stage before it
+	private static MethodHandle link(ClosureView stage) {
+		switch (directArity(stage)) {
+			case 0:  return MethodHandles.dropArguments(RUN_0.bindTo(stage), 0, Object.class);
+			case 1:  return MethodHandles.filterArguments(RUN_1.bindTo(stage), 0, FIRST);
+			default: return MethodHandles.filterArguments(RUN.bindTo(stage), 0, TO_ARGS);
+		}
+	}
+
+	/*
+	 * Returns the arity of a stage's fixed arity run method, if it is safe to call that
+	 * in place of the varargs version, or -1 if it is not.
+	 */
+	private static int directArity(ClosureView stage) {
+		int expected = stage.getExpectedArgs();
+
+		if (expected == 0 && stage instanceof Closure0View)
+			return 0;
+
+		if (expected == 1 && stage instanceof Closure1View)
+			return 1;
+
+		return -1;
+	}
+
+	// what a single argument stage would have received as its first argument
+	private static Object first(Object result) {
+		if (result != null && result.getClass().isArray()) {
+			return ((Object[]) result)[0];
+		} else {
+			return result;
+		}
+	}
+
+	private static Object firstArg(Object args[]) {
+		return args[0];
+	}
+
+	@SuppressWarnings("unchecked")
+	public Z run(Object...args) {
+		try {
+			// the stages after the first were checked against each other when compiled
+			if (validate && expectedArgs >= 0)
+				Chain.checkArgs(expectedArgs, args);
+
+			return (Z) (Object) handle.invokeExact(args);
+		} catch (ClosureChainException ex) {
+			throw ex;
+		} catch (RuntimeException ex) {
+			if (validate)
+				throw new ClosureChainException("Error while executing closure.", ex);
+			else
+				throw ex;
+		} catch (Error ex) {
+			throw ex;
+		} catch (Throwable ex) {
+			throw new ClosureChainException("Error while executing closure.", ex);
+		}
+	}
+
+	public int getExpectedArgs() {
+		return expectedArgs;
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * The table of curryable fields for a closure class. Slots line up with the class's declared
+ * fields, and each one holds a setter handle which has been adapted to (Object, Object)void.
+ * The reference to the enclosing instance, a synthetic field typed as the enclosing class, has
+ * an empty slot. Other synthetic fields, such as the copies of captured local variables, can
+ * be curried like any other. The table is built once per class.
+ *
+ * Slot numbers follow the order of Class.getDeclaredFields(), which the JVM does not promise.
+ * HotSpot and the other common runtimes give the order of declaration in the source, and
+ * currying by number relies on that.
+ */
+final class CurrySlots {
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodHandle FIELD_SET;
+
+	static {
+		try {
+			FIELD_SET = MethodHandles.lookup().findVirtual(Field.class, "set", SETTER_TYPE);
+		} catch (Exception ex) {
+			throw new ExceptionInInitializerError(ex);
+		}
+	}
+
+	private static final ClassValue<CurrySlots> SLOTS = new ClassValue<CurrySlots>() {
+		protected CurrySlots computeValue(Class<?> type) {
+			return new CurrySlots(type);
+		}
+	};
+
+	private final MethodHandle setters[];
+
+
+	private CurrySlots(Class<?> type) {
+		Field fields[] = type.getDeclaredFields();
+		setters = new MethodHandle[fields.length];
+
+		for (int i=0; i < fields.length; ++i) {
+			if (!isOuterReference(type, fields[i])) {
+				setters[i] = setter(fields[i]);
+			}
+		}
+	}
+
+	private static boolean isOuterReference(Class<?> type, Field field) {
+		return field.isSynthetic() && field.getType() == type.getEnclosingClass();
+	}
+
+	static CurrySlots of(Class<?> type) {
+		return SLOTS.get(type);
+	}
+
+	int size() {
+		return setters.length;
+	}
+
+	/*
+	 * Sets the field in the given (1-based) slot.
+	 */
+	void set(Object target, int var, Object replacement) {
+		if (var < 1 || var > setters.length || setters[var-1] == null) {
+			throw new ClosureException("invalid field ("+ var +")");
+		}
+
+		try {
+			setters[var-1].invokeExact(target, replacement);
+		} catch (IllegalAccessException ex) {
+			throw new ClosureException("Could not access field to change.", ex);
+		} catch (IllegalArgumentException ex) {
+			throw new ClosureException("Invalid object type for replacement.", ex);
+		} catch (ClassCastException ex) {
+			throw new ClosureException("Invalid object type for replacement.", ex);
+		} catch (NullPointerException ex) {
+			throw new ClosureException("Invalid object type for replacement.", ex);
+		} catch (RuntimeException ex) {
+			throw ex;
+		} catch (Error ex) {
+			throw ex;
+		} catch (Throwable ex) {
+			throw new ClosureException("Could not change field.", ex);
+		}
+	}
+
+	private static MethodHandle setter(Field field) {
+		//make accessible
+		if (!field.isAccessible())
+			field.setAccessible(true);
+
+		if (!Modifier.isStatic(field.getModifiers())) {
+			try {
+				return MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+			} catch (IllegalAccessException ex) {
+				// some runtimes refuse handles for final fields, so fall through
+			}
+		}
+
+		// reflective write, for static fields and anything refused above
+		return FIELD_SET.bindTo(field).asType(SETTER_TYPE);
+	}
+}
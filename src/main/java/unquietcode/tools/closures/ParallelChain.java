@@ -0,0 +1,193 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import unquietcode.tools.closures.view.Closure1View;
+import unquietcode.tools.closures.view.ClosureView;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Runs a snapshot of a chain over a batch of independent inputs, split across a fork/join pool.
+ *
+ * How finely the batch is split depends on how long the items take. Every piece of work that
+ * is run measures its own time per item, and later splits aim for pieces of about
+ * {@link #TARGET_NANOS}. Cheap items are handed out in large pieces, so the cost of forking is
+ * spread over many of them, and expensive items in small ones, so that no thread is left
+ * holding a long tail of work. Pieces are never larger than needed to give each worker
+ * several of them. A source of unknown size is split into pieces of {@link #UNKNOWN_PIECE}
+ * items until the first piece has been measured.
+ */
+final class ParallelChain<Z> {
+	private static final long TARGET_NANOS = 100000;
+	private static final int PIECES_PER_WORKER = 4;
+	private static final long UNKNOWN_PIECE = 1024;   // for sources of unknown size, until something has been measured
+
+	private final ClosureView<Z> chain[];
+	private final boolean validate;
+	private final ForkJoinPool pool;
+
+	private volatile long nanosPerItem = 0;    // 0 until something has been measured
+
+
+	ParallelChain(ClosureView<Z> chain[], boolean validate, ForkJoinPool pool) {
+		if (pool == null)
+			throw new NullPointerException("pool");
+
+		this.chain = chain;
+		this.validate = validate;
+		this.pool = pool;
+	}
+
+	@SuppressWarnings("unchecked")
+	List<Z> runAll(List<? extends Object[]> inputs) {
+		Object args[][] = inputs.toArray(new Object[inputs.size()][]);
+		Object results[] = new Object[args.length];
+
+		if (args.length > 0)
+			pool.invoke(new Range(args, results, 0, args.length, maxPiece(args.length)));
+
+		return (List<Z>) Arrays.asList(results);
+	}
+
+	void runAll(Spliterator<? extends Object[]> inputs, Closure1View<?, ? super Z> sink) {
+		long size = inputs.estimateSize();
+		long max = size == Long.MAX_VALUE ? Long.MAX_VALUE : maxPiece(size);
+
+		pool.invoke(new Split(inputs, sink, max));
+	}
+
+	private long maxPiece(long size) {
+		long pieces = (long) pool.getParallelism() * PIECES_PER_WORKER;
+		return Math.max(1, size / pieces);
+	}
+
+	// the number of items which should be run without splitting further
+	private long pieceSize(long max) {
+		long cost = nanosPerItem;
+
+		if (cost == 0)
+			return max == Long.MAX_VALUE ? UNKNOWN_PIECE : max;
+
+		return Math.max(1, Math.min(max, TARGET_NANOS / cost));
+	}
+
+	private void measured(long items, long nanos) {
+		if (items == 0)
+			return;
+
+		long cost = Math.max(1, nanos / items);
+		long previous = nanosPerItem;
+
+		// a rough moving average, races between workers only lose a sample
+		nanosPerItem = previous == 0 ? cost : (previous * 3 + cost) / 4;
+	}
+
+	private Z execute(Object args[]) {
+		return Chain.run(chain, validate, args);
+	}
+
+	// a range of a list of inputs, with the results going to the same positions
+	private final class Range extends RecursiveAction {
+		private final Object args[][];
+		private final Object results[];
+		private final int from, to;
+		private final long max;
+
+		Range(Object args[][], Object results[], int from, int to, long max) {
+			this.args = args;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.max = max;
+		}
+
+		protected void compute() {
+			if (to - from > pieceSize(max)) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Range(args, results, from, middle, max), new Range(args, results, middle, to, max));
+				return;
+			}
+
+			long start = System.nanoTime();
+
+			for (int i=from; i < to; ++i) {
+				results[i] = execute(args[i]);
+			}
+
+			measured(to - from, System.nanoTime() - start);
+		}
+	}
+
+	// a part of a spliterator, with the results going to a shared sink
+	private final class Split extends RecursiveAction {
+		private final Spliterator<? extends Object[]> inputs;
+		private final Closure1View<?, ? super Z> sink;
+		private final long max;
+		private Split next;     // links the tasks forked by one compute call
+
+		Split(Spliterator<? extends Object[]> inputs, Closure1View<?, ? super Z> sink, long max) {
+			this.inputs = inputs;
+			this.sink = sink;
+			this.max = max;
+		}
+
+		protected void compute() {
+			Spliterator<? extends Object[]> remaining = inputs;
+			Split forked = null;
+
+			while (remaining.estimateSize() > pieceSize(max)) {
+				Spliterator<? extends Object[]> half = remaining.trySplit();
+
+				if (half == null)
+					break;
+
+				Split task = new Split(half, sink, max);
+				task.fork();
+				task.next = forked;
+				forked = task;
+			}
+
+			long start = System.nanoTime();
+			final long count[] = {0};
+
+			remaining.forEachRemaining(new Consumer<Object[]>() {
+				public void accept(Object args[]) {
+					sink.run(execute(args));
+					++count[0];
+				}
+			});
+
+			measured(count[0], System.nanoTime() - start);
+
+			for (Split task = forked; task != null; task = task.next) {
+				task.join();
+			}
+		}
+	}
+}
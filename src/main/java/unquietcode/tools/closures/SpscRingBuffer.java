@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A bounded, lock-free queue for exactly one producer thread and one consumer thread.
+ * Elements must not be null.
+ */
+final class SpscRingBuffer<E> {
+	private final Object buffer[];
+	private final int mask;
+
+	private final AtomicLong head = new AtomicLong();   // next slot to read, written by the consumer
+	private final AtomicLong tail = new AtomicLong();   // next slot to write, written by the producer
+
+	private long cachedHead;    // the producer's last look at head
+	private long cachedTail;    // the consumer's last look at tail
+
+
+	SpscRingBuffer(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be positive");
+
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size <<= 1;
+
+		buffer = new Object[size];
+		mask = size - 1;
+	}
+
+	/*
+	 * Producer only. Returns false if the buffer is full.
+	 */
+	boolean offer(E element) {
+		long t = tail.get();
+
+		if (t - cachedHead >= buffer.length) {
+			cachedHead = head.get();
+
+			if (t - cachedHead >= buffer.length)
+				return false;
+		}
+
+		buffer[(int) t & mask] = element;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/*
+	 * Consumer only. Returns null if the buffer is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	E poll() {
+		long h = head.get();
+
+		if (h >= cachedTail) {
+			cachedTail = tail.get();
+
+			if (h >= cachedTail)
+				return null;
+		}
+
+		int index = (int) h & mask;
+		E element = (E) buffer[index];
+		buffer[index] = null;
+		head.lazySet(h + 1);
+
+		return element;
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Turns values into bytes and back, for keeping them somewhere other than the heap.
+ *
+ * Buffers are handed over positioned at the first byte, with their limit at the last one,
+ * and are only valid for the duration of the call. Codecs should not keep a reference to them
+ * or assume anything about their byte order.
+ */
+public interface Codec<T> {
+
+	/**
+	 * @return  the number of bytes {@link #write} will use for the value
+	 */
+	int size(T value);
+
+	/**
+	 * Writes exactly {@link #size} bytes for the value, advancing the position of the buffer.
+	 */
+	void write(T value, ByteBuffer out);
+
+	/**
+	 * Reads a value written by {@link #write}. Everything between the position and limit of
+	 * the buffer belongs to the value.
+	 */
+	T read(ByteBuffer in);
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Codecs for common values.
+ */
+public final class Codecs {
+	private Codecs() { }
+
+	public static Codec<byte[]> bytes() {
+		return BYTES;
+	}
+
+	/**
+	 * Strings are stored as UTF-8.
+	 */
+	public static Codec<String> strings() {
+		return STRINGS;
+	}
+
+	public static Codec<Integer> integers() {
+		return INTEGERS;
+	}
+
+	public static Codec<Long> longs() {
+		return LONGS;
+	}
+
+	public static Codec<Double> doubles() {
+		return DOUBLES;
+	}
+
+	private static final Codec<byte[]> BYTES = new Codec<byte[]>() {
+		public int size(byte value[]) {
+			return value.length;
+		}
+
+		public void write(byte value[], ByteBuffer out) {
+			out.put(value);
+		}
+
+		public byte[] read(ByteBuffer in) {
+			byte value[] = new byte[in.remaining()];
+			in.get(value);
+			return value;
+		}
+	};
+
+	private static final Codec<String> STRINGS = new Codec<String>() {
+		public int size(String value) {
+			int size = 0;
+
+			for (int i=0; i < value.length(); ++i) {
+				char c = value.charAt(i);
+
+				if (c < 0x80) {
+					size += 1;
+				} else if (c < 0x800) {
+					size += 2;
+				} else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i+1))) {
+					size += 4;
+					++i;
+				} else {
+					size += 3;
+				}
+			}
+
+			return size;
+		}
+
+		public void write(String value, ByteBuffer out) {
+			for (int i=0; i < value.length(); ++i) {
+				char c = value.charAt(i);
+
+				if (c < 0x80) {
+					out.put((byte) c);
+				} else if (c < 0x800) {
+					out.put((byte) (0xC0 | c >> 6));
+					out.put((byte) (0x80 | c & 0x3F));
+				} else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i+1))) {
+					int cp = Character.toCodePoint(c, value.charAt(++i));
+					out.put((byte) (0xF0 | cp >> 18));
+					out.put((byte) (0x80 | cp >> 12 & 0x3F));
+					out.put((byte) (0x80 | cp >> 6 & 0x3F));
+					out.put((byte) (0x80 | cp & 0x3F));
+				} else {
+					// lone surrogates are written as they are, and read back the same way
+					out.put((byte) (0xE0 | c >> 12));
+					out.put((byte) (0x80 | c >> 6 & 0x3F));
+					out.put((byte) (0x80 | c & 0x3F));
+				}
+			}
+		}
+
+		public String read(ByteBuffer in) {
+			StringBuilder value = new StringBuilder(in.remaining());
+
+			while (in.hasRemaining()) {
+				int b = in.get() & 0xFF;
+
+				if (b < 0x80) {
+					value.append((char) b);
+				} else if (b < 0xE0) {
+					value.append((char) ((b & 0x1F) << 6 | in.get() & 0x3F));
+				} else if (b < 0xF0) {
+					value.append((char) ((b & 0x0F) << 12 | (in.get() & 0x3F) << 6 | in.get() & 0x3F));
+				} else {
+					int cp = (b & 0x07) << 18 | (in.get() & 0x3F) << 12 | (in.get() & 0x3F) << 6 | in.get() & 0x3F;
+					value.appendCodePoint(cp);
+				}
+			}
+
+			return value.toString();
+		}
+	};
+
+	private static final Codec<Integer> INTEGERS = new Codec<Integer>() {
+		public int size(Integer value) {
+			return 4;
+		}
+
+		public void write(Integer value, ByteBuffer out) {
+			out.putInt(value);
+		}
+
+		public Integer read(ByteBuffer in) {
+			return in.getInt();
+		}
+	};
+
+	private static final Codec<Long> LONGS = new Codec<Long>() {
+		public int size(Long value) {
+			return 8;
+		}
+
+		public void write(Long value, ByteBuffer out) {
+			out.putLong(value);
+		}
+
+		public Long read(ByteBuffer in) {
+			return in.getLong();
+		}
+	};
+
+	private static final Codec<Double> DOUBLES = new Codec<Double>() {
+		public int size(Double value) {
+			return 8;
+		}
+
+		public void write(Double value, ByteBuffer out) {
+			out.putDouble(value);
+		}
+
+		public Double read(ByteBuffer in) {
+			return in.getDouble();
+		}
+	};
+}
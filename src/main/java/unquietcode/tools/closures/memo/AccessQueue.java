@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A queue of entries, ordered from least to most recently used. The links are kept in the
+ * entries themselves, so moving an entry costs nothing but a few pointer updates.
+ */
+final class AccessQueue {
+	private final Entry head = new Entry(null, null, 0, null);     // sentinel, head.next is the oldest
+	private int size = 0;
+
+
+	AccessQueue() {
+		head.prev = head.next = head;
+	}
+
+	int size() {
+		return size;
+	}
+
+	Entry peekFirst() {
+		return head.next == head ? null : head.next;
+	}
+
+	Entry pollFirst() {
+		Entry first = peekFirst();
+
+		if (first != null)
+			remove(first);
+
+		return first;
+	}
+
+	void addLast(Entry entry) {
+		Entry last = head.prev;
+		entry.prev = last;
+		entry.next = head;
+		last.next = entry;
+		head.prev = entry;
+		++size;
+	}
+
+	void remove(Entry entry) {
+		entry.prev.next = entry.next;
+		entry.next.prev = entry.prev;
+		entry.prev = entry.next = null;
+		--size;
+	}
+
+	void moveToLast(Entry entry) {
+		remove(entry);
+		addLast(entry);
+	}
+
+	void clear() {
+		head.prev = head.next = head;
+		size = 0;
+	}
+}
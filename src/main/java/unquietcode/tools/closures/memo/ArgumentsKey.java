@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import java.util.Arrays;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * The key for closures taking more than two arguments.
+ */
+final class ArgumentsKey {
+	private final Object args[];
+	private final int hash;
+
+
+	ArgumentsKey(Object...args) {
+		this.args = args;
+		this.hash = Arrays.hashCode(args);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof ArgumentsKey && Arrays.equals(args, ((ArgumentsKey) other).args);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
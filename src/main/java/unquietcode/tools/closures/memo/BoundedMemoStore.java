@@ -0,0 +1,258 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A memo store holding a limited number of values. The store is split into segments by hash,
+ * each with its own lock, hash table and eviction bookkeeping, so threads working on different
+ * keys rarely wait on each other. The limit is split evenly between the segments, and each
+ * one evicts on its own.
+ *
+ * Lookups read the hash table without locking. A hit is passed on to the eviction policy only
+ * if the segment's lock is free at that moment, so under contention some hits go unrecorded
+ * rather than making readers wait in line.
+ */
+public class BoundedMemoStore<V> implements MemoStore<V> {
+	private static final int MAX_SEGMENTS = 16;
+	private static final int MIN_SEGMENT_SIZE = 16;
+
+	private final Segment segments[];
+	private final int segmentShift;
+	private final int maximumSize;
+	private final EvictionPolicy policy;
+
+
+	/**
+	 * Creates a store using the W-TinyLFU policy.
+	 *
+	 * @param maximumSize  the most values to hold at once
+	 */
+	public BoundedMemoStore(int maximumSize) {
+		this(maximumSize, EvictionPolicy.windowTinyLfu());
+	}
+
+	/**
+	 * @param maximumSize  the most values to hold at once
+	 * @param policy       decides which values to evict
+	 */
+	public BoundedMemoStore(int maximumSize, EvictionPolicy policy) {
+		if (maximumSize < 1)
+			throw new IllegalArgumentException("maximum size must be positive");
+
+		if (policy == null)
+			throw new NullPointerException("policy");
+
+		// a segment per processor, so that writers rarely share a lock, but fewer for small
+		// stores, so that each one still holds a useful number of values
+		int processors = Runtime.getRuntime().availableProcessors();
+		int wanted = Math.min(MAX_SEGMENTS, Math.max(1, Math.min(processors, maximumSize / MIN_SEGMENT_SIZE)));
+		int count = Integer.highestOneBit(wanted);
+		segments = new Segment[count];
+		segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+
+		for (int i=0; i < count; ++i) {
+			int capacity = maximumSize / count + (i < maximumSize % count ? 1 : 0);
+			segments[i] = new Segment(capacity, policy.tracker(capacity));
+		}
+
+		this.maximumSize = maximumSize;
+		this.policy = policy;
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	public EvictionPolicy getPolicy() {
+		return policy;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(Object k1, Object k2) {
+		int hash = hash(k1, k2);
+		return (V) segment(hash).get(k1, k2, hash);
+	}
+
+	public void put(Object k1, Object k2, V value) {
+		if (value == null)
+			throw new NullPointerException("value");
+
+		int hash = hash(k1, k2);
+		segment(hash).put(k1, k2, hash, value);
+	}
+
+	public void remove(Object k1, Object k2) {
+		int hash = hash(k1, k2);
+		segment(hash).remove(k1, k2, hash);
+	}
+
+	public void clear() {
+		for (Segment segment : segments) {
+			segment.clear();
+		}
+	}
+
+	public int size() {
+		int size = 0;
+
+		for (Segment segment : segments) {
+			size += segment.count;
+		}
+
+		return size;
+	}
+
+	private Segment segment(int hash) {
+		return segmentShift == 32 ? segments[0] : segments[hash >>> segmentShift];
+	}
+
+	private static int hash(Object k1, Object k2) {
+		int h = (k1 == null ? 0 : k1.hashCode()) * 31 + (k2 == null ? 0 : k2.hashCode());
+
+		// spread the bits, so that the high ones pick the segment and the low ones the bucket
+		h *= 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+
+	private static final class Segment extends ReentrantLock {
+		private final AtomicReferenceArray<Entry> table;
+		private final Tracker tracker;
+		volatile int count = 0;
+
+		Segment(int capacity, Tracker tracker) {
+			int size = Integer.highestOneBit(Math.max(2, capacity + capacity / 3) - 1) << 1;
+			table = new AtomicReferenceArray<Entry>(size);
+			this.tracker = tracker;
+		}
+
+		Object get(Object k1, Object k2, int hash) {
+			Entry entry = find(k1, k2, hash);
+
+			// the policy only needs to see most accesses, so skip it rather than wait
+			if (tryLock()) {
+				try {
+					tracker.record(hash);
+
+					if (entry != null && !entry.removed)
+						tracker.onHit(entry);
+				} finally {
+					unlock();
+				}
+			}
+
+			return entry == null ? null : entry.value;
+		}
+
+		void put(Object k1, Object k2, int hash, Object value) {
+			lock();
+
+			try {
+				Entry entry = find(k1, k2, hash);
+
+				if (entry != null) {
+					entry.value = value;
+					tracker.onHit(entry);
+					return;
+				}
+
+				entry = new Entry(k1, k2, hash, value);
+				int bucket = hash & (table.length() - 1);
+				entry.chain = table.get(bucket);
+				table.set(bucket, entry);
+				++count;
+
+				Entry evicted = tracker.onInsert(entry);
+
+				if (evicted != null)
+					unlink(evicted);
+			} finally {
+				unlock();
+			}
+		}
+
+		void remove(Object k1, Object k2, int hash) {
+			lock();
+
+			try {
+				Entry entry = find(k1, k2, hash);
+
+				if (entry != null) {
+					tracker.onRemove(entry);
+					unlink(entry);
+				}
+			} finally {
+				unlock();
+			}
+		}
+
+		void clear() {
+			lock();
+
+			try {
+				for (int i=0; i < table.length(); ++i) {
+					for (Entry entry = table.get(i); entry != null; entry = entry.chain) {
+						entry.removed = true;
+					}
+
+					table.set(i, null);
+				}
+
+				tracker.clear();
+				count = 0;
+			} finally {
+				unlock();
+			}
+		}
+
+		private Entry find(Object k1, Object k2, int hash) {
+			for (Entry entry = table.get(hash & (table.length() - 1)); entry != null; entry = entry.chain) {
+				if (entry.matches(k1, k2, hash))
+					return entry;
+			}
+
+			return null;
+		}
+
+		// takes an entry out of the hash table, the tracker having already let go of it
+		private void unlink(Entry entry) {
+			int bucket = entry.hash & (table.length() - 1);
+			Entry previous = null;
+
+			for (Entry e = table.get(bucket); e != null; previous = e, e = e.chain) {
+				if (e == entry) {
+					if (previous == null)
+						table.set(bucket, e.chain);
+					else
+						previous.chain = e.chain;
+
+					entry.removed = true;
+					--count;
+					return;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A stored value, linked into its hash bucket and into one of the queues
+ * kept by the eviction policy. The key, value and bucket link may be read
+ * without the segment's lock; everything else belongs to the lock holder.
+ */
+final class Entry {
+	final Object k1, k2;
+	final int hash;
+	volatile Object value;
+
+	volatile Entry chain;   // the next entry in the same hash bucket, read without the lock
+	Entry prev, next;       // neighbors in the policy's queue
+	int queue;              // which of the policy's queues the entry is in
+	boolean removed;        // out of the hash table and the policy's queues
+
+
+	Entry(Object k1, Object k2, int hash, Object value) {
+		this.k1 = k1;
+		this.k2 = k2;
+		this.hash = hash;
+		this.value = value;
+	}
+
+	boolean matches(Object k1, Object k2, int hash) {
+		return this.hash == hash && equal(this.k1, k1) && equal(this.k2, k2);
+	}
+
+	private static boolean equal(Object a, Object b) {
+		return a == b || (a != null && a.equals(b));
+	}
+}
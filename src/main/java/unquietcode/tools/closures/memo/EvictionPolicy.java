@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Decides which value a bounded store gives up when it is full.
+ *
+ * <ul>
+ *   <li>{@link #lru()} evicts the value which was used least recently.</li>
+ *   <li>{@link #windowTinyLfu()} also takes into account how often each key has been asked
+ *       for, including the times it was missing, and will not let a key seen once push out
+ *       one which is asked for constantly. It holds up much better when some keys are far
+ *       more popular than others, or when a scan passes over many keys only once.</li>
+ * </ul>
+ */
+public abstract class EvictionPolicy {
+	private static final EvictionPolicy LRU = new EvictionPolicy() {
+		Tracker tracker(int capacity) {
+			return new LruTracker(capacity);
+		}
+
+		public String toString() {
+			return "LRU";
+		}
+	};
+
+	private static final EvictionPolicy WINDOW_TINY_LFU = new EvictionPolicy() {
+		Tracker tracker(int capacity) {
+			return new TinyLfuTracker(capacity);
+		}
+
+		public String toString() {
+			return "W-TinyLFU";
+		}
+	};
+
+
+	EvictionPolicy() { }
+
+	public static EvictionPolicy lru() {
+		return LRU;
+	}
+
+	public static EvictionPolicy windowTinyLfu() {
+		return WINDOW_TINY_LFU;
+	}
+
+	/*
+	 * Creates the bookkeeping for one part of a store, holding up to some number of entries.
+	 */
+	abstract Tracker tracker(int capacity);
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A count-min sketch of how often keys have been seen, using four bit counters. Each key
+ * is counted in four places, and its frequency is the smallest of the four. Once enough
+ * keys have been counted, every counter is halved, so that old popularity fades.
+ */
+final class FrequencySketch {
+	private static final long SEEDS[] = {
+		0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+	};
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	private final long table[];
+	private final int mask;
+	private final int sampleSize;
+	private int additions = 0;
+
+
+	FrequencySketch(int capacity) {
+		int size = Integer.highestOneBit(Math.max(8, capacity - 1)) << 1;
+
+		table = new long[size];
+		mask = size - 1;
+		sampleSize = 10 * Math.max(1, capacity);
+	}
+
+	int frequency(int hash) {
+		int start = (hash & 3) << 2;
+		int frequency = 15;
+
+		for (int i=0; i < 4; ++i) {
+			int shift = (start + i) << 2;
+			int count = (int) (table[index(hash, i)] >>> shift) & 0xf;
+			frequency = Math.min(frequency, count);
+		}
+
+		return frequency;
+	}
+
+	void increment(int hash) {
+		int start = (hash & 3) << 2;
+		boolean added = false;
+
+		for (int i=0; i < 4; ++i) {
+			int index = index(hash, i);
+			int shift = (start + i) << 2;
+			long counter = 0xfL << shift;
+
+			if ((table[index] & counter) != counter) {
+				table[index] += 1L << shift;
+				added = true;
+			}
+		}
+
+		if (added && ++additions >= sampleSize)
+			reset();
+	}
+
+	private int index(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return (int) h & mask;
+	}
+
+	private void reset() {
+		for (int i=0; i < table.length; ++i) {
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+
+		additions >>>= 1;
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import unquietcode.tools.closures.Closure0;
+import unquietcode.tools.closures.view.Closure0View;
+import unquietcode.tools.closures.view.ClosureView;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A closure taking no arguments which runs at most once, and gives the same result every time
+ * after that, including null. Once the value is there, getting it is a single volatile read.
+ * Until then, callers take turns running the closure, so if it fails the next caller tries
+ * again. After it succeeds the closure is let go of, so anything it captured can be collected.
+ *
+ * A lazy value can also be started on an executor, so that it is being worked on before anyone
+ * asks for it. Callers arriving while it runs wait for it, and callers arriving before it has
+ * started run it themselves.
+ */
+public final class Lazy<Z> implements Closure0View<Z>, ClosureView<Z> {
+	private static final Object UNSET = new Object();
+
+	private final Object lock = new Object();
+	private volatile Object value = UNSET;
+	private Closure0View<Z> closure;        // null once the value is set
+
+
+	private Lazy(Closure0View<Z> closure) {
+		if (closure == null)
+			throw new NullPointerException("closure");
+
+		this.closure = closure;
+	}
+
+	public static <Z> Lazy<Z> of(Closure0<Z> closure) {
+		return of(closure.getView());
+	}
+
+	public static <Z> Lazy<Z> of(Closure0View<Z> closure) {
+		return new Lazy<Z>(closure);
+	}
+
+	/**
+	 * Creates a lazy value, and starts working it out on the executor. If the executor
+	 * refuses, it is worked out on first use instead.
+	 */
+	public static <Z> Lazy<Z> start(Closure0<Z> closure, Executor executor) {
+		return start(closure.getView(), executor);
+	}
+
+	public static <Z> Lazy<Z> start(Closure0View<Z> closure, Executor executor) {
+		if (executor == null)
+			throw new NullPointerException("executor");
+
+		final Lazy<Z> lazy = new Lazy<Z>(closure);
+
+		try {
+			executor.execute(new Runnable() {
+				public void run() {
+					lazy.run();
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			// left for the first caller
+		}
+
+		return lazy;
+	}
+
+	@SuppressWarnings("unchecked")
+	public Z run() {
+		Object value = this.value;
+
+		if (value != UNSET)
+			return (Z) value;
+
+		synchronized (lock) {
+			value = this.value;
+
+			if (value != UNSET)
+				return (Z) value;
+
+			Z result = closure.run();
+			this.value = result;
+			closure = null;
+
+			return result;
+		}
+	}
+
+	public Z run(Object...args) {
+		return run();
+	}
+
+	public int getExpectedArgs() {
+		return 0;
+	}
+
+	/**
+	 * @return  whether the value has been worked out
+	 */
+	public boolean isDone() {
+		return value != UNSET;
+	}
+
+	@Override
+	public String toString() {
+		Object value = this.value;
+		return value == UNSET ? "Lazy[not done]" : "Lazy[" + value + "]";
+	}
+}
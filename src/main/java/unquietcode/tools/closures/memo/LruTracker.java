@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ */
+final class LruTracker extends Tracker {
+	private final AccessQueue queue = new AccessQueue();
+	private final int capacity;
+
+
+	LruTracker(int capacity) {
+		this.capacity = capacity;
+	}
+
+	void onHit(Entry entry) {
+		queue.moveToLast(entry);
+	}
+
+	Entry onInsert(Entry entry) {
+		queue.addLast(entry);
+		return queue.size() > capacity ? queue.pollFirst() : null;
+	}
+
+	void onRemove(Entry entry) {
+		queue.remove(entry);
+	}
+
+	void clear() {
+		queue.clear();
+	}
+}
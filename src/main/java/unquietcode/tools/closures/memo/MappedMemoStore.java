@@ -0,0 +1,249 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import unquietcode.tools.closures.codec.Codec;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A memo store kept in a memory-mapped file, so that a restarted program can map the file again
+ * and get hits right away instead of starting cold. It backs {@link Memoizer} views of closures
+ * taking one argument, whose arguments and results can be written by the given codecs, and
+ * works like an {@link OffHeapMemoStore} otherwise.
+ *
+ * The file starts with a header naming the format version, the layout, the closure class and
+ * the codec classes. A file whose header doesn't match what is asked for is started over
+ * empty, as is one which was not closed properly, since its records may have been half
+ * written. A closure whose results change without its class changing should have its store
+ * cleared, or use a new file.
+ *
+ * A file must only be open in one store at a time.
+ */
+public class MappedMemoStore<K, V> implements MemoStore<Object>, Closeable {
+	static final int FORMAT_VERSION = 1;
+	private static final long MAGIC = 0x436c6f737572654dL;     // "ClosureM"
+	private static final int FILE_HEADER = 4096;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	// where things are kept in the file header
+	private static final int VERSION = 8;
+	private static final int SEGMENTS = 12;
+	private static final int SEGMENT_SIZE = 16;
+	private static final int SLOTS = 20;
+	private static final int CLEAN = 24;
+	private static final int IDENTITY = 28;
+
+	private final RandomAccessFile file;
+	private final MappedByteBuffer header;
+	private final MappedByteBuffer regions[];
+	private final RecordLogs<K, V> logs;
+	private final long capacity;
+	private final boolean restored;
+
+
+	/**
+	 * Opens the store in the given file, creating the file if it doesn't exist yet.
+	 *
+	 * @param file      where to keep the records
+	 * @param closure   the class of the closure being memoized
+	 * @param capacity  the number of bytes to use for records, not counting the hash tables
+	 * @param keys      writes the arguments
+	 * @param values    writes the results
+	 */
+	public MappedMemoStore(File file, Class<?> closure, long capacity, Codec<K> keys, Codec<V> values) throws IOException {
+		if (file == null)
+			throw new NullPointerException("file");
+
+		if (closure == null)
+			throw new NullPointerException("closure");
+
+		if (keys == null)
+			throw new NullPointerException("keys");
+
+		if (values == null)
+			throw new NullPointerException("values");
+
+		int count = RecordLogs.segments(capacity);
+		int size = RecordLogs.segmentSize(capacity, count);
+		int slots = Math.max(RecordLog.MIN_SLOTS, Integer.highestOneBit(size / 32));
+		long region = RecordLog.META + (long) slots * 8 + size;
+
+		byte identity[] = (closure.getName() + '\n' + keys.getClass().getName() + '\n' + values.getClass().getName()).getBytes(UTF8);
+
+		if (IDENTITY + 4 + identity.length > FILE_HEADER)
+			throw new IllegalArgumentException("class names are too long");
+
+		this.file = new RandomAccessFile(file, "rw");
+		boolean opened = false;
+
+		try {
+			FileChannel channel = this.file.getChannel();
+			long length = FILE_HEADER + region * count;
+			boolean matches = false;
+
+			// the header is read before mapping anything, since the file might be cut short
+			if (this.file.length() == length) {
+				ByteBuffer existing = ByteBuffer.allocate(FILE_HEADER);
+
+				while (existing.hasRemaining()) {
+					if (channel.read(existing, existing.position()) < 0)
+						break;
+				}
+
+				matches = existing.getLong(0) == MAGIC
+					&& existing.getInt(VERSION) == FORMAT_VERSION
+					&& existing.getInt(SEGMENTS) == count
+					&& existing.getInt(SEGMENT_SIZE) == size
+					&& existing.getInt(SLOTS) == slots
+					&& existing.getInt(CLEAN) == 1
+					&& identical(existing, identity);
+			}
+
+			if (!matches) {
+				this.file.setLength(0);
+				this.file.setLength(length);
+			}
+
+			header = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER);
+			regions = new MappedByteBuffer[count];
+			RecordLog segments[] = new RecordLog[count];
+
+			for (int i=0; i < count; ++i) {
+				regions[i] = channel.map(FileChannel.MapMode.READ_WRITE, FILE_HEADER + region * i, region);
+				segments[i] = new RecordLog(
+					slice(regions[i], 0, RecordLog.META),
+					slice(regions[i], RecordLog.META, slots * 8),
+					slice(regions[i], RecordLog.META + slots * 8, size),
+					false
+				);
+			}
+
+			if (!matches) {
+				header.putLong(0, MAGIC);
+				header.putInt(VERSION, FORMAT_VERSION);
+				header.putInt(SEGMENTS, count);
+				header.putInt(SEGMENT_SIZE, size);
+				header.putInt(SLOTS, slots);
+				header.putInt(IDENTITY, identity.length);
+
+				for (int i=0; i < identity.length; ++i) {
+					header.put(IDENTITY + 4 + i, identity[i]);
+				}
+			}
+
+			// until it is closed, the file can't be trusted
+			header.putInt(CLEAN, 0);
+			header.force();
+
+			this.logs = new RecordLogs<K, V>(segments, keys, values);
+			this.capacity = capacity;
+			this.restored = matches;
+			opened = true;
+		} finally {
+			if (!opened)
+				this.file.close();
+		}
+	}
+
+	/**
+	 * @return  whether the records were picked up from an earlier run,
+	 *          rather than the file being started over
+	 */
+	public boolean isRestored() {
+		return restored;
+	}
+
+	public long getCapacity() {
+		return capacity;
+	}
+
+	public Object get(Object k1, Object k2) {
+		return logs.get(k1, k2);
+	}
+
+	public void put(Object k1, Object k2, Object value) {
+		logs.put(k1, k2, value);
+	}
+
+	public void remove(Object k1, Object k2) {
+		logs.remove(k1, k2);
+	}
+
+	public void clear() {
+		logs.clear();
+	}
+
+	public int size() {
+		return logs.size();
+	}
+
+	/**
+	 * Writes everything out to the file, and marks it as safe to open again.
+	 * The store must not be used afterwards.
+	 */
+	public synchronized void close() throws IOException {
+		if (!file.getChannel().isOpen())
+			return;
+
+		// waits for anything still writing, and stops anything else from starting
+		logs.close(new Runnable() {
+			public void run() {
+				for (MappedByteBuffer region : regions) {
+					region.force();
+				}
+
+				header.putInt(CLEAN, 1);
+				header.force();
+			}
+		});
+
+		file.close();
+	}
+
+	private static boolean identical(ByteBuffer header, byte identity[]) {
+		if (header.getInt(IDENTITY) != identity.length)
+			return false;
+
+		for (int i=0; i < identity.length; ++i) {
+			if (header.get(IDENTITY + 4 + i) != identity[i])
+				return false;
+		}
+
+		return true;
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int from, int length) {
+		ByteBuffer copy = buffer.duplicate();
+		copy.position(from);
+		copy.limit(from + length);
+		return copy.slice();
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Where a memoized closure keeps its results. Keys are given as two parts, so that closures
+ * taking one or two arguments can be looked up without building a key object. Closures taking
+ * one argument pass null as the second part, and closures taking more than two combine them
+ * into the first part.
+ *
+ * Because of this, a store should only ever back a single closure.
+ */
+public interface MemoStore<V> {
+	/**
+	 * @return  the value stored for the key, or null if there is none
+	 */
+	V get(Object k1, Object k2);
+
+	/**
+	 * Stores a value for the key, replacing any value already there.
+	 * The store may evict other values to make room.
+	 *
+	 * @param value  must not be null
+	 */
+	void put(Object k1, Object k2, V value);
+
+	void remove(Object k1, Object k2);
+
+	void clear();
+
+	/**
+	 * @return  the number of values currently stored
+	 */
+	int size();
+}
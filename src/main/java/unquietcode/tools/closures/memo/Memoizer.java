@@ -0,0 +1,402 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import unquietcode.tools.closures.*;
+import unquietcode.tools.closures.view.*;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Wraps closures so that their results are remembered, and each set of arguments is only run
+ * once for as long as the store holds on to it. Only closures whose results depend on nothing
+ * but their arguments should be memoized.
+ *
+ * The wrapped views look up results by the arguments themselves when there are one or two of
+ * them, so a hit allocates nothing. Closures taking more arguments build a key on each call.
+ * Null results are remembered like any other.
+ *
+ * Concurrent calls with the same new arguments may each run the closure, and the last one to
+ * finish is kept.
+ */
+public final class Memoizer {
+	static final Object NULL = new Object();    // stands in for null results
+
+	private Memoizer() { }
+
+	public static <Z, A> Closure1View<Z, A> memoize(Closure1<Z, A> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public static <Z, A> Closure1View<Z, A> memoize(Closure1View<Z, A> view, MemoStore<Object> store) {
+		return new Memo1<Z, A>(view, store);
+	}
+
+	public static <Z, A,B> Closure2View<Z, A,B> memoize(Closure2<Z, A,B> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public static <Z, A,B> Closure2View<Z, A,B> memoize(Closure2View<Z, A,B> view, MemoStore<Object> store) {
+		return new Memo2<Z, A,B>(view, store);
+	}
+
+	public static <Z, A,B,C> Closure3View<Z, A,B,C> memoize(Closure3<Z, A,B,C> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public static <Z, A,B,C> Closure3View<Z, A,B,C> memoize(Closure3View<Z, A,B,C> view, MemoStore<Object> store) {
+		return new Memo3<Z, A,B,C>(view, store);
+	}
+
+	public static <Z, A,B,C,D> Closure4View<Z, A,B,C,D> memoize(Closure4<Z, A,B,C,D> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public static <Z, A,B,C,D> Closure4View<Z, A,B,C,D> memoize(Closure4View<Z, A,B,C,D> view, MemoStore<Object> store) {
+		return new Memo4<Z, A,B,C,D>(view, store);
+	}
+
+	public static <Z, A,B,C,D,E> Closure5View<Z, A,B,C,D,E> memoize(Closure5<Z, A,B,C,D,E> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public static <Z, A,B,C,D,E> Closure5View<Z, A,B,C,D,E> memoize(Closure5View<Z, A,B,C,D,E> view, MemoStore<Object> store) {
+		return new Memo5<Z, A,B,C,D,E>(view, store);
+	}
+
+	public static <Z, A,B,C,D,E,F> Closure6View<Z, A,B,C,D,E,F> memoize(Closure6<Z, A,B,C,D,E,F> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public static <Z, A,B,C,D,E,F> Closure6View<Z, A,B,C,D,E,F> memoize(Closure6View<Z, A,B,C,D,E,F> view, MemoStore<Object> store) {
+		return new Memo6<Z, A,B,C,D,E,F>(view, store);
+	}
+
+	public static <Z, A,B,C,D,E,F,G> Closure7View<Z, A,B,C,D,E,F,G> memoize(Closure7<Z, A,B,C,D,E,F,G> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public static <Z, A,B,C,D,E,F,G> Closure7View<Z, A,B,C,D,E,F,G> memoize(Closure7View<Z, A,B,C,D,E,F,G> view, MemoStore<Object> store) {
+		return new Memo7<Z, A,B,C,D,E,F,G>(view, store);
+	}
+
+	public static <Z, A,B,C,D,E,F,G,H> Closure8View<Z, A,B,C,D,E,F,G,H> memoize(Closure8<Z, A,B,C,D,E,F,G,H> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public static <Z, A,B,C,D,E,F,G,H> Closure8View<Z, A,B,C,D,E,F,G,H> memoize(Closure8View<Z, A,B,C,D,E,F,G,H> view, MemoStore<Object> store) {
+		return new Memo8<Z, A,B,C,D,E,F,G,H>(view, store);
+	}
+
+	private static Object mask(Object value) {
+		return value == null ? NULL : value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <Z> Z unmask(Object value) {
+		return value == NULL ? null : (Z) value;
+	}
+
+	private static <T> T check(T value, String name) {
+		if (value == null)
+			throw new NullPointerException(name);
+
+		return value;
+	}
+
+	private static final class Memo1<Z, A> implements Closure1View<Z, A>, ClosureView<Z> {
+		private final Closure1View<Z, A> view;
+		private final MemoStore<Object> store;
+
+		Memo1(Closure1View<Z, A> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(A p1) {
+			Object cached = store.get(p1, null);
+
+			if (cached != null)
+				return unmask(cached);
+
+			Z result = view.run(p1);
+			store.put(p1, null, mask(result));
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0]);
+		}
+
+		public int getExpectedArgs() {
+			return 1;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Memo2<Z, A,B> implements Closure2View<Z, A,B>, ClosureView<Z> {
+		private final Closure2View<Z, A,B> view;
+		private final MemoStore<Object> store;
+
+		Memo2(Closure2View<Z, A,B> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(A p1, B p2) {
+			Object cached = store.get(p1, p2);
+
+			if (cached != null)
+				return unmask(cached);
+
+			Z result = view.run(p1, p2);
+			store.put(p1, p2, mask(result));
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1]);
+		}
+
+		public int getExpectedArgs() {
+			return 2;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Memo3<Z, A,B,C> implements Closure3View<Z, A,B,C>, ClosureView<Z> {
+		private final Closure3View<Z, A,B,C> view;
+		private final MemoStore<Object> store;
+
+		Memo3(Closure3View<Z, A,B,C> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(A p1, B p2, C p3) {
+			ArgumentsKey key = new ArgumentsKey(p1, p2, p3);
+			Object cached = store.get(key, null);
+
+			if (cached != null)
+				return unmask(cached);
+
+			Z result = view.run(p1, p2, p3);
+			store.put(key, null, mask(result));
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2]);
+		}
+
+		public int getExpectedArgs() {
+			return 3;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Memo4<Z, A,B,C,D> implements Closure4View<Z, A,B,C,D>, ClosureView<Z> {
+		private final Closure4View<Z, A,B,C,D> view;
+		private final MemoStore<Object> store;
+
+		Memo4(Closure4View<Z, A,B,C,D> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(A p1, B p2, C p3, D p4) {
+			ArgumentsKey key = new ArgumentsKey(p1, p2, p3, p4);
+			Object cached = store.get(key, null);
+
+			if (cached != null)
+				return unmask(cached);
+
+			Z result = view.run(p1, p2, p3, p4);
+			store.put(key, null, mask(result));
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3]);
+		}
+
+		public int getExpectedArgs() {
+			return 4;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Memo5<Z, A,B,C,D,E> implements Closure5View<Z, A,B,C,D,E>, ClosureView<Z> {
+		private final Closure5View<Z, A,B,C,D,E> view;
+		private final MemoStore<Object> store;
+
+		Memo5(Closure5View<Z, A,B,C,D,E> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(A p1, B p2, C p3, D p4, E p5) {
+			ArgumentsKey key = new ArgumentsKey(p1, p2, p3, p4, p5);
+			Object cached = store.get(key, null);
+
+			if (cached != null)
+				return unmask(cached);
+
+			Z result = view.run(p1, p2, p3, p4, p5);
+			store.put(key, null, mask(result));
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4]);
+		}
+
+		public int getExpectedArgs() {
+			return 5;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Memo6<Z, A,B,C,D,E,F> implements Closure6View<Z, A,B,C,D,E,F>, ClosureView<Z> {
+		private final Closure6View<Z, A,B,C,D,E,F> view;
+		private final MemoStore<Object> store;
+
+		Memo6(Closure6View<Z, A,B,C,D,E,F> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(A p1, B p2, C p3, D p4, E p5, F p6) {
+			ArgumentsKey key = new ArgumentsKey(p1, p2, p3, p4, p5, p6);
+			Object cached = store.get(key, null);
+
+			if (cached != null)
+				return unmask(cached);
+
+			Z result = view.run(p1, p2, p3, p4, p5, p6);
+			store.put(key, null, mask(result));
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5]);
+		}
+
+		public int getExpectedArgs() {
+			return 6;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Memo7<Z, A,B,C,D,E,F,G> implements Closure7View<Z, A,B,C,D,E,F,G>, ClosureView<Z> {
+		private final Closure7View<Z, A,B,C,D,E,F,G> view;
+		private final MemoStore<Object> store;
+
+		Memo7(Closure7View<Z, A,B,C,D,E,F,G> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(A p1, B p2, C p3, D p4, E p5, F p6, G p7) {
+			ArgumentsKey key = new ArgumentsKey(p1, p2, p3, p4, p5, p6, p7);
+			Object cached = store.get(key, null);
+
+			if (cached != null)
+				return unmask(cached);
+
+			Z result = view.run(p1, p2, p3, p4, p5, p6, p7);
+			store.put(key, null, mask(result));
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5], (G) args[6]);
+		}
+
+		public int getExpectedArgs() {
+			return 7;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Memo8<Z, A,B,C,D,E,F,G,H> implements Closure8View<Z, A,B,C,D,E,F,G,H>, ClosureView<Z> {
+		private final Closure8View<Z, A,B,C,D,E,F,G,H> view;
+		private final MemoStore<Object> store;
+
+		Memo8(Closure8View<Z, A,B,C,D,E,F,G,H> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(A p1, B p2, C p3, D p4, E p5, F p6, G p7, H p8) {
+			ArgumentsKey key = new ArgumentsKey(p1, p2, p3, p4, p5, p6, p7, p8);
+			Object cached = store.get(key, null);
+
+			if (cached != null)
+				return unmask(cached);
+
+			Z result = view.run(p1, p2, p3, p4, p5, p6, p7, p8);
+			store.put(key, null, mask(result));
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5], (G) args[6], (H) args[7]);
+		}
+
+		public int getExpectedArgs() {
+			return 8;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import unquietcode.tools.closures.codec.Codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A memo store which keeps its keys and values serialized in direct memory, outside of the
+ * heap, so that it can hold a great many results without adding to the work of the garbage
+ * collector. Only the store itself and its locks live on the heap. It backs {@link Memoizer}
+ * views of closures taking one argument, whose arguments and results can be written by the
+ * given codecs.
+ *
+ * The memory is split into segments, each with its own lock. A segment is a circular log of
+ * records with a hash table beside it, and evicts like a clock: records are taken off the tail
+ * of the log to make room, except for those which have been read since they were written,
+ * which are moved to the head instead.
+ *
+ * Keys are matched by their serialized bytes, so equal keys must be written the same way.
+ * Values too large to fit in a segment are not kept. The memory is given back when the store
+ * is garbage collected.
+ */
+public class OffHeapMemoStore<K, V> implements MemoStore<Object> {
+	private final RecordLogs<K, V> logs;
+	private final long capacity;
+
+
+	/**
+	 * @param capacity  the number of bytes of direct memory to use, for records
+	 *                  (the hash tables take a little more)
+	 * @param keys      writes the arguments
+	 * @param values    writes the results
+	 */
+	public OffHeapMemoStore(long capacity, Codec<K> keys, Codec<V> values) {
+		int count = RecordLogs.segments(capacity);
+		int size = RecordLogs.segmentSize(capacity, count);
+		RecordLog segments[] = new RecordLog[count];
+
+		for (int i=0; i < count; ++i) {
+			ByteBuffer meta = ByteBuffer.allocate(RecordLog.META);
+			ByteBuffer index = ByteBuffer.allocateDirect(RecordLog.MIN_SLOTS << 3);
+			segments[i] = new RecordLog(meta, index, ByteBuffer.allocateDirect(size), true);
+		}
+
+		this.logs = new RecordLogs<K, V>(segments, keys, values);
+		this.capacity = capacity;
+	}
+
+	public long getCapacity() {
+		return capacity;
+	}
+
+	public Object get(Object k1, Object k2) {
+		return logs.get(k1, k2);
+	}
+
+	public void put(Object k1, Object k2, Object value) {
+		logs.put(k1, k2, value);
+	}
+
+	public void remove(Object k1, Object k2) {
+		logs.remove(k1, k2);
+	}
+
+	public void clear() {
+		logs.clear();
+	}
+
+	public int size() {
+		return logs.size();
+	}
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import unquietcode.tools.closures.codec.Codec;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * One segment of a store which keeps serialized records outside of the heap. It is a circular
+ * log of records, with an open addressing hash table beside it. New records are written at
+ * the head of the log, and room is made by taking records off its tail. A record which has
+ * been read since it was written gets a second chance, and is moved to the head instead of
+ * being dropped, which makes the log work like a clock.
+ *
+ * Everything, including the positions of the head and tail, is kept in the given buffers, so
+ * a log over a mapped file can be picked up again later. Keys are given already serialized,
+ * and matched by their bytes. Callers must hold the lock.
+ */
+final class RecordLog extends ReentrantLock {
+	static final int MIN_SLOTS = 256;
+	static final int META = 32;
+
+	// where the state is kept in the meta buffer
+	private static final int HEAD = 0;
+	private static final int TAIL = 8;
+	private static final int COUNT = 16;
+
+	// each record starts with its length, which has the flags in its low bits
+	static final int ALIGN = 16;
+	private static final int LIVE = 1;
+	private static final int REFERENCED = 2;
+	private static final int NULL_KEY = 4;
+	private static final int NULL_VALUE = 8;
+	private static final int FLAGS = ALIGN - 1;
+
+	private static final int HASH = 4;
+	private static final int KEY_LENGTH = 8;
+	private static final int VALUE_LENGTH = 12;
+	private static final int HEADER = 16;
+
+	private final ByteBuffer meta;
+	private final ByteBuffer data;
+	private final ByteBuffer view;      // for handing parts of the data to the codecs
+	private final int size;
+	private final boolean growable;
+
+	private ByteBuffer index;           // slots of (hash << 32 | position + 1), 0 when empty
+	private int mask;
+	private byte moving[] = new byte[64];
+
+	private long head, tail;            // positions in the log, which only ever increase
+	volatile int count;
+
+
+	/**
+	 * @param growable  whether the index can be replaced by a larger one, or whether records
+	 *                  should be evicted when it gets full
+	 */
+	RecordLog(ByteBuffer meta, ByteBuffer index, ByteBuffer data, boolean growable) {
+		this.meta = meta;
+		this.index = index;
+		this.data = data;
+		this.growable = growable;
+
+		view = data.duplicate();
+		size = data.capacity() & ~FLAGS;
+		mask = (index.capacity() >>> 3) - 1;
+
+		head = meta.getLong(HEAD);
+		tail = meta.getLong(TAIL);
+		count = meta.getInt(COUNT);
+	}
+
+	/**
+	 * A hash of a serialized key, or 0 for a null one.
+	 */
+	static int hash(ByteBuffer key) {
+		if (key == null)
+			return 0;
+
+		int h = 1;
+		int length = key.limit();
+		int i = 0;
+
+		for (; i + 8 <= length; i += 8) {
+			long bits = key.getLong(i);
+			h = h * 31 + (int) (bits ^ bits >>> 32);
+		}
+
+		for (; i < length; ++i) {
+			h = h * 31 + key.get(i);
+		}
+
+		// spread the bits, so that the high ones pick the segment and the low ones the slot
+		h *= 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @return  the value, {@link Memoizer#NULL} for a null one, or null if there is none
+	 */
+	Object get(ByteBuffer key, int hash, Codec<?> values) {
+		int slot = find(key, hash);
+
+		if (slot < 0)
+			return null;
+
+		int position = position(slot);
+		int word = data.getInt(position);
+
+		if ((word & REFERENCED) == 0)
+			data.putInt(position, word | REFERENCED);
+
+		if ((word & NULL_VALUE) != 0)
+			return Memoizer.NULL;
+
+		int start = position + HEADER + data.getInt(position + KEY_LENGTH);
+		view.clear();
+		view.position(start);
+		view.limit(start + data.getInt(position + VALUE_LENGTH));
+
+		return values.read(view);
+	}
+
+	/**
+	 * Stores a value, unless it is too large to fit.
+	 */
+	<V> void put(ByteBuffer key, int hash, Object value, Codec<V> values) {
+		int slot = find(key, hash);
+
+		if (slot >= 0)
+			kill(slot);
+
+		int flags = LIVE;
+		int keyBytes = key == null ? 0 : key.limit();
+		int valueBytes = 0;
+
+		if (key == null)
+			flags |= NULL_KEY;
+
+		if (value == Memoizer.NULL)
+			flags |= NULL_VALUE;
+		else
+			valueBytes = values.size(RecordLog.<V>cast(value));
+
+		long length = (long) HEADER + keyBytes + valueBytes + FLAGS & ~FLAGS;
+
+		if (length > size) {
+			save();
+			return;
+		}
+
+		makeRoom((int) length);
+		int position = (int) (head % size);
+
+		view.clear();
+		view.position(position + HEADER);
+
+		if (key != null) {
+			key.rewind();
+			view.put(key);
+		}
+
+		if (valueBytes > 0) {
+			view.limit(view.position() + valueBytes);
+			values.write(RecordLog.<V>cast(value), view);
+
+			if (view.hasRemaining())
+				throw new IllegalStateException("the value codec wrote fewer bytes than it said it would");
+		}
+
+		// only now is the record made visible
+		data.putInt(position + HASH, hash);
+		data.putInt(position + KEY_LENGTH, keyBytes);
+		data.putInt(position + VALUE_LENGTH, valueBytes);
+		data.putInt(position, (int) length | flags);
+		head += length;
+
+		insert(hash, position);
+		++count;
+		save();
+	}
+
+	void remove(ByteBuffer key, int hash) {
+		int slot = find(key, hash);
+
+		if (slot >= 0) {
+			kill(slot);
+			save();
+		}
+	}
+
+	void clear() {
+		if (growable) {
+			index = ByteBuffer.allocateDirect(MIN_SLOTS << 3);
+			mask = MIN_SLOTS - 1;
+		} else {
+			for (int i=0; i < index.capacity(); i += 8) {
+				index.putLong(i, 0);
+			}
+		}
+
+		head = tail = 0;
+		count = 0;
+		save();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> V cast(Object value) {
+		return (V) value;
+	}
+
+	private void save() {
+		meta.putLong(HEAD, head);
+		meta.putLong(TAIL, tail);
+		meta.putInt(COUNT, count);
+	}
+
+	private int position(int slot) {
+		return (int) index.getLong(slot << 3) - 1;
+	}
+
+	private int find(ByteBuffer key, int hash) {
+		for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			long entry = index.getLong(slot << 3);
+
+			if (entry == 0)
+				return -1;
+
+			if ((int) (entry >>> 32) == hash && matches((int) entry - 1, key))
+				return slot;
+		}
+	}
+
+	private boolean matches(int position, ByteBuffer key) {
+		int word = data.getInt(position);
+
+		if (key == null)
+			return (word & NULL_KEY) != 0;
+
+		int length = key.limit();
+
+		if ((word & NULL_KEY) != 0 || data.getInt(position + KEY_LENGTH) != length)
+			return false;
+
+		int start = position + HEADER;
+		int i = 0;
+
+		for (; i + 8 <= length; i += 8) {
+			if (data.getLong(start + i) != key.getLong(i))
+				return false;
+		}
+
+		for (; i < length; ++i) {
+			if (data.get(start + i) != key.get(i))
+				return false;
+		}
+
+		return true;
+	}
+
+	// drops a record, leaving its space to be reclaimed when the tail gets to it
+	private void kill(int slot) {
+		int position = position(slot);
+		data.putInt(position, data.getInt(position) & ~LIVE);
+		delete(slot);
+		--count;
+	}
+
+	private void makeRoom(int length) {
+		for (;;) {
+			if (head == tail)
+				head = tail = 0;
+
+			int position = (int) (head % size);
+			int padding = size - position < length ? size - position : 0;
+			boolean indexed = growable || (count + 1) * 2 <= mask + 1;
+
+			if (indexed && size - (head - tail) >= padding + length) {
+				if (padding > 0) {
+					data.putInt(position, padding);
+					head += padding;
+				}
+
+				return;
+			}
+
+			evict();
+		}
+	}
+
+	// takes the record at the tail of the log, moving it to the head if it has been used
+	private void evict() {
+		int position = (int) (tail % size);
+		int word = data.getInt(position);
+		int length = word & ~FLAGS;
+		tail += length;
+
+		if ((word & LIVE) == 0)
+			return;
+
+		int hash = data.getInt(position + HASH);
+		int slot = hash & mask;
+
+		while (position(slot) != position) {
+			slot = (slot + 1) & mask;
+		}
+
+		int to = (int) (head % size);
+		int padding = size - to < length ? size - to : 0;
+
+		if ((word & REFERENCED) == 0 || size - (head - tail) < padding + length) {
+			delete(slot);
+			--count;
+			return;
+		}
+
+		if (length > moving.length)
+			moving = new byte[Integer.highestOneBit(length) << 1];
+
+		view.clear();
+		view.position(position);
+		view.get(moving, 0, length);
+
+		if (padding > 0) {
+			data.putInt(to, padding);
+			head += padding;
+			to = 0;
+		}
+
+		view.clear();
+		view.position(to);
+		view.put(moving, 0, length);
+		data.putInt(to, word & ~REFERENCED);
+		head += length;
+
+		index.putLong(slot << 3, (long) hash << 32 | to + 1);
+	}
+
+	private void insert(int hash, int position) {
+		if (growable && (count + 1) * 2 > mask + 1)
+			grow();
+
+		int slot = hash & mask;
+
+		while (index.getLong(slot << 3) != 0) {
+			slot = (slot + 1) & mask;
+		}
+
+		index.putLong(slot << 3, (long) hash << 32 | position + 1);
+	}
+
+	private void grow() {
+		ByteBuffer old = index;
+		int slots = (mask + 1) << 1;
+
+		index = ByteBuffer.allocateDirect(slots << 3);
+		mask = slots - 1;
+
+		for (int i=0; i < old.capacity(); i += 8) {
+			long entry = old.getLong(i);
+
+			if (entry == 0)
+				continue;
+
+			int slot = (int) (entry >>> 32) & mask;
+
+			while (index.getLong(slot << 3) != 0) {
+				slot = (slot + 1) & mask;
+			}
+
+			index.putLong(slot << 3, entry);
+		}
+	}
+
+	// empties a slot, shifting back the entries after it which would no longer be found
+	private void delete(int slot) {
+		int hole = slot;
+
+		for (int next = (slot + 1) & mask; ; next = (next + 1) & mask) {
+			long entry = index.getLong(next << 3);
+
+			if (entry == 0)
+				break;
+
+			int home = (int) (entry >>> 32) & mask;
+			boolean reachable = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+
+			if (!reachable) {
+				index.putLong(hole << 3, entry);
+				hole = next;
+			}
+		}
+
+		index.putLong(hole << 3, 0);
+	}
+}
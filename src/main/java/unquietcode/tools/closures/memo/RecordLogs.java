@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import unquietcode.tools.closures.codec.Codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * The segments of a store keeping serialized records, and the codecs for them. Keys are
+ * serialized first, and then hashed to pick a segment.
+ */
+final class RecordLogs<K, V> {
+	private static final int MAX_SEGMENTS = 16;
+	private static final long MAX_SEGMENT_BYTES = 1 << 30;
+	private static final long MIN_SEGMENT_BYTES = 64 * 1024;
+	static final long MIN_CAPACITY = RecordLog.ALIGN * 64;
+
+	private final RecordLog logs[];
+	private final int segmentShift;
+	private final Codec<K> keys;
+	private final Codec<V> values;
+	private volatile boolean closed = false;
+
+	// each thread serializes keys into its own buffer, before taking any locks
+	private final ThreadLocal<ByteBuffer> scratch = new ThreadLocal<ByteBuffer>() {
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocate(64);
+		}
+	};
+
+
+	RecordLogs(RecordLog logs[], Codec<K> keys, Codec<V> values) {
+		if (keys == null)
+			throw new NullPointerException("keys");
+
+		if (values == null)
+			throw new NullPointerException("values");
+
+		this.logs = logs;
+		this.segmentShift = 32 - Integer.numberOfTrailingZeros(logs.length);
+		this.keys = keys;
+		this.values = values;
+	}
+
+	/*
+	 * The number of segments to split a capacity into. Fewer for small stores, and more for
+	 * huge ones, which a single buffer can't hold.
+	 */
+	static int segments(long capacity) {
+		if (capacity < MIN_CAPACITY)
+			throw new IllegalArgumentException("capacity must be at least " + MIN_CAPACITY + " bytes");
+
+		int count = Integer.highestOneBit((int) Math.max(1, Math.min(MAX_SEGMENTS, capacity / MIN_SEGMENT_BYTES)));
+
+		while (capacity / count > MAX_SEGMENT_BYTES) {
+			count <<= 1;
+		}
+
+		return count;
+	}
+
+	/*
+	 * The number of bytes of records in each segment.
+	 */
+	static int segmentSize(long capacity, int segments) {
+		return (int) (capacity / segments) & ~(RecordLog.ALIGN - 1);
+	}
+
+	Object get(Object k1, Object k2) {
+		ByteBuffer key = encode(k1, k2);
+		int hash = RecordLog.hash(key);
+		RecordLog log = log(hash);
+		log.lock();
+
+		try {
+			checkOpen();
+			return log.get(key, hash, values);
+		} finally {
+			log.unlock();
+		}
+	}
+
+	void put(Object k1, Object k2, Object value) {
+		if (value == null)
+			throw new NullPointerException("value");
+
+		ByteBuffer key = encode(k1, k2);
+		int hash = RecordLog.hash(key);
+		RecordLog log = log(hash);
+		log.lock();
+
+		try {
+			checkOpen();
+			log.put(key, hash, value, values);
+		} finally {
+			log.unlock();
+		}
+	}
+
+	void remove(Object k1, Object k2) {
+		ByteBuffer key = encode(k1, k2);
+		int hash = RecordLog.hash(key);
+		RecordLog log = log(hash);
+		log.lock();
+
+		try {
+			checkOpen();
+			log.remove(key, hash);
+		} finally {
+			log.unlock();
+		}
+	}
+
+	void clear() {
+		for (RecordLog log : logs) {
+			log.lock();
+
+			try {
+				checkOpen();
+				log.clear();
+			} finally {
+				log.unlock();
+			}
+		}
+	}
+
+	int size() {
+		int size = 0;
+
+		for (RecordLog log : logs) {
+			size += log.count;
+		}
+
+		return size;
+	}
+
+	/*
+	 * Waits for everything in progress, runs the given task, and makes the logs
+	 * refuse anything after that.
+	 */
+	void close(Runnable task) {
+		for (RecordLog log : logs) {
+			log.lock();
+		}
+
+		try {
+			closed = true;
+			task.run();
+		} finally {
+			for (RecordLog log : logs) {
+				log.unlock();
+			}
+		}
+	}
+
+	private void checkOpen() {
+		if (closed)
+			throw new IllegalStateException("the store is closed");
+	}
+
+	private RecordLog log(int hash) {
+		return segmentShift == 32 ? logs[0] : logs[hash >>> segmentShift];
+	}
+
+	// serializes the key into this thread's buffer, or returns null for a null key
+	@SuppressWarnings("unchecked")
+	private ByteBuffer encode(Object k1, Object k2) {
+		if (k2 != null)
+			throw new IllegalArgumentException("only closures taking one argument can be stored as bytes");
+
+		if (k1 == null)
+			return null;
+
+		int length = keys.size((K) k1);
+		ByteBuffer buffer = scratch.get();
+
+		if (length > buffer.capacity()) {
+			buffer = ByteBuffer.allocate(Integer.highestOneBit(length) << 1);
+			scratch.set(buffer);
+		}
+
+		buffer.clear();
+		buffer.limit(length);
+		keys.write((K) k1, buffer);
+
+		if (buffer.hasRemaining())
+			throw new IllegalStateException("the key codec wrote fewer bytes than it said it would");
+
+		return buffer;
+	}
+}
@@ -0,0 +1,610 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import unquietcode.tools.closures.*;
+import unquietcode.tools.closures.view.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Wraps closures so that their results are remembered for a limited time, for closures over
+ * data which changes slowly. A closure taking no arguments keeps one value, and the others
+ * keep one per set of arguments in the given store.
+ *
+ * Once a value has been held for the refresh fraction of its time to live, the next call
+ * starts running the closure again on the executor, and keeps returning the old value until
+ * the new one is ready. A value which has outlived its time to live is also returned as is
+ * while it is being replaced, so no caller ever waits because a value has expired.
+ *
+ * Optionally, a limit can be put on how stale a value may get, for when an old value is worse
+ * than a slow call. A value past the limit is not returned, and the caller waits for a fresh
+ * one instead. Callers only wait when there is no usable value, and then concurrent callers
+ * with the same arguments share a single run of the closure.
+ *
+ * If a refresh fails, the old value is kept and the next call tries again. The failure is
+ * counted and kept for {@link #getLastRefreshFailure()}, rather than thrown into the executor.
+ */
+public final class RefreshingMemoizer {
+	private static final AtomicIntegerFieldUpdater<Stamped> REFRESHING
+		= AtomicIntegerFieldUpdater.newUpdater(Stamped.class, "refreshing");
+
+	private static final Ticker SYSTEM_TICKER = new Ticker() {
+		public long read() {
+			return System.nanoTime();
+		}
+	};
+
+	static final long NO_LIMIT = -1;        // no limit on staleness
+
+	private final long refreshNanos;
+	private final long maximumAgeNanos;     // past which a value is never returned
+	private final Executor executor;
+	private final Ticker ticker;
+
+	private final AtomicLong refreshFailures = new AtomicLong();
+	private volatile Throwable lastRefreshFailure;
+
+
+	/**
+	 * @param timeToLive     how long a value is fresh for
+	 * @param unit           the unit of the time to live
+	 * @param refreshAfter   the fraction of the time to live after which a value is refreshed,
+	 *                       greater than 0 and at most 1
+	 * @param executor       where refreshes are run
+	 */
+	public RefreshingMemoizer(long timeToLive, TimeUnit unit, double refreshAfter, Executor executor) {
+		this(timeToLive, NO_LIMIT, unit, refreshAfter, executor, SYSTEM_TICKER);
+	}
+
+	/**
+	 * @param timeToLive     how long a value is fresh for
+	 * @param maxStaleness   how much longer than its time to live a value may still be returned
+	 *                       while it is being refreshed, after which callers wait for a new one
+	 * @param unit           the unit of both times
+	 * @param refreshAfter   the fraction of the time to live after which a value is refreshed,
+	 *                       greater than 0 and at most 1
+	 * @param executor       where refreshes are run
+	 */
+	public RefreshingMemoizer(long timeToLive, long maxStaleness, TimeUnit unit, double refreshAfter, Executor executor) {
+		this(timeToLive, checkStaleness(maxStaleness), unit, refreshAfter, executor, SYSTEM_TICKER);
+	}
+
+	/*
+	 * Takes the source of time, so that tests can move it along themselves.
+	 */
+	RefreshingMemoizer(long timeToLive, long maxStaleness, TimeUnit unit, double refreshAfter, Executor executor, Ticker ticker) {
+		if (timeToLive <= 0)
+			throw new IllegalArgumentException("time to live must be positive");
+
+		if (!(refreshAfter > 0 && refreshAfter <= 1))
+			throw new IllegalArgumentException("refresh fraction must be greater than 0 and at most 1");
+
+		if (unit == null)
+			throw new NullPointerException("unit");
+
+		if (executor == null)
+			throw new NullPointerException("executor");
+
+		if (ticker == null)
+			throw new NullPointerException("ticker");
+
+		long timeToLiveNanos = unit.toNanos(timeToLive);
+		this.refreshNanos = Math.max(1, (long) (timeToLiveNanos * refreshAfter));
+
+		if (maxStaleness == NO_LIMIT) {
+			this.maximumAgeNanos = Long.MAX_VALUE;
+		} else {
+			long maximumAge = timeToLiveNanos + unit.toNanos(maxStaleness);
+			this.maximumAgeNanos = maximumAge < 0 ? Long.MAX_VALUE : maximumAge;
+		}
+
+		this.executor = executor;
+		this.ticker = ticker;
+	}
+
+	/**
+	 * Refreshes values once they are three quarters of the way through their time to live.
+	 */
+	public RefreshingMemoizer(long timeToLive, TimeUnit unit, Executor executor) {
+		this(timeToLive, unit, 0.75, executor);
+	}
+
+	private static long checkStaleness(long maxStaleness) {
+		if (maxStaleness < 0)
+			throw new IllegalArgumentException("staleness limit must not be negative");
+
+		return maxStaleness;
+	}
+
+	/**
+	 * @return the number of background refreshes which have failed
+	 */
+	public long getRefreshFailures() {
+		return refreshFailures.get();
+	}
+
+	/**
+	 * @return the exception from the most recent failed refresh, or null if none has failed
+	 */
+	public Throwable getLastRefreshFailure() {
+		return lastRefreshFailure;
+	}
+
+	public <Z> Closure0View<Z> memoize(Closure0<Z> closure) {
+		return memoize(closure.getView());
+	}
+
+	public <Z> Closure0View<Z> memoize(Closure0View<Z> view) {
+		return new Timed0<Z>(view);
+	}
+
+	public <Z, A> Closure1View<Z, A> memoize(Closure1<Z, A> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public <Z, A> Closure1View<Z, A> memoize(Closure1View<Z, A> view, MemoStore<Object> store) {
+		return new Timed1<Z, A>(view, store);
+	}
+
+	public <Z, A,B> Closure2View<Z, A,B> memoize(Closure2<Z, A,B> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public <Z, A,B> Closure2View<Z, A,B> memoize(Closure2View<Z, A,B> view, MemoStore<Object> store) {
+		return new Timed2<Z, A,B>(view, store);
+	}
+
+	public <Z, A,B,C> Closure3View<Z, A,B,C> memoize(Closure3<Z, A,B,C> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public <Z, A,B,C> Closure3View<Z, A,B,C> memoize(Closure3View<Z, A,B,C> view, MemoStore<Object> store) {
+		return new Timed3<Z, A,B,C>(view, store);
+	}
+
+	public <Z, A,B,C,D> Closure4View<Z, A,B,C,D> memoize(Closure4<Z, A,B,C,D> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public <Z, A,B,C,D> Closure4View<Z, A,B,C,D> memoize(Closure4View<Z, A,B,C,D> view, MemoStore<Object> store) {
+		return new Timed4<Z, A,B,C,D>(view, store);
+	}
+
+	public <Z, A,B,C,D,E> Closure5View<Z, A,B,C,D,E> memoize(Closure5<Z, A,B,C,D,E> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public <Z, A,B,C,D,E> Closure5View<Z, A,B,C,D,E> memoize(Closure5View<Z, A,B,C,D,E> view, MemoStore<Object> store) {
+		return new Timed5<Z, A,B,C,D,E>(view, store);
+	}
+
+	public <Z, A,B,C,D,E,F> Closure6View<Z, A,B,C,D,E,F> memoize(Closure6<Z, A,B,C,D,E,F> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public <Z, A,B,C,D,E,F> Closure6View<Z, A,B,C,D,E,F> memoize(Closure6View<Z, A,B,C,D,E,F> view, MemoStore<Object> store) {
+		return new Timed6<Z, A,B,C,D,E,F>(view, store);
+	}
+
+	public <Z, A,B,C,D,E,F,G> Closure7View<Z, A,B,C,D,E,F,G> memoize(Closure7<Z, A,B,C,D,E,F,G> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public <Z, A,B,C,D,E,F,G> Closure7View<Z, A,B,C,D,E,F,G> memoize(Closure7View<Z, A,B,C,D,E,F,G> view, MemoStore<Object> store) {
+		return new Timed7<Z, A,B,C,D,E,F,G>(view, store);
+	}
+
+	public <Z, A,B,C,D,E,F,G,H> Closure8View<Z, A,B,C,D,E,F,G,H> memoize(Closure8<Z, A,B,C,D,E,F,G,H> closure, MemoStore<Object> store) {
+		return memoize(closure.getView(), store);
+	}
+
+	public <Z, A,B,C,D,E,F,G,H> Closure8View<Z, A,B,C,D,E,F,G,H> memoize(Closure8View<Z, A,B,C,D,E,F,G,H> view, MemoStore<Object> store) {
+		return new Timed8<Z, A,B,C,D,E,F,G,H>(view, store);
+	}
+
+	/*
+	 * Gets the value for the key, running the closure if there is none yet or the one there
+	 * is too stale to return, and starting a refresh if it is getting old.
+	 */
+	@SuppressWarnings("unchecked")
+	private <Z> Z run(final MemoStore<Object> store, ConcurrentHashMap<Object, CompletableFuture<Object>> flights,
+	                  final Object k1, final Object k2, final SingleFlight.Call<Z> call) {
+		final Stamped stamped = (Stamped) store.get(k1, k2);
+		final long now = ticker.read();
+
+		if (stamped == null || now - stamped.loaded >= maximumAgeNanos) {
+			return SingleFlight.run(flights, new ArgumentsKey(k1, k2), new SingleFlight.Call<Z>() {
+				public Z run() {
+					// someone else may have just finished loading it
+					Stamped current = (Stamped) store.get(k1, k2);
+
+					if (current != null && current != stamped && ticker.read() - current.loaded < maximumAgeNanos)
+						return (Z) current.value;
+
+					Z result = call.run();
+					store.put(k1, k2, new Stamped(result, ticker.read()));
+					return result;
+				}
+			});
+		}
+
+		if (now - stamped.loaded >= refreshNanos && REFRESHING.compareAndSet(stamped, 0, 1)) {
+			try {
+				executor.execute(new Runnable() {
+					public void run() {
+						try {
+							Object result = call.run();
+							store.put(k1, k2, new Stamped(result, ticker.read()));
+						} catch (Throwable ex) {
+							refreshFailures.incrementAndGet();
+							lastRefreshFailure = ex;
+							REFRESHING.set(stamped, 0);    // the next call tries again
+						}
+					}
+				});
+			} catch (RejectedExecutionException ex) {
+				REFRESHING.set(stamped, 0);    // try again on a later call
+			}
+		}
+
+		return (Z) stamped.value;
+	}
+
+	private static <T> T check(T value, String name) {
+		if (value == null)
+			throw new NullPointerException(name);
+
+		return value;
+	}
+
+	// a source of time in nanoseconds
+	interface Ticker {
+		long read();
+	}
+
+	// a value, and when it was made
+	private static final class Stamped {
+		final Object value;
+		final long loaded;
+		volatile int refreshing;
+
+		Stamped(Object value, long loaded) {
+			this.value = value;
+			this.loaded = loaded;
+		}
+	}
+
+	// the one value of a closure taking no arguments
+	private static final class Slot implements MemoStore<Object> {
+		private volatile Object value;
+
+		public Object get(Object k1, Object k2) {
+			return value;
+		}
+
+		public void put(Object k1, Object k2, Object value) {
+			this.value = value;
+		}
+
+		public void remove(Object k1, Object k2) {
+			value = null;
+		}
+
+		public void clear() {
+			value = null;
+		}
+
+		public int size() {
+			return value == null ? 0 : 1;
+		}
+	}
+
+	private final class Timed0<Z> implements Closure0View<Z>, ClosureView<Z> {
+		private final MemoStore<Object> slot = new Slot();
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+		private final Closure0View<Z> view;
+
+		Timed0(Closure0View<Z> view) {
+			this.view = check(view, "view");
+		}
+
+		public Z run() {
+			return RefreshingMemoizer.this.run(slot, flights, null, null, new SingleFlight.Call<Z>() {
+				public Z run() {
+					return view.run();
+				}
+			});
+		}
+
+		public Z run(Object...args) {
+			return run();
+		}
+
+		public int getExpectedArgs() {
+			return 0;
+		}
+	}
+
+	private final class Timed1<Z, A> implements Closure1View<Z, A>, ClosureView<Z> {
+		private final Closure1View<Z, A> view;
+		private final MemoStore<Object> store;
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+
+		Timed1(Closure1View<Z, A> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(final A p1) {
+			return RefreshingMemoizer.this.run(store, flights, p1, null, new SingleFlight.Call<Z>() {
+				public Z run() {
+					return view.run(p1);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0]);
+		}
+
+		public int getExpectedArgs() {
+			return 1;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private final class Timed2<Z, A,B> implements Closure2View<Z, A,B>, ClosureView<Z> {
+		private final Closure2View<Z, A,B> view;
+		private final MemoStore<Object> store;
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+
+		Timed2(Closure2View<Z, A,B> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(final A p1, final B p2) {
+			return RefreshingMemoizer.this.run(store, flights, p1, p2, new SingleFlight.Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1]);
+		}
+
+		public int getExpectedArgs() {
+			return 2;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private final class Timed3<Z, A,B,C> implements Closure3View<Z, A,B,C>, ClosureView<Z> {
+		private final Closure3View<Z, A,B,C> view;
+		private final MemoStore<Object> store;
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+
+		Timed3(Closure3View<Z, A,B,C> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(final A p1, final B p2, final C p3) {
+			return RefreshingMemoizer.this.run(store, flights, new ArgumentsKey(p1, p2, p3), null, new SingleFlight.Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2]);
+		}
+
+		public int getExpectedArgs() {
+			return 3;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private final class Timed4<Z, A,B,C,D> implements Closure4View<Z, A,B,C,D>, ClosureView<Z> {
+		private final Closure4View<Z, A,B,C,D> view;
+		private final MemoStore<Object> store;
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+
+		Timed4(Closure4View<Z, A,B,C,D> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(final A p1, final B p2, final C p3, final D p4) {
+			return RefreshingMemoizer.this.run(store, flights, new ArgumentsKey(p1, p2, p3, p4), null, new SingleFlight.Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3, p4);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3]);
+		}
+
+		public int getExpectedArgs() {
+			return 4;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private final class Timed5<Z, A,B,C,D,E> implements Closure5View<Z, A,B,C,D,E>, ClosureView<Z> {
+		private final Closure5View<Z, A,B,C,D,E> view;
+		private final MemoStore<Object> store;
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+
+		Timed5(Closure5View<Z, A,B,C,D,E> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(final A p1, final B p2, final C p3, final D p4, final E p5) {
+			return RefreshingMemoizer.this.run(store, flights, new ArgumentsKey(p1, p2, p3, p4, p5), null, new SingleFlight.Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3, p4, p5);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4]);
+		}
+
+		public int getExpectedArgs() {
+			return 5;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private final class Timed6<Z, A,B,C,D,E,F> implements Closure6View<Z, A,B,C,D,E,F>, ClosureView<Z> {
+		private final Closure6View<Z, A,B,C,D,E,F> view;
+		private final MemoStore<Object> store;
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+
+		Timed6(Closure6View<Z, A,B,C,D,E,F> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(final A p1, final B p2, final C p3, final D p4, final E p5, final F p6) {
+			return RefreshingMemoizer.this.run(store, flights, new ArgumentsKey(p1, p2, p3, p4, p5, p6), null, new SingleFlight.Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3, p4, p5, p6);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5]);
+		}
+
+		public int getExpectedArgs() {
+			return 6;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private final class Timed7<Z, A,B,C,D,E,F,G> implements Closure7View<Z, A,B,C,D,E,F,G>, ClosureView<Z> {
+		private final Closure7View<Z, A,B,C,D,E,F,G> view;
+		private final MemoStore<Object> store;
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+
+		Timed7(Closure7View<Z, A,B,C,D,E,F,G> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(final A p1, final B p2, final C p3, final D p4, final E p5, final F p6, final G p7) {
+			return RefreshingMemoizer.this.run(store, flights, new ArgumentsKey(p1, p2, p3, p4, p5, p6, p7), null, new SingleFlight.Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3, p4, p5, p6, p7);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5], (G) args[6]);
+		}
+
+		public int getExpectedArgs() {
+			return 7;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private final class Timed8<Z, A,B,C,D,E,F,G,H> implements Closure8View<Z, A,B,C,D,E,F,G,H>, ClosureView<Z> {
+		private final Closure8View<Z, A,B,C,D,E,F,G,H> view;
+		private final MemoStore<Object> store;
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+
+		Timed8(Closure8View<Z, A,B,C,D,E,F,G,H> view, MemoStore<Object> store) {
+			this.view = check(view, "view");
+			this.store = check(store, "store");
+		}
+
+		public Z run(final A p1, final B p2, final C p3, final D p4, final E p5, final F p6, final G p7, final H p8) {
+			return RefreshingMemoizer.this.run(store, flights, new ArgumentsKey(p1, p2, p3, p4, p5, p6, p7, p8), null, new SingleFlight.Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3, p4, p5, p6, p7, p8);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5], (G) args[6], (H) args[7]);
+		}
+
+		public int getExpectedArgs() {
+			return 8;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+}
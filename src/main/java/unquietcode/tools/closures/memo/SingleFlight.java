@@ -0,0 +1,436 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import unquietcode.tools.closures.*;
+import unquietcode.tools.closures.view.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Wraps closures so that concurrent calls with equal arguments are collapsed into one. The
+ * first caller runs the closure, and everyone who asks for the same arguments while it is
+ * running waits for and shares its result, or its exception. Once the run finishes, the next
+ * call starts a new one; nothing is remembered. Put a memoized view behind it to also keep
+ * the results.
+ *
+ * Finding a run in progress is a lock-free lookup. Waiting callers are parked rather than
+ * holding a monitor, so they are cheap to have many of, including on virtual threads.
+ *
+ * A closure which calls back into its own collapsed view with the same arguments, on the same
+ * thread, will wait on itself forever.
+ */
+public final class SingleFlight {
+	private static final Object NULL = new Object();    // stands in for null arguments
+
+	private SingleFlight() { }
+
+	public static <Z, A> Closure1View<Z, A> collapse(Closure1<Z, A> closure) {
+		return collapse(closure.getView());
+	}
+
+	public static <Z, A> Closure1View<Z, A> collapse(Closure1View<Z, A> view) {
+		return new Flight1<Z, A>(view);
+	}
+
+	public static <Z, A,B> Closure2View<Z, A,B> collapse(Closure2<Z, A,B> closure) {
+		return collapse(closure.getView());
+	}
+
+	public static <Z, A,B> Closure2View<Z, A,B> collapse(Closure2View<Z, A,B> view) {
+		return new Flight2<Z, A,B>(view);
+	}
+
+	public static <Z, A,B,C> Closure3View<Z, A,B,C> collapse(Closure3<Z, A,B,C> closure) {
+		return collapse(closure.getView());
+	}
+
+	public static <Z, A,B,C> Closure3View<Z, A,B,C> collapse(Closure3View<Z, A,B,C> view) {
+		return new Flight3<Z, A,B,C>(view);
+	}
+
+	public static <Z, A,B,C,D> Closure4View<Z, A,B,C,D> collapse(Closure4<Z, A,B,C,D> closure) {
+		return collapse(closure.getView());
+	}
+
+	public static <Z, A,B,C,D> Closure4View<Z, A,B,C,D> collapse(Closure4View<Z, A,B,C,D> view) {
+		return new Flight4<Z, A,B,C,D>(view);
+	}
+
+	public static <Z, A,B,C,D,E> Closure5View<Z, A,B,C,D,E> collapse(Closure5<Z, A,B,C,D,E> closure) {
+		return collapse(closure.getView());
+	}
+
+	public static <Z, A,B,C,D,E> Closure5View<Z, A,B,C,D,E> collapse(Closure5View<Z, A,B,C,D,E> view) {
+		return new Flight5<Z, A,B,C,D,E>(view);
+	}
+
+	public static <Z, A,B,C,D,E,F> Closure6View<Z, A,B,C,D,E,F> collapse(Closure6<Z, A,B,C,D,E,F> closure) {
+		return collapse(closure.getView());
+	}
+
+	public static <Z, A,B,C,D,E,F> Closure6View<Z, A,B,C,D,E,F> collapse(Closure6View<Z, A,B,C,D,E,F> view) {
+		return new Flight6<Z, A,B,C,D,E,F>(view);
+	}
+
+	public static <Z, A,B,C,D,E,F,G> Closure7View<Z, A,B,C,D,E,F,G> collapse(Closure7<Z, A,B,C,D,E,F,G> closure) {
+		return collapse(closure.getView());
+	}
+
+	public static <Z, A,B,C,D,E,F,G> Closure7View<Z, A,B,C,D,E,F,G> collapse(Closure7View<Z, A,B,C,D,E,F,G> view) {
+		return new Flight7<Z, A,B,C,D,E,F,G>(view);
+	}
+
+	public static <Z, A,B,C,D,E,F,G,H> Closure8View<Z, A,B,C,D,E,F,G,H> collapse(Closure8<Z, A,B,C,D,E,F,G,H> closure) {
+		return collapse(closure.getView());
+	}
+
+	public static <Z, A,B,C,D,E,F,G,H> Closure8View<Z, A,B,C,D,E,F,G,H> collapse(Closure8View<Z, A,B,C,D,E,F,G,H> view) {
+		return new Flight8<Z, A,B,C,D,E,F,G,H>(view);
+	}
+
+	private static Object key(Object arg) {
+		return arg == null ? NULL : arg;
+	}
+
+	/*
+	 * Runs the closure, unless a run with the same key is already in progress,
+	 * in which case the result of that run is used. Also used by RefreshingMemoizer.
+	 */
+	@SuppressWarnings("unchecked")
+	static <Z> Z run(ConcurrentHashMap<Object, CompletableFuture<Object>> flights, Object key, Call<Z> call) {
+		CompletableFuture<Object> flight = flights.get(key);
+
+		if (flight == null) {
+			CompletableFuture<Object> mine = new CompletableFuture<Object>();
+			flight = flights.putIfAbsent(key, mine);
+
+			if (flight == null) {
+				try {
+					Z result = call.run();
+					mine.complete(result);
+					return result;
+				} catch (Throwable ex) {
+					// anything escaping the call, checked or not, must release the waiters
+					mine.completeExceptionally(ex);
+					throw SingleFlight.<RuntimeException>rethrow(ex);
+				} finally {
+					flights.remove(key, mine);
+				}
+			}
+		}
+
+		try {
+			return (Z) flight.join();
+		} catch (CompletionException ex) {
+			Throwable cause = ex.getCause();
+
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new ClosureException("Error while executing closure.", cause);
+		}
+	}
+
+	/*
+	 * Rethrows the throwable as-is, letting a checked exception thrown
+	 * sneakily by the closure pass through unwrapped.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends Throwable> T rethrow(Throwable ex) throws T {
+		throw (T) ex;
+	}
+
+	interface Call<Z> {
+		Z run();
+	}
+
+	private static final class Flight1<Z, A> implements Closure1View<Z, A>, ClosureView<Z> {
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+		private final Closure1View<Z, A> view;
+
+		Flight1(Closure1View<Z, A> view) {
+			if (view == null)
+				throw new NullPointerException("view");
+
+			this.view = view;
+		}
+
+		public Z run(final A p1) {
+			return SingleFlight.run(flights, key(p1), new Call<Z>() {
+				public Z run() {
+					return view.run(p1);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0]);
+		}
+
+		public int getExpectedArgs() {
+			return 1;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Flight2<Z, A,B> implements Closure2View<Z, A,B>, ClosureView<Z> {
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+		private final Closure2View<Z, A,B> view;
+
+		Flight2(Closure2View<Z, A,B> view) {
+			if (view == null)
+				throw new NullPointerException("view");
+
+			this.view = view;
+		}
+
+		public Z run(final A p1, final B p2) {
+			return SingleFlight.run(flights, new ArgumentsKey(p1, p2), new Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1]);
+		}
+
+		public int getExpectedArgs() {
+			return 2;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Flight3<Z, A,B,C> implements Closure3View<Z, A,B,C>, ClosureView<Z> {
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+		private final Closure3View<Z, A,B,C> view;
+
+		Flight3(Closure3View<Z, A,B,C> view) {
+			if (view == null)
+				throw new NullPointerException("view");
+
+			this.view = view;
+		}
+
+		public Z run(final A p1, final B p2, final C p3) {
+			return SingleFlight.run(flights, new ArgumentsKey(p1, p2, p3), new Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2]);
+		}
+
+		public int getExpectedArgs() {
+			return 3;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Flight4<Z, A,B,C,D> implements Closure4View<Z, A,B,C,D>, ClosureView<Z> {
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+		private final Closure4View<Z, A,B,C,D> view;
+
+		Flight4(Closure4View<Z, A,B,C,D> view) {
+			if (view == null)
+				throw new NullPointerException("view");
+
+			this.view = view;
+		}
+
+		public Z run(final A p1, final B p2, final C p3, final D p4) {
+			return SingleFlight.run(flights, new ArgumentsKey(p1, p2, p3, p4), new Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3, p4);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3]);
+		}
+
+		public int getExpectedArgs() {
+			return 4;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Flight5<Z, A,B,C,D,E> implements Closure5View<Z, A,B,C,D,E>, ClosureView<Z> {
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+		private final Closure5View<Z, A,B,C,D,E> view;
+
+		Flight5(Closure5View<Z, A,B,C,D,E> view) {
+			if (view == null)
+				throw new NullPointerException("view");
+
+			this.view = view;
+		}
+
+		public Z run(final A p1, final B p2, final C p3, final D p4, final E p5) {
+			return SingleFlight.run(flights, new ArgumentsKey(p1, p2, p3, p4, p5), new Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3, p4, p5);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4]);
+		}
+
+		public int getExpectedArgs() {
+			return 5;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Flight6<Z, A,B,C,D,E,F> implements Closure6View<Z, A,B,C,D,E,F>, ClosureView<Z> {
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+		private final Closure6View<Z, A,B,C,D,E,F> view;
+
+		Flight6(Closure6View<Z, A,B,C,D,E,F> view) {
+			if (view == null)
+				throw new NullPointerException("view");
+
+			this.view = view;
+		}
+
+		public Z run(final A p1, final B p2, final C p3, final D p4, final E p5, final F p6) {
+			return SingleFlight.run(flights, new ArgumentsKey(p1, p2, p3, p4, p5, p6), new Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3, p4, p5, p6);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5]);
+		}
+
+		public int getExpectedArgs() {
+			return 6;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Flight7<Z, A,B,C,D,E,F,G> implements Closure7View<Z, A,B,C,D,E,F,G>, ClosureView<Z> {
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+		private final Closure7View<Z, A,B,C,D,E,F,G> view;
+
+		Flight7(Closure7View<Z, A,B,C,D,E,F,G> view) {
+			if (view == null)
+				throw new NullPointerException("view");
+
+			this.view = view;
+		}
+
+		public Z run(final A p1, final B p2, final C p3, final D p4, final E p5, final F p6, final G p7) {
+			return SingleFlight.run(flights, new ArgumentsKey(p1, p2, p3, p4, p5, p6, p7), new Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3, p4, p5, p6, p7);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5], (G) args[6]);
+		}
+
+		public int getExpectedArgs() {
+			return 7;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+
+	private static final class Flight8<Z, A,B,C,D,E,F,G,H> implements Closure8View<Z, A,B,C,D,E,F,G,H>, ClosureView<Z> {
+		private final ConcurrentHashMap<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+		private final Closure8View<Z, A,B,C,D,E,F,G,H> view;
+
+		Flight8(Closure8View<Z, A,B,C,D,E,F,G,H> view) {
+			if (view == null)
+				throw new NullPointerException("view");
+
+			this.view = view;
+		}
+
+		public Z run(final A p1, final B p2, final C p3, final D p4, final E p5, final F p6, final G p7, final H p8) {
+			return SingleFlight.run(flights, new ArgumentsKey(p1, p2, p3, p4, p5, p6, p7, p8), new Call<Z>() {
+				public Z run() {
+					return view.run(p1, p2, p3, p4, p5, p6, p7, p8);
+				}
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return run((A) args[0], (B) args[1], (C) args[2], (D) args[3], (E) args[4], (F) args[5], (G) args[6], (H) args[7]);
+		}
+
+		public int getExpectedArgs() {
+			return 8;
+		}
+
+		public Class[] getArgumentTypes() {
+			return view.getArgumentTypes();
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Window TinyLFU. New entries land in a small LRU window. Entries pushed out of the window
+ * have to win a place in the main space, by having been asked for more often than the entry
+ * they would replace. The main space is a segmented LRU: entries start on probation, and are
+ * moved to the protected part the next time they are used.
+ */
+final class TinyLfuTracker extends Tracker {
+	private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+	private final AccessQueue window = new AccessQueue();
+	private final AccessQueue probation = new AccessQueue();
+	private final AccessQueue protectedQueue = new AccessQueue();
+	private final FrequencySketch sketch;
+
+	private final int windowCapacity;
+	private final int mainCapacity;
+	private final int protectedCapacity;
+
+
+	TinyLfuTracker(int capacity) {
+		windowCapacity = Math.max(1, capacity / 100);
+		mainCapacity = capacity - windowCapacity;
+		protectedCapacity = mainCapacity * 4 / 5;
+		sketch = new FrequencySketch(capacity);
+	}
+
+	void record(int hash) {
+		sketch.increment(hash);
+	}
+
+	void onHit(Entry entry) {
+		switch (entry.queue) {
+			case WINDOW:
+				window.moveToLast(entry);
+				break;
+
+			case PROBATION:
+				probation.remove(entry);
+				entry.queue = PROTECTED;
+				protectedQueue.addLast(entry);
+
+				if (protectedQueue.size() > protectedCapacity) {
+					Entry demoted = protectedQueue.pollFirst();
+					demoted.queue = PROBATION;
+					probation.addLast(demoted);
+				}
+				break;
+
+			case PROTECTED:
+				protectedQueue.moveToLast(entry);
+				break;
+		}
+	}
+
+	Entry onInsert(Entry entry) {
+		entry.queue = WINDOW;
+		window.addLast(entry);
+
+		if (window.size() <= windowCapacity)
+			return null;
+
+		Entry candidate = window.pollFirst();
+
+		if (probation.size() + protectedQueue.size() < mainCapacity) {
+			candidate.queue = PROBATION;
+			probation.addLast(candidate);
+			return null;
+		}
+
+		Entry victim = probation.peekFirst();
+		AccessQueue from = probation;
+
+		if (victim == null) {
+			victim = protectedQueue.peekFirst();
+			from = protectedQueue;
+		}
+
+		if (victim == null || sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash))
+			return candidate;
+
+		from.remove(victim);
+		candidate.queue = PROBATION;
+		probation.addLast(candidate);
+
+		return victim;
+	}
+
+	void onRemove(Entry entry) {
+		switch (entry.queue) {
+			case WINDOW:    window.remove(entry); break;
+			case PROBATION: probation.remove(entry); break;
+			case PROTECTED: protectedQueue.remove(entry); break;
+		}
+	}
+
+	void clear() {
+		window.clear();
+		probation.clear();
+		protectedQueue.clear();
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * The eviction bookkeeping for one segment of a store. Every method is called
+ * while holding the segment's lock.
+ */
+abstract class Tracker {
+	/*
+	 * A key was looked up, whether or not it was found.
+	 */
+	void record(int hash) {
+		// nothing by default
+	}
+
+	abstract void onHit(Entry entry);
+
+	/*
+	 * Takes in a new entry, and returns the entry which should be evicted to make room for it,
+	 * which may be the new entry itself, or null if there was room.
+	 */
+	abstract Entry onInsert(Entry entry);
+
+	abstract void onRemove(Entry entry);
+
+	abstract void clear();
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.profiling;
+
+import unquietcode.tools.closures.ClosureException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Collects the number of runs, the number of errors, and a latency histogram for each closure
+ * in a chain, by position. Give one to a chain with setProfiler to start recording, and take it
+ * away again (by passing null) to stop. A chain without a profiler pays a single null check per
+ * run.
+ *
+ * Recording is safe from any number of threads at once. Profilers can also be registered with
+ * the platform MBean server, to be read through JMX.
+ */
+public class ChainProfiler implements ChainProfilerMXBean {
+	private static final Stage NONE[] = {};
+
+	private volatile Stage stages[] = NONE;
+	private ObjectName registered;
+
+
+	/**
+	 * Records one successful run of the closure at a position.
+	 *
+	 * @param stage  the position of the closure in the chain
+	 * @param nanos  how long the run took
+	 */
+	public void record(int stage, long nanos) {
+		Stage s = stage(stage);
+		s.invocations.increment();
+		s.latency.record(nanos);
+	}
+
+	/**
+	 * Records one failed run of the closure at a position.
+	 *
+	 * @param stage  the position of the closure in the chain
+	 * @param nanos  how long the run took before failing
+	 */
+	public void recordError(int stage, long nanos) {
+		Stage s = stage(stage);
+		s.invocations.increment();
+		s.errors.increment();
+		s.latency.record(nanos);
+	}
+
+	/**
+	 * @return  what has been recorded so far, one entry for each position
+	 */
+	public List<StageStatistics> snapshot() {
+		Stage current[] = stages;
+		List<StageStatistics> statistics = new ArrayList<StageStatistics>(current.length);
+
+		for (int i=0; i < current.length; ++i) {
+			Stage s = current[i];
+			statistics.add(new StageStatistics(i, s.invocations.sum(), s.errors.sum(), s.latency.snapshot()));
+		}
+
+		return Collections.unmodifiableList(statistics);
+	}
+
+	/**
+	 * Throws away everything recorded so far.
+	 */
+	public synchronized void reset() {
+		stages = NONE;
+	}
+
+	/**
+	 * Registers this profiler with the platform MBean server.
+	 *
+	 * @param name  distinguishes this profiler's chain from others
+	 * @return      the name it was registered under
+	 */
+	public synchronized ObjectName register(String name) {
+		if (registered != null)
+			throw new ClosureException("The profiler is already registered as " + registered);
+
+		try {
+			ObjectName objectName = new ObjectName("unquietcode.tools.closures:type=ChainProfiler,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+			registered = objectName;
+		} catch (JMException ex) {
+			throw new ClosureException("Could not register the profiler.", ex);
+		}
+
+		return registered;
+	}
+
+	public synchronized void unregister() {
+		if (registered == null)
+			return;
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		try {
+			server.unregisterMBean(registered);
+		} catch (JMException ex) {
+			throw new ClosureException("Could not unregister the profiler.", ex);
+		} finally {
+			registered = null;
+		}
+	}
+
+	private Stage stage(int index) {
+		Stage current[] = stages;
+
+		if (index < current.length)
+			return current[index];
+
+		return grow(index);
+	}
+
+	private synchronized Stage grow(int index) {
+		Stage current[] = stages;
+
+		if (index >= current.length) {
+			Stage grown[] = Arrays.copyOf(current, index + 1);
+
+			for (int i=current.length; i < grown.length; ++i) {
+				grown[i] = new Stage();
+			}
+
+			stages = current = grown;
+		}
+
+		return current[index];
+	}
+
+	private static final class Stage {
+		final LongAdder invocations = new LongAdder();
+		final LongAdder errors = new LongAdder();
+		final LatencyHistogram latency = new LatencyHistogram();
+	}
+
+	// the attributes seen through JMX
+
+	public int getStageCount() {
+		return stages.length;
+	}
+
+	public long[] getInvocations() {
+		List<StageStatistics> statistics = snapshot();
+		long values[] = new long[statistics.size()];
+
+		for (int i=0; i < values.length; ++i) {
+			values[i] = statistics.get(i).getInvocations();
+		}
+
+		return values;
+	}
+
+	public long[] getErrors() {
+		List<StageStatistics> statistics = snapshot();
+		long values[] = new long[statistics.size()];
+
+		for (int i=0; i < values.length; ++i) {
+			values[i] = statistics.get(i).getErrors();
+		}
+
+		return values;
+	}
+
+	public double[] getMeanNanos() {
+		List<StageStatistics> statistics = snapshot();
+		double values[] = new double[statistics.size()];
+
+		for (int i=0; i < values.length; ++i) {
+			values[i] = statistics.get(i).getLatency().getMean();
+		}
+
+		return values;
+	}
+
+	public long[] getMedianNanos() {
+		return percentiles(50);
+	}
+
+	public long[] get99thPercentileNanos() {
+		return percentiles(99);
+	}
+
+	public long[] getMaxNanos() {
+		List<StageStatistics> statistics = snapshot();
+		long values[] = new long[statistics.size()];
+
+		for (int i=0; i < values.length; ++i) {
+			values[i] = statistics.get(i).getLatency().getMax();
+		}
+
+		return values;
+	}
+
+	private long[] percentiles(double percentile) {
+		List<StageStatistics> statistics = snapshot();
+		long values[] = new long[statistics.size()];
+
+		for (int i=0; i < values.length; ++i) {
+			values[i] = statistics.get(i).getLatency().getValueAtPercentile(percentile);
+		}
+
+		return values;
+	}
+}
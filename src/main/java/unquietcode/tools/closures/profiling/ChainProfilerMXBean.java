@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.profiling;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * The management interface of a {@link ChainProfiler}. Each array has one entry for
+ * every closure in the chain, by position. Latencies are in nanoseconds.
+ */
+public interface ChainProfilerMXBean {
+	int getStageCount();
+	long[] getInvocations();
+	long[] getErrors();
+	double[] getMeanNanos();
+	long[] getMedianNanos();
+	long[] get99thPercentileNanos();
+	long[] getMaxNanos();
+	void reset();
+}
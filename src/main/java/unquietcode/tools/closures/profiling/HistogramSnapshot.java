@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.profiling;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * The contents of a {@link LatencyHistogram} at one moment. Values are in nanoseconds.
+ */
+public final class HistogramSnapshot {
+	private final long counts[];
+	private final long count;
+	private final long total;
+	private final long max;
+
+
+	HistogramSnapshot(long counts[], long count, long total, long max) {
+		this.counts = counts;
+		this.count = count;
+		this.total = total;
+		this.max = max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0 : (double) total / count;
+	}
+
+	/**
+	 * Gets the value which the given percentage of recorded values are at or below.
+	 *
+	 * @param percentile  between 0 and 100
+	 * @return            the value, or 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("percentile must be between 0 and 100");
+
+		if (count == 0)
+			return 0;
+
+		long wanted = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+
+		for (int i=0; i < counts.length; ++i) {
+			seen += counts[i];
+
+			if (seen >= wanted)
+				return Math.min(max, LatencyHistogram.highestValue(i));
+		}
+
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + count
+		     + ", mean=" + (long) getMean()
+		     + ", p50=" + getValueAtPercentile(50)
+		     + ", p99=" + getValueAtPercentile(99)
+		     + ", max=" + max;
+	}
+}
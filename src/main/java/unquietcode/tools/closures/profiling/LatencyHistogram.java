@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.profiling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * A histogram of latencies in nanoseconds, which any number of threads can record into
+ * at once without locking.
+ *
+ * Values below 64 are counted exactly. Above that, each power of two is split into 32
+ * buckets of equal width, so a reported value is never more than about 3% from the value
+ * which was recorded. Values above 2^40 nanoseconds (about 18 minutes) are counted as 2^40.
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BITS = 5;
+	private static final int SUB_COUNT = 1 << SUB_BITS;         // buckets per power of two
+	private static final int LINEAR = SUB_COUNT << 1;           // values counted exactly
+	private static final int MAX_EXPONENT = 39;
+	private static final long HIGHEST = (1L << (MAX_EXPONENT + 1)) - 1;
+	private static final int BUCKETS = LINEAR + (MAX_EXPONENT - SUB_BITS) * SUB_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		else if (nanos > HIGHEST)
+			nanos = HIGHEST;
+
+		counts.incrementAndGet(index(nanos));
+		total.add(nanos);
+
+		long current = max.get();
+		while (nanos > current && !max.compareAndSet(current, nanos)) {
+			current = max.get();
+		}
+	}
+
+	public HistogramSnapshot snapshot() {
+		long copy[] = new long[BUCKETS];
+		long count = 0;
+
+		for (int i=0; i < BUCKETS; ++i) {
+			copy[i] = counts.get(i);
+			count += copy[i];
+		}
+
+		return new HistogramSnapshot(copy, count, total.sum(), max.get());
+	}
+
+	static int index(long value) {
+		if (value < LINEAR)
+			return (int) value;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+
+		return LINEAR + (exponent - SUB_BITS - 1) * SUB_COUNT + sub;
+	}
+
+	// the largest value which falls into a bucket
+	static long highestValue(int index) {
+		if (index < LINEAR)
+			return index;
+
+		int k = index - LINEAR;
+		int exponent = k / SUB_COUNT + SUB_BITS + 1;
+		int sub = k % SUB_COUNT;
+		long width = 1L << (exponent - SUB_BITS);
+
+		return (1L << exponent) + sub * width + width - 1;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.profiling;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * What was recorded for one closure in a chain, at one moment.
+ */
+public final class StageStatistics {
+	private final int index;
+	private final long invocations;
+	private final long errors;
+	private final HistogramSnapshot latency;
+
+
+	StageStatistics(int index, long invocations, long errors, HistogramSnapshot latency) {
+		this.index = index;
+		this.invocations = invocations;
+		this.errors = errors;
+		this.latency = latency;
+	}
+
+	/**
+	 * @return  the position of the closure in the chain
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return  the number of times the closure was run, including the times it failed
+	 */
+	public long getInvocations() {
+		return invocations;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	/**
+	 * @return  the time taken by each run of the closure, in nanoseconds
+	 */
+	public HistogramSnapshot getLatency() {
+		return latency;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + index + "] invocations=" + invocations + ", errors=" + errors + ", " + latency;
+	}
+}
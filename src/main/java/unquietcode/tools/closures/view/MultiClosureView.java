@@ -33,6 +33,19 @@ public interface MultiClosureView<Z> extends ClosureViewBase<Z> {
 	Z run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6);
 	Z run(Object... args);
 
+	/*
+	 * The 7 and 8 argument methods came later, and have defaults so that existing
+	 * implementations still compile. Calls go to the varargs method, as they did
+	 * before these existed, which throws NotImplementedException if it is missing.
+	 */
+	default Z run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7) {
+		return run(new Object[] {p1, p2, p3, p4, p5, p6, p7});
+	}
+
+	default Z run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
+		return run(new Object[] {p1, p2, p3, p4, p5, p6, p7, p8});
+	}
+
 	boolean isImplemented(int x);
 
 	Closure0View<Z> toClosure0();
@@ -43,5 +56,13 @@ public interface MultiClosureView<Z> extends ClosureViewBase<Z> {
 	Closure5View toClosure5();
 	Closure6View toClosure6();
 
+	default Closure7View toClosure7() {
+		return null;
+	}
+
+	default Closure8View toClosure8() {
+		return null;
+	}
+
 	ClosureView<Z> toClosure();
 }
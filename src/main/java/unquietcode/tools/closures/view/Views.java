@@ -0,0 +1,218 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.view;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ *
+ * Bridges between views and the java.util.function interfaces.
+ *
+ * Views handed out by the closure classes already implement the matching interface, so
+ * converting one of them returns the same object rather than wrapping it. Likewise, a view
+ * created from a function converts back to that function. Either way, each call goes through
+ * at most one interface dispatch.
+ */
+public final class Views {
+	private static final Class ONE_OBJECT[] = {Object.class};
+	private static final Class TWO_OBJECTS[] = {Object.class, Object.class};
+
+	private Views() { }
+
+	@SuppressWarnings("unchecked")
+	public static <Z> Supplier<Z> asSupplier(final Closure0View<Z> view) {
+		if (view instanceof SupplierView)
+			return ((SupplierView<Z>) view).supplier;
+
+		if (view instanceof Supplier)
+			return (Supplier<Z>) view;
+
+		return new Supplier<Z>() {
+			public Z get() {
+				return view.run();
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <Z, A> Function<A, Z> asFunction(final Closure1View<Z, A> view) {
+		if (view instanceof FunctionView)
+			return ((FunctionView<Z, A>) view).function;
+
+		if (view instanceof Function)
+			return (Function<A, Z>) view;
+
+		return new Function<A, Z>() {
+			public Z apply(A p1) {
+				return view.run(p1);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <Z, A,B> BiFunction<A, B, Z> asBiFunction(final Closure2View<Z, A,B> view) {
+		if (view instanceof BiFunctionView)
+			return ((BiFunctionView<Z, A,B>) view).function;
+
+		if (view instanceof BiFunction)
+			return (BiFunction<A, B, Z>) view;
+
+		return new BiFunction<A, B, Z>() {
+			public Z apply(A p1, B p2) {
+				return view.run(p1, p2);
+			}
+		};
+	}
+
+	/**
+	 * Wraps a view of any arity as a function taking an array of arguments.
+	 * This is named apart from {@link #asFunction(Closure1View)} since most
+	 * views are both a {@link Closure1View} and a {@link ClosureView}.
+	 */
+	public static <Z> Function<Object[], Z> asArrayFunction(final ClosureView<Z> view) {
+		return new Function<Object[], Z>() {
+			public Z apply(Object[] args) {
+				return view.run(args);
+			}
+		};
+	}
+
+	/**
+	 * Wraps a view so that each run happens on an executor, and returns a future for its result.
+	 */
+	public static <Z> AsyncClosureView<Z> toAsync(final ClosureView<Z> view, final Executor executor) {
+		if (view == null)
+			throw new NullPointerException("view");
+
+		if (executor == null)
+			throw new NullPointerException("executor");
+
+		return new AsyncClosureView<Z>() {
+			public CompletableFuture<Z> run(final Object...args) {
+				return CompletableFuture.supplyAsync(new Supplier<Z>() {
+					public Z get() {
+						return view.run(args);
+					}
+				}, executor);
+			}
+
+			public int getExpectedArgs() {
+				return view.getExpectedArgs();
+			}
+		};
+	}
+
+	public static <Z> Closure0View<Z> fromSupplier(Supplier<Z> supplier) {
+		return new SupplierView<Z>(supplier);
+	}
+
+	public static <Z, A> Closure1View<Z, A> fromFunction(Function<A, Z> function) {
+		return new FunctionView<Z, A>(function);
+	}
+
+	public static <Z, A,B> Closure2View<Z, A,B> fromBiFunction(BiFunction<A, B, Z> function) {
+		return new BiFunctionView<Z, A,B>(function);
+	}
+
+	private static final class SupplierView<Z> implements Closure0View<Z>, ClosureView<Z> {
+		final Supplier<Z> supplier;
+
+		SupplierView(Supplier<Z> supplier) {
+			if (supplier == null)
+				throw new NullPointerException("supplier");
+
+			this.supplier = supplier;
+		}
+
+		public Z run() {
+			return supplier.get();
+		}
+
+		public Z run(Object...args) {
+			return supplier.get();
+		}
+
+		public int getExpectedArgs() {
+			return 0;
+		}
+	}
+
+	private static final class FunctionView<Z, A> implements Closure1View<Z, A>, ClosureView<Z> {
+		final Function<A, Z> function;
+
+		FunctionView(Function<A, Z> function) {
+			if (function == null)
+				throw new NullPointerException("function");
+
+			this.function = function;
+		}
+
+		public Z run(A p1) {
+			return function.apply(p1);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return function.apply((A) args[0]);
+		}
+
+		public int getExpectedArgs() {
+			return 1;
+		}
+
+		public Class[] getArgumentTypes() {
+			return ONE_OBJECT.clone();
+		}
+	}
+
+	private static final class BiFunctionView<Z, A,B> implements Closure2View<Z, A,B>, ClosureView<Z> {
+		final BiFunction<A, B, Z> function;
+
+		BiFunctionView(BiFunction<A, B, Z> function) {
+			if (function == null)
+				throw new NullPointerException("function");
+
+			this.function = function;
+		}
+
+		public Z run(A p1, B p2) {
+			return function.apply(p1, p2);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Z run(Object...args) {
+			return function.apply((A) args[0], (B) args[1]);
+		}
+
+		public int getExpectedArgs() {
+			return 2;
+		}
+
+		public Class[] getArgumentTypes() {
+			return TWO_OBJECTS.clone();
+		}
+	}
+}
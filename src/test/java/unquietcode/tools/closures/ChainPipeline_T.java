@@ -0,0 +1,222 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import org.junit.Test;
+import unquietcode.tools.closures.view.ClosureView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static unquietcode.tools.closures.util.Shortcuts.out;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ */
+public class ChainPipeline_T {
+	@Test
+	public void pipelined() {
+		// A pipeline runs many inputs through a chain at once, with each group of
+		// closures on its own thread. The results still come out in order.
+
+		Chain<Integer> chain = new Chain<Integer>(adder(1), adder(10), adder(100), adder(1000));
+		List<Object[]> inputs = new ArrayList<Object[]>();
+
+		for (int i=0; i < 10000; ++i) {
+			inputs.add(new Object[]{i});
+		}
+
+		ChainPipeline<Integer> pipeline = new ChainPipeline<Integer>(chain, 3, 16);
+		List<Integer> results = pipeline.run(inputs);
+
+		assertEquals(3, pipeline.getThreads());
+		assertEquals(10000, results.size());
+
+		for (int i=0; i < results.size(); ++i) {
+			assertEquals(Integer.valueOf(i + 1111), results.get(i));
+		}
+
+		out("pipelined " + results.size() + " inputs");
+	}
+
+	@Test
+	public void shutdown() {
+		// An endless stream of inputs can be stopped, and whatever
+		// is already inside of the pipeline still makes it out.
+
+		final AtomicInteger taken = new AtomicInteger();
+		final AtomicInteger received = new AtomicInteger();
+
+		Iterator<Object[]> endless = new Iterator<Object[]>() {
+			public boolean hasNext() { return true; }
+			public Object[] next() { return new Object[]{taken.incrementAndGet()}; }
+			public void remove() { throw new UnsupportedOperationException(); }
+		};
+
+		Chain<Integer> chain = new Chain<Integer>(adder(1), adder(1));
+		ChainPipeline<Integer>.Execution execution = new ChainPipeline<Integer>(chain, 2, 8).start(endless, new AbstractClosure1<Void, Integer>() {
+			public Void run(Integer result) {
+				assertEquals(received.incrementAndGet() + 2, result.intValue());
+				return null;
+			}
+		}.getView());
+
+		while (received.get() < 100) {
+			Thread.yield();
+		}
+
+		execution.shutdown();
+		execution.await();
+
+		assertTrue(execution.isDone());
+		assertEquals(taken.get(), received.get());
+		out("took and received " + taken.get());
+	}
+
+	@Test
+	public void failure() {
+		ClosureView<Integer> picky = new AbstractClosure1<Integer, Integer>() {
+			public Integer run(Integer i) {
+				if (i == 500)
+					throw new IllegalStateException("no 500s");
+
+				return i;
+			}
+		}.toClosure();
+
+		List<Object[]> inputs = new ArrayList<Object[]>();
+		for (int i=0; i < 1000; ++i) {
+			inputs.add(new Object[]{i});
+		}
+
+		try {
+			new ChainPipeline<Integer>(new Chain<Integer>(adder(0), picky, adder(0)), 3, 4).run(inputs);
+			fail("expected the pipeline to fail");
+		} catch (ClosureChainException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+			out(ex.getMessage());
+		}
+	}
+
+	@Test
+	public void abort() throws InterruptedException {
+		// A first thread stuck waiting for room in a full buffer gives up when the
+		// execution is aborted.
+
+		final CountDownLatch release = new CountDownLatch(1);
+		List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+		ChainPipeline<Integer>.Execution execution = blocked(release, threads);
+
+		assertEquals(2, threads.size());
+		awaitParked(threads.get(0));
+		execution.abort();
+
+		try {
+			execution.await();
+			fail("expected the pipeline to fail");
+		} catch (ClosureChainException ex) {
+			out(ex.getMessage());
+		}
+
+		assertTrue(execution.isDone());
+	}
+
+	@Test
+	public void interrupted() throws InterruptedException {
+		// Interrupting one of the pipeline's threads stops the pipeline too.
+
+		final CountDownLatch release = new CountDownLatch(1);
+		List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+		ChainPipeline<Integer>.Execution execution = blocked(release, threads);
+
+		awaitParked(threads.get(0));
+		threads.get(0).interrupt();
+		release.countDown();
+
+		try {
+			execution.await();
+			fail("expected the pipeline to fail");
+		} catch (ClosureChainException ex) {
+			assertTrue(ex.getCause() instanceof InterruptedException);
+			out(ex.getMessage());
+		}
+
+		assertTrue(execution.isDone());
+	}
+
+	// starts an endless pipeline whose sink waits for the latch, with the threads made going into the list
+	private static ChainPipeline<Integer>.Execution blocked(final CountDownLatch release, final List<Thread> threads) {
+		Iterator<Object[]> endless = new Iterator<Object[]>() {
+			public boolean hasNext() { return true; }
+			public Object[] next() { return new Object[]{0}; }
+			public void remove() { throw new UnsupportedOperationException(); }
+		};
+
+		ThreadFactory factory = new ThreadFactory() {
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "ChainPipeline_T-" + threads.size());
+				thread.setDaemon(true);
+				threads.add(thread);
+				return thread;
+			}
+		};
+
+		Chain<Integer> chain = new Chain<Integer>(adder(1), adder(1));
+
+		return new ChainPipeline<Integer>(chain, 2, 1, factory).start(endless, new AbstractClosure1<Void, Integer>() {
+			public Void run(Integer result) {
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+
+				return null;
+			}
+		}.getView());
+	}
+
+	private static void awaitParked(Thread thread) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+		while (thread.getState() != Thread.State.TIMED_WAITING) {
+			if (System.nanoTime() > deadline)
+				fail("thread never started waiting");
+
+			Thread.sleep(1);
+		}
+	}
+
+	private static ClosureView<Integer> adder(final int amount) {
+		return new AbstractClosure1<Integer, Integer>() {
+			public Integer run(Integer i) {
+				return i + amount;
+			}
+		}.toClosure();
+	}
+}
@@ -20,11 +20,32 @@
 package unquietcode.tools.closures;
 
 import org.junit.Test;
+import unquietcode.tools.closures.profiling.ChainProfiler;
+import unquietcode.tools.closures.profiling.StageStatistics;
+import unquietcode.tools.closures.view.AsyncClosureView;
 import unquietcode.tools.closures.view.ClosureView;
+import unquietcode.tools.closures.view.Views;
 import unquietcode.tools.closures.util.StringUtils;
 
+import javax.management.ObjectName;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
-
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
 import static unquietcode.tools.closures.util.Shortcuts.out;
 import static unquietcode.tools.closures.util.Shortcuts.outN;
 
@@ -264,4 +285,377 @@ public class Chain_T {
 			out(ex);
 		}
 	}
+
+	@Test
+	public void compiled() {
+		// A chain which is run often can be compiled into a single view. The compiled version
+		// behaves the same, but does less work between the closures.
+
+		ClosureView<Integer> start = (new AbstractClosure0<Integer>() {
+			public Integer run() {
+				return 4;
+			}
+		}).toClosure();
+
+		ClosureView<Object[]> split = (new AbstractClosure1<Object[], Integer>() {
+			public Object[] run(Integer p1) {
+				return new Object[]{p1, p1 + 1};     // arrays are passed on as varargs
+			}
+		}).toClosure();
+
+		ClosureView<Integer> multiply = (new AbstractClosure2<Integer, Integer, Integer>() {
+			public Integer run(Integer p1, Integer p2) {
+				return p1 * p2;
+			}
+		}).toClosure();
+
+		ClosureView<String> describe = (new AbstractClosure1<String, Integer>() {
+			public String run(Integer p1) {
+				return "result: " + p1;
+			}
+		}).toClosure();
+
+		Chain<String> chain = new Chain<String>((ClosureView) start, (ClosureView) split, (ClosureView) multiply, describe);
+		ClosureView<String> compiled = chain.compile();
+
+		out(compiled.run());    // result: 20
+		assertEquals(chain.run(), compiled.run());
+
+		// the compiled view is a snapshot, so changing the chain afterwards has no effect on it
+		chain.remove(3);
+		assertEquals(20, chain.run());
+		assertEquals("result: 20", compiled.run());
+	}
+
+	@Test
+	public void runAll() {
+		// Large batches of independent inputs can be run in parallel. The results
+		// come back in the same order as the inputs.
+
+		Chain<String> chain = new Chain<String>(appender("a"), appender("b"));
+		List<Object[]> inputs = new ArrayList<Object[]>();
+
+		for (int i=0; i < 10000; ++i) {
+			inputs.add(new Object[]{String.valueOf(i)});
+		}
+
+		List<String> results = chain.runAll(inputs);
+		assertEquals(inputs.size(), results.size());
+
+		for (int i=0; i < results.size(); ++i) {
+			assertEquals(i + "ab", results.get(i));
+		}
+
+		// or the results can be handed to a sink as they are ready
+		final Set<String> seen = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+		chain.runAll(inputs.spliterator(), new AbstractClosure1<Void, String>() {
+			public Void run(String result) {
+				seen.add(result);
+				return null;
+			}
+		}.getView());
+
+		assertEquals(new HashSet<String>(results), seen);
+
+		// sources of unknown size are split as well
+		final Set<String> unknown = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+		chain.runAll(Spliterators.spliteratorUnknownSize(inputs.iterator(), 0), new AbstractClosure1<Void, String>() {
+			public Void run(String result) {
+				unknown.add(result);
+				return null;
+			}
+		}.getView());
+
+		assertEquals(seen, unknown);
+		out(results.get(results.size() - 1));
+	}
+
+	@Test
+	public void streams() {
+		// Chains can be a stage in a stream, and closures can collect the results.
+
+		Chain<String> chain = new Chain<String>(appender("a"), appender("b"));
+		List<Object[]> inputs = new ArrayList<Object[]>();
+
+		for (int i=0; i < 10000; ++i) {
+			inputs.add(new Object[]{String.valueOf(i)});
+		}
+
+		// the results keep the size of the inputs, so they split evenly
+		Spliterator<String> results = chain.stream(inputs.spliterator(), true).spliterator();
+		assertTrue(results.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+		assertEquals(10000, results.getExactSizeIfKnown());
+
+		Long length = chain.stream(inputs.spliterator(), true)
+			.map(s -> (long) s.length())
+			.collect(ClosureCollectors.reducing(0L, new AbstractClosure2<Long, Long, Long>() {
+				public Long run(Long a, Long b) {
+					return a + b;
+				}
+			}));
+
+		long expected = 0;
+		for (Object input[] : inputs) {
+			expected += ((String) input[0]).length() + 2;
+		}
+
+		assertEquals(Long.valueOf(expected), length);
+
+		List<String> ordered = chain.stream(inputs.spliterator(), true).collect(ClosureCollectors.of(
+			new AbstractClosure0<List<String>>() {
+				public List<String> run() {
+					return new ArrayList<String>();
+				}
+			},
+			new AbstractClosure2<Boolean, List<String>, String>() {
+				public Boolean run(List<String> list, String value) {
+					return list.add(value);
+				}
+			},
+			new AbstractClosure2<List<String>, List<String>, List<String>>() {
+				public List<String> run(List<String> left, List<String> right) {
+					left.addAll(right);
+					return left;
+				}
+			}
+		));
+
+		assertEquals(10000, ordered.size());
+		assertEquals("9999ab", ordered.get(9999));
+
+		Integer total = Stream.of("x", "yy", "zzz")
+			.map(chain.<String>asFunction())
+			.map(String::length)
+			.collect(ClosureCollectors.reducing(0, new AbstractClosure2<Integer, Integer, Integer>() {
+				public Integer run(Integer a, Integer b) {
+					return a + b;
+				}
+			}));
+
+		assertEquals(Integer.valueOf(12), total);
+		out(ordered.get(0) + " ... " + ordered.get(9999) + ", " + length + " characters");
+	}
+
+	@Test
+	public void async() throws Exception {
+		// Chains can also be run without waiting on them. Closures which block can be marked,
+		// and are kept apart from the ones doing computation.
+
+		final Set<String> threads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+		ClosureView<String> read = Chain.blocking(new AbstractClosure1<String, String>() {
+			public String run(String s) {
+				threads.add(Thread.currentThread().getName());
+				return s + "!";
+			}
+		}.toClosure());
+
+		Chain<String> chain = new Chain<String>(appender("a"), read, appender("b"));
+		ExecutorService cpu = Executors.newFixedThreadPool(2);
+		ExecutorService blocking = Executors.newSingleThreadExecutor();
+
+		try {
+			CompletableFuture<String> future = chain.runAsync(cpu, blocking, "");
+			assertEquals("a!b", future.get(5, TimeUnit.SECONDS));
+			assertEquals(1, threads.size());
+
+			// marking makes no difference when run normally
+			assertEquals("a!b", chain.run(""));
+
+			// any view can be made asynchronous
+			AsyncClosureView<String> view = Views.toAsync(appender("c"), cpu);
+			assertEquals("cc", view.run("c").get(5, TimeUnit.SECONDS));
+		} finally {
+			cpu.shutdown();
+			blocking.shutdown();
+		}
+
+		out(threads);
+	}
+
+	@Test
+	public void sealed() {
+		// Chains can be checked once, up front, rather than on every run.
+
+		ClosureView<Integer> length = (new AbstractClosure1<Integer, String>() {
+			public Integer run(String s) {
+				return s.length();
+			}
+		}).toClosure();
+
+		ClosureView<Integer> pair = (new AbstractClosure2<Integer, Integer, Integer>() {
+			public Integer run(Integer a, Integer b) {
+				return a + b;
+			}
+		}).toClosure();
+
+		// a closure taking a String can never be given an Integer
+		Chain<Integer> wrongType = new Chain<Integer>(length, (ClosureView) length);
+
+		try {
+			wrongType.validate();
+			fail("expected a type error");
+		} catch (ClosureChainException ex) {
+			out(ex.getMessage());
+		}
+
+		// nor can a closure taking two arguments be given one
+		Chain<Integer> wrongCount = new Chain<Integer>(length, pair);
+
+		try {
+			wrongCount.seal();
+			fail("expected an argument count error");
+		} catch (ClosureChainException ex) {
+			out(ex.getMessage());
+		}
+
+		assertFalse(wrongCount.isSealed());
+
+		// but a value declared as Serializable might be an array of arguments
+		ClosureView<Serializable> spread = (new AbstractClosure1<Serializable, Integer>() {
+			public Serializable run(Integer n) {
+				return new Integer[] {n, n};
+			}
+		}).toClosure();
+
+		Chain<Integer> maybeArray = new Chain<Integer>(length, (ClosureView) spread, pair);
+		maybeArray.seal();
+		assertEquals(Integer.valueOf(6), maybeArray.run("abc"));
+
+		// once sealed, a chain runs from a fixed plan and can't be changed
+		Chain<String> chain = new Chain<String>(appender("a"), appender("b"));
+		chain.setValidation(true);
+		chain.seal();
+
+		assertTrue(chain.isSealed());
+		assertEquals("ab", chain.run(""));
+
+		// and the arguments are still checked on the way in
+		try {
+			chain.run("", "extra");
+			fail("expected an argument count error");
+		} catch (ClosureChainException ex) {
+			assertTrue(ex.getMessage().startsWith("Wrong number of arguments"));
+		}
+
+		try {
+			chain.run();
+			fail("expected an argument count error");
+		} catch (ClosureChainException ex) {
+			assertTrue(ex.getMessage().startsWith("Wrong number of arguments"));
+		}
+
+		try {
+			chain.append(appender("c"));
+			fail("expected the chain to be sealed");
+		} catch (ClosureChainException ex) {
+			out(ex.getMessage());
+		}
+	}
+
+	@Test
+	public void profiling() throws Exception {
+		// A profiler records how often and how long each closure runs.
+
+		ClosureView<String> picky = (new AbstractClosure1<String, String>() {
+			public String run(String s) {
+				if (s.startsWith("x"))
+					throw new IllegalArgumentException("no x");
+
+				return s;
+			}
+		}).toClosure();
+
+		Chain<String> chain = new Chain<String>(appender("a"), picky);
+		ChainProfiler profiler = new ChainProfiler();
+		chain.setProfiler(profiler);
+
+		for (int i=0; i < 100; ++i) {
+			chain.run("");
+		}
+
+		try {
+			chain.run("x");
+			fail("expected an error");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+
+		List<StageStatistics> stages = profiler.snapshot();
+		assertEquals(2, stages.size());
+		assertEquals(101, stages.get(0).getInvocations());
+		assertEquals(0, stages.get(0).getErrors());
+		assertEquals(101, stages.get(1).getInvocations());
+		assertEquals(1, stages.get(1).getErrors());
+		assertEquals(101, stages.get(1).getLatency().getCount());
+
+		// the same numbers can be read through JMX
+		ObjectName name = profiler.register("profiling test");
+
+		try {
+			long errors[] = (long[]) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Errors");
+			assertEquals(1, errors[1]);
+		} finally {
+			profiler.unregister();
+		}
+
+		// once the profiler is removed, nothing more is recorded
+		chain.setProfiler(null);
+		chain.run("");
+		assertEquals(101, profiler.snapshot().get(0).getInvocations());
+
+		// profiling does not change what is checked
+		chain.setValidation(true);
+		chain.setProfiler(profiler);
+
+		try {
+			chain.run("a", "b");
+			fail("expected a validation error");
+		} catch (ClosureChainException ex) {
+			assertTrue(ex.getMessage().startsWith("Wrong number of arguments"));
+		}
+
+		assertEquals(1, profiler.snapshot().get(0).getErrors());
+
+		out(stages);
+	}
+
+	@Test
+	public void builders() {
+		// Builders are an immutable way to put chains together. Each change gives back a new
+		// builder, so many variations can be made from one base without affecting each other.
+
+		ClosureView<String> a = appender("a");
+		ClosureView<String> b = appender("b");
+		ClosureView<String> c = appender("c");
+
+		Chain.Builder<String> base = Chain.<String>builder().append(a, b);
+		Chain.Builder<String> withC = base.append(c);
+		Chain.Builder<String> cFirst = base.prepend(c);
+		Chain.Builder<String> cMiddle = base.insert(1, c);
+
+		assertEquals("ab", base.build().run(""));
+		assertEquals("abc", withC.build().run(""));
+		assertEquals("cab", cFirst.build().run(""));
+		assertEquals("acb", cMiddle.build().run(""));
+		assertEquals("cb", cMiddle.remove(0).build().run(""));
+
+		// existing chains can be used as the starting point too
+		Chain<String> chain = new Chain<String>(a, a);
+		Chain.Builder<String> derived = chain.toBuilder().insert(1, new Chain<String>(b, c));
+		chain.append(b);
+
+		assertEquals("aab", chain.run(""));
+		assertEquals("abca", derived.build().run(""));
+	}
+
+	private static ClosureView<String> appender(final String suffix) {
+		return (new AbstractClosure1<String, String>() {
+			public String run(String p1) {
+				return p1 + suffix;
+			}
+		}).toClosure();
+	}
 }
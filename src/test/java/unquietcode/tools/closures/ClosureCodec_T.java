@@ -0,0 +1,207 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import org.junit.Test;
+import unquietcode.tools.closures.view.ClosureView;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static unquietcode.tools.closures.util.Shortcuts.out;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ */
+public class ClosureCodec_T {
+	@Test
+	public void roundTrip() {
+		// A closure can be written as bytes and read back later,
+		// along with everything it was given and everything it captured.
+
+		final String greeting = "Hello";
+		final int times[] = {2};
+
+		Closure1<String, String> greet = new AbstractClosure1<String, String>(TimeUnit.SECONDS, Arrays.asList("!", "?")) {
+			int calls = 5;
+			Closure1<Integer, String> length = new AbstractClosure1<Integer, String>() {
+				public Integer run(String s) {
+					return s.length();
+				}
+			};
+
+			public String run(String name) {
+				List<String> marks = a2();
+				TimeUnit unit = a1();
+
+				return greeting + " " + name + marks.get(0) + " x" + times[0]
+				     + " " + unit.name().toLowerCase()
+				     + " " + length.run(name)
+				     + " " + (++calls);
+			}
+		};
+
+		ClosureCodec codec = new ClosureCodec();
+		ByteBuffer buffer = ByteBuffer.allocate(codec.size(greet));
+		codec.write(greet, buffer);
+		assertFalse(buffer.hasRemaining());
+		out("encoded in " + buffer.capacity() + " bytes");
+
+		buffer.flip();
+
+		@SuppressWarnings("unchecked")
+		Closure1<String, String> copy = (Closure1<String, String>) codec.read(buffer);
+
+		assertNotSame(greet, copy);
+		assertEquals("Hello Bob! x2 seconds 3 6", copy.run("Bob"));
+		assertEquals("Hello Bob! x2 seconds 3 6", greet.run("Bob"));
+	}
+
+	@Test
+	public void stream() {
+		// Writing many closures of the same class only names the class once.
+
+		ClosureCodec.Writer writer = new ClosureCodec.Writer();
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+		int sizes[] = new int[3];
+
+		for (int i=0; i < 3; ++i) {
+			int before = buffer.position();
+			writer.write(new Adder(i), buffer);
+			sizes[i] = buffer.position() - before;
+		}
+
+		assertTrue(sizes[1] < sizes[0]);
+		assertEquals(sizes[1], sizes[2]);
+
+		// too little room writes nothing, and leaves the writer as it was
+		ByteBuffer small = ByteBuffer.allocate(2);
+
+		try {
+			writer.write(new Adder(10), small);
+			fail("should not fit");
+		} catch (java.nio.BufferOverflowException ex) {
+			assertEquals(0, small.position());
+		}
+
+		buffer.flip();
+		ClosureCodec.Reader reader = new ClosureCodec.Reader();
+
+		for (int i=0; i < 3; ++i) {
+			ClosureView<Integer> adder = reader.<Adder>read(buffer).toClosure();
+			assertEquals(Integer.valueOf(i + 40), adder.run(40));
+		}
+
+		assertFalse(buffer.hasRemaining());
+	}
+
+	@Test
+	public void truncated() {
+		// A closure which has only partly arrived can be read again once the rest is there.
+
+		ClosureCodec.Writer writer = new ClosureCodec.Writer();
+		ByteBuffer whole = ByteBuffer.allocate(256);
+		writer.write(new Adder(5), whole);
+		writer.write(new Adder(6), whole);
+		whole.flip();
+
+		ClosureCodec.Reader reader = new ClosureCodec.Reader();
+		int first = 0;
+
+		// every point at which the first closure could be cut off
+		for (int length=0; ; ++length) {
+			ByteBuffer part = whole.duplicate();
+			part.limit(length);
+
+			try {
+				Adder adder = reader.read(part);
+				assertEquals(Integer.valueOf(6), adder.run(1));
+				first = part.position();
+				break;
+			} catch (BufferUnderflowException ex) {
+				assertEquals(0, part.position());
+			}
+		}
+
+		// the second one relies on the class having been read with the first
+		whole.position(first);
+		Adder adder = reader.read(whole);
+		assertEquals(Integer.valueOf(7), adder.run(1));
+		assertFalse(whole.hasRemaining());
+	}
+
+	@Test
+	public void untrusted() {
+		// Bytes from elsewhere can be limited to the classes which are expected.
+
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		new ClosureCodec.Writer().write(new Adder(1), buffer);
+		buffer.flip();
+
+		try {
+			new ClosureCodec.Reader(ClosureCodec.allowing(String.class)).read(buffer);
+			fail("the closure class is not allowed");
+		} catch (ClosureException ex) {
+			assertEquals(0, buffer.position());
+		}
+
+		Adder adder = new ClosureCodec.Reader(ClosureCodec.allowing(Adder.class)).read(buffer);
+		assertEquals(Integer.valueOf(3), adder.run(2));
+
+		// a length which claims more than is there is refused before anything is allocated
+		ByteBuffer huge = ByteBuffer.wrap(new byte[] {14, (byte) 0x80, (byte) 0xa8, (byte) 0xd6, (byte) 0xb9, 0x07});
+
+		try {
+			new ClosureCodec.Reader().read(huge);
+			fail("should not claim a gigabyte");
+		} catch (BufferUnderflowException ex) {
+			assertEquals(0, huge.position());
+		}
+	}
+
+	@Test(expected=ClosureException.class)
+	public void unsupported() {
+		Closure0<Object> closure = new AbstractClosure0<Object>(new Object()) {
+			public Object run() {
+				return a1();
+			}
+		};
+
+		new ClosureCodec.Writer().write(closure, ByteBuffer.allocate(1024));
+	}
+
+	static class Adder extends AbstractClosure1<Integer, Integer> {
+		private final int amount;
+
+		Adder(int amount) {
+			this.amount = amount;
+		}
+
+		public Integer run(Integer x) {
+			return x + amount;
+		}
+	}
+}
@@ -26,6 +26,8 @@ import java.util.Map;
 import java.util.Random;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 import static unquietcode.tools.closures.util.Shortcuts.out;
 
 /**
@@ -223,6 +225,39 @@ public class ClosureFeatures_T {
 		c1.curry(2, '!');
 		out(c1.run(name));      // Goodbye world!
 		assertEquals("Goodbye world!", c1.run(name));
+
+		// several fields can be curried at once, starting from the first
+		c1.curryAll("Farewell", '?');
+		out(c1.run(name));      // Farewell world?
+		assertEquals("Farewell world?", c1.run(name));
+
+		// and bad curries are still reported
+		try {
+			c1.curry(2, "not a char");
+			fail("expected a ClosureException");
+		} catch (ClosureException ex) {
+			out(ex);
+		}
+	}
+
+	@Test
+	public void curryCapturedLocal() {
+		// Local variables captured by a closure are fields too, and can be curried.
+
+		Closure1<String, String> greeter = greeter("Hello");
+		assertEquals("Hello world", greeter.run("world"));
+
+		greeter.curry(1, "Howdy");
+		assertEquals("Howdy world", greeter.run("world"));
+	}
+
+	// made in a static method, so that the captured greeting is the only field
+	private static Closure1<String, String> greeter(final String greeting) {
+		return new AbstractClosure1<String, String>() {
+			public String run(String p1) {
+				return greeting + " " + p1;
+			}
+		};
 	}
 
 	@Test
@@ -352,4 +387,70 @@ public class ClosureFeatures_T {
 		// Oops! I forgot what classes my parameters were.
 //		for (Class c)
 	}
+
+	@Test
+	public void signatures() {
+		// Typed closures can describe themselves. The signature is worked out once for each
+		// closure class and then shared, so it is cheap to ask for it as often as needed.
+
+		AbstractClosure2<String, Integer, Character> repeater = new AbstractClosure2<String, Integer, Character>() {
+			public String run(Integer times, Character c) {
+				StringBuilder sb = new StringBuilder();
+
+				for (int i=0; i < times; ++i) {
+					sb.append(c);
+				}
+
+				return sb.toString();
+			}
+		};
+
+		ClosureSignature signature = repeater.getSignature();
+		out(signature);     // (Integer, Character) -> String
+
+		assertEquals(String.class, signature.getReturnType());
+		assertEquals(2, signature.size());
+		assertEquals(Integer.class, signature.getArgumentType(0));
+		assertEquals(Character.class, signature.getArgumentType(1));
+
+		// the same instance every time
+		assertTrue(signature == repeater.getSignature());
+
+		// while the array version is always a copy, and safe to change
+		Class types[] = repeater.getArgumentTypes();
+		types[0] = Object.class;
+		assertEquals(Integer.class, repeater.getArgumentTypes()[0]);
+	}
+
+	@Test
+	public void capturedArguments() {
+		// The arguments passed in at creation can be read back as a list, without copying.
+
+		Closure0<Integer> summer = new AbstractClosure0<Integer>(1, 2, 3, 4, 5) {
+			public Integer run() {
+				int sum = 0;
+
+				for (Object o : getArgumentList()) {
+					sum += (Integer) o;
+				}
+
+				return sum;
+			}
+		};
+		assertEquals((Integer) 15, summer.run());
+
+		// asking for an argument which was never passed in is an error
+		Closure0<Object> missing = new AbstractClosure0<Object>("only one") {
+			public Object run() {
+				return a2();
+			}
+		};
+
+		try {
+			missing.run();
+			fail("expected a ClosureException");
+		} catch (ClosureException ex) {
+			out(ex);    // invalid argument index: 2
+		}
+	}
 }
@@ -23,10 +23,17 @@ import org.junit.Test;
 import unquietcode.tools.closures.view.Closure0View;
 import unquietcode.tools.closures.view.Closure1View;
 import unquietcode.tools.closures.view.ClosureView;
+import unquietcode.tools.closures.view.Views;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static unquietcode.tools.closures.util.Shortcuts.out;
 import static unquietcode.tools.closures.util.Shortcuts.outN;
 
@@ -61,6 +68,10 @@ public class ClosureViews_T {
 		out("\nExpected arguments: " + view3.getExpectedArgs());
 		out(view3.run(4));              // 4 * 10 = 40
 		out(view3.run(4, 8, 12, 20));   // additional arguments are ignored
+
+		// Views are created once and then reused, so asking for one is cheap.
+		assertSame(view1, magnify.getView());
+		assertSame(view3, magnify.toClosure());
 	}
 
 	@Test
@@ -205,6 +216,46 @@ public class ClosureViews_T {
 		out(regularJava());		    // 0
 	}
 
+	@Test
+	public void functionInterop() {
+		// Closures can be handed to code expecting the java.util.function interfaces.
+		// The function returned is the closure's own view, so there is no extra wrapper.
+
+		AbstractClosure1<Integer, String> length = new AbstractClosure1<Integer, String>() {
+			public Integer run(String p1) {
+				return p1.length();
+			}
+		};
+
+		List<Integer> lengths = Arrays.asList("a", "bb", "ccc").stream()
+			.map(length.asFunction())
+			.collect(Collectors.<Integer>toList());
+
+		out(lengths);   // [1, 2, 3]
+		assertEquals(Arrays.asList(1, 2, 3), lengths);
+		assertSame(length.asFunction(), Views.asFunction(length.getView()));
+
+		// Going the other way, functions can be made into views. Converting
+		// back gives you the original function.
+		Function<Integer, Integer> twice = new Function<Integer, Integer>() {
+			public Integer apply(Integer x) {
+				return 2 * x;
+			}
+		};
+
+		Closure1View<Integer, Integer> view = Views.fromFunction(twice);
+		assertEquals((Integer) 8, view.run(4));
+		assertSame(twice, Views.asFunction(view));
+
+		// Any view can also be a function taking an array of arguments.
+		Function<Object[], Integer> spread = Views.asArrayFunction((ClosureView<Integer>) view);
+		assertEquals((Integer) 10, spread.apply(new Object[]{5}));
+
+		// and like any other view, it can be run from a chain
+		Chain<Integer> chain = new Chain<Integer>((ClosureView<Integer>) view, (ClosureView<Integer>) view);
+		assertEquals((Integer) 12, chain.run(3));
+	}
+
 	private static String regularJava(Integer...args) {
 		return args == null ? "null" : args.length + "";
 	}
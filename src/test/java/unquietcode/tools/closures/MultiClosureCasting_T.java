@@ -20,11 +20,17 @@
 package unquietcode.tools.closures;
 
 import org.junit.Test;
+import unquietcode.tools.closures.view.Closure0View;
 import unquietcode.tools.closures.view.Closure1View;
 import unquietcode.tools.closures.view.Closure2View;
 import unquietcode.tools.closures.view.Closure3View;
+import unquietcode.tools.closures.view.Closure4View;
+import unquietcode.tools.closures.view.Closure5View;
+import unquietcode.tools.closures.view.Closure6View;
 import unquietcode.tools.closures.view.ClosureView;
+import unquietcode.tools.closures.view.MultiClosureView;
 
+import static org.junit.Assert.*;
 import static unquietcode.tools.closures.util.Shortcuts.out;
 
 
@@ -36,11 +42,11 @@ import static unquietcode.tools.closures.util.Shortcuts.out;
 public class MultiClosureCasting_T {
 	@Test
 	public void multiclosureBasics() {
-		// Multiclosures are like an abstract collection of other closures. They can support 0-6 arguments
+		// Multiclosures are like an abstract collection of other closures. They can support 0-8 arguments
 		// and vararg. Any method not implemented by you will throw an exception.
 		// The vararg method functions as a fallback for any unimplemented versions, if it is itself defined.
 		// They support views just like the other classes, and can even offer individual views for each
-		// of the closure types 0-6 and the unified ClosureView.
+		// of the closure types 0-8 and the unified ClosureView.
 
 		// Note that here the Overrides are optional, as the class does not require explicitly
 		// implementing the methods. It's pick and choose.
@@ -96,6 +102,8 @@ public class MultiClosureCasting_T {
 		// We didn't define a 3 argument version, but we did define a vararg, so it will work.
 		Closure3View<String, String, String, String> fallback = helloMaker.toClosure3();
 		out(fallback.run("Arnold", "Julie", "Marissa"));
+		assertSame(fallback, helloMaker.toClosure3());
+		assertSame(fallback.getArgumentTypes(), helloMaker.toClosure3().getArgumentTypes());
 
 		// However, if we did not define a vararg version, we would have gotten an exception at runtime!
 
@@ -145,10 +153,90 @@ public class MultiClosureCasting_T {
 		//out(helloMaker.run(1,2,3));   // This will throw an exception (NotImplementedException).
 	}
 
+	@Test
+	public void arityDispatch() {
+		// Calls through the vararg method are passed on to a matching fixed arity method,
+		// if one was implemented, without building a new array.
+
+		MultiClosure<String> joiner = new AbstractMultiClosure<String>() {
+			public @Override
+			String run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
+				return "eight: " + p1 + p8;
+			}
+		};
+
+		assertTrue(joiner.isImplemented(8));
+		assertFalse(joiner.isImplemented(7));
+
+		assertEquals("eight: 18", joiner.run(new Object[]{1, 2, 3, 4, 5, 6, 7, 8}));
+		assertEquals("eight: 18", joiner.toClosure8().run(1, 2, 3, 4, 5, 6, 7, 8));
+		assertNull(joiner.toClosure7());
+
+		try {
+			joiner.run(1, 2, 3, 4, 5, 6, 7);
+			fail("expected an exception");
+		} catch (NotImplementedException ex) {
+			out("no seven");
+		}
+	}
+
 	@Test
 	public void combinatorTest() {
 		// MultiClosure provides a static method for combining closures into views
+
+		Closure1View<String, Object> one = new AbstractClosure1<String, Object>() {
+			public String run(Object p1) {
+				return "one " + p1;
+			}
+		}.getView();
+
+		MultiClosureView<?> combined = AbstractMultiClosure.makeMultiClosure(null, one, null, null, null, null, null, null);
+
+		assertTrue(combined.isImplemented(1));
+		assertFalse(combined.isImplemented(2));
+		assertSame(one, combined.toClosure1());
+		assertNull(combined.toClosure2());
+		assertEquals("one 1", combined.run(1));
+
+		try {
+			combined.run(1, 2);
+			fail("expected an exception");
+		} catch (NotImplementedException ex) {
+			out("no two");
+		}
 	}
 
 
+
+	@Test
+	public void olderImplementations() {
+		// A view written before the 7 and 8 argument methods existed still compiles,
+		// and those calls go to its varargs method as they used to.
+
+		MultiClosureView<Integer> counter = new MultiClosureView<Integer>() {
+			public Integer run() { return 0; }
+			public Integer run(Object p1) { return 1; }
+			public Integer run(Object p1, Object p2) { return 2; }
+			public Integer run(Object p1, Object p2, Object p3) { return 3; }
+			public Integer run(Object p1, Object p2, Object p3, Object p4) { return 4; }
+			public Integer run(Object p1, Object p2, Object p3, Object p4, Object p5) { return 5; }
+			public Integer run(Object p1, Object p2, Object p3, Object p4, Object p5, Object p6) { return 6; }
+			public Integer run(Object...args) { return args.length; }
+
+			public boolean isImplemented(int x) { return true; }
+
+			public Closure0View<Integer> toClosure0() { return null; }
+			public Closure1View toClosure1() { return null; }
+			public Closure2View toClosure2() { return null; }
+			public Closure3View toClosure3() { return null; }
+			public Closure4View toClosure4() { return null; }
+			public Closure5View toClosure5() { return null; }
+			public Closure6View toClosure6() { return null; }
+			public ClosureView<Integer> toClosure() { return null; }
+		};
+
+		assertEquals((Integer) 7, counter.run(1, 2, 3, 4, 5, 6, 7));
+		assertEquals((Integer) 8, counter.run(1, 2, 3, 4, 5, 6, 7, 8));
+		assertNull(counter.toClosure8());
+	}
 }
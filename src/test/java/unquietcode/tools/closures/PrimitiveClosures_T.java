@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures;
+
+import org.junit.Test;
+import unquietcode.tools.closures.view.ClosureView;
+import unquietcode.tools.closures.view.IntClosure2View;
+import unquietcode.tools.closures.view.ToIntClosure1View;
+
+import static org.junit.Assert.assertEquals;
+import static unquietcode.tools.closures.util.Shortcuts.out;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ */
+public class PrimitiveClosures_T {
+	@Test
+	public void noBoxing() {
+		// For numeric work, the primitive closures take and return ints, longs and doubles
+		// directly, so nothing is boxed on the way in or out.
+
+		IntClosure1 adder = new AbstractIntClosure1(10) {
+			int base = (Integer) a1();
+
+			public int run(int p1) {
+				return base + p1;
+			}
+		};
+
+		out(adder.run(5));      // 15
+		assertEquals(15, adder.run(5));
+
+		// they can be curried like any other closure
+		adder.curry(1, 20);
+		assertEquals(25, adder.run(5));
+
+		LongClosure2 multiplier = new AbstractLongClosure2() {
+			public long run(long p1, long p2) {
+				return p1 * p2;
+			}
+		};
+		assertEquals(6000000000L, multiplier.run(3, 2000000000L));
+
+		DoubleClosure1 half = new AbstractDoubleClosure1() {
+			public double run(double p1) {
+				return p1 / 2;
+			}
+		};
+		assertEquals(1.25, half.run(2.5), 0.0);
+
+		// and the views work the same way
+		IntClosure2View max = (new AbstractIntClosure2() {
+			public int run(int p1, int p2) {
+				return Math.max(p1, p2);
+			}
+		}).getView();
+		assertEquals(7, max.run(3, 7));
+		assertEquals(int.class, max.getArgumentTypes()[0]);
+	}
+
+	@Test
+	public void mixedForms() {
+		// The To*Closure1 forms take any object and return a primitive.
+
+		ToIntClosure1<String> length = new AbstractToIntClosure1<String>() {
+			public int run(String p1) {
+				return p1.length();
+			}
+		};
+
+		assertEquals(5, length.run("hello"));
+
+		ClosureSignature signature = ((AbstractToIntClosure1<String>) length).getSignature();
+		out(signature);         // (String) -> int
+		assertEquals(int.class, signature.getReturnType());
+		assertEquals(String.class, signature.getArgumentType(0));
+
+		ToIntClosure1View<String> view = length.getView();
+		assertEquals(3, view.run("abc"));
+	}
+
+	@Test
+	public void chains() {
+		// Primitive closures can still be used anywhere a ClosureView is expected.
+		// Values are boxed only at that boundary.
+
+		ClosureView<Integer> length = (new AbstractToIntClosure1<String>() {
+			public int run(String p1) {
+				return p1.length();
+			}
+		}).toClosure();
+
+		ClosureView<Integer> square = (new AbstractIntClosure1() {
+			public int run(int p1) {
+				return p1 * p1;
+			}
+		}).toClosure();
+
+		Chain<Integer> chain = new Chain<Integer>(length, square);
+		assertEquals((Integer) 25, chain.run("hello"));
+	}
+}
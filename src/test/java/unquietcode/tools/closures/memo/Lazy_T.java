@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import org.junit.Test;
+import unquietcode.tools.closures.AbstractClosure0;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ */
+public class Lazy_T {
+	@Test
+	public void once() throws Exception {
+		// However many threads ask, the closure only runs once.
+
+		final AtomicInteger runs = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final Lazy<String> lazy = Lazy.of(new AbstractClosure0<String>() {
+			public String run() {
+				runs.incrementAndGet();
+				started.countDown();
+
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+					throw new RuntimeException(ex);
+				}
+
+				return runs.get() == 1 ? null : "again";
+			}
+		});
+
+		assertFalse(lazy.isDone());
+		final List<Object> results = new CopyOnWriteArrayList<Object>();
+		List<Thread> threads = new ArrayList<Thread>();
+
+		Runnable caller = new Runnable() {
+			public void run() {
+				results.add(String.valueOf(lazy.run()));
+			}
+		};
+
+		for (int i=0; i < 8; ++i) {
+			Thread thread = new Thread(caller);
+			threads.add(thread);
+			thread.start();
+
+			// the first one runs the closure, the rest queue up behind it
+			if (i == 0)
+				assertTrue(started.await(5, TimeUnit.SECONDS));
+			else
+				awaitParked(thread);
+		}
+
+		release.countDown();
+
+		for (Thread thread : threads) {
+			thread.join(5000);
+			assertFalse(thread.isAlive());
+		}
+
+		assertEquals(8, results.size());
+
+		for (Object result : results) {
+			assertEquals("null", result);
+		}
+
+		assertTrue(lazy.isDone());
+		assertNull(lazy.run());
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	public void retry() {
+		// A closure which fails is tried again by the next caller.
+
+		final AtomicInteger runs = new AtomicInteger();
+
+		Lazy<Integer> lazy = Lazy.of(new AbstractClosure0<Integer>() {
+			public Integer run() {
+				if (runs.incrementAndGet() == 1)
+					throw new IllegalStateException("not yet");
+
+				return 42;
+			}
+		});
+
+		try {
+			lazy.run();
+			fail("should have failed the first time");
+		} catch (IllegalStateException ex) {
+			assertFalse(lazy.isDone());
+		}
+
+		assertEquals(Integer.valueOf(42), lazy.run());
+		assertEquals(Integer.valueOf(42), lazy.run());
+		assertEquals(2, runs.get());
+	}
+
+	@Test
+	public void background() throws Exception {
+		// A lazy value can get a head start on another thread.
+
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			Lazy<String> lazy = Lazy.start(new AbstractClosure0<String>() {
+				public String run() {
+					started.countDown();
+
+					try {
+						release.await();
+					} catch (InterruptedException ex) {
+						throw new RuntimeException(ex);
+					}
+
+					return Thread.currentThread().getName();
+				}
+			}, executor);
+
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			assertFalse(lazy.isDone());
+			release.countDown();
+
+			// waits for the run already in progress, rather than starting another
+			assertFalse(Thread.currentThread().getName().equals(lazy.run()));
+			assertTrue(lazy.isDone());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/*
+	 * Waits, for a bounded time, until the thread is blocked or waiting.
+	 */
+	private static void awaitParked(Thread thread) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+		while (thread.getState() == Thread.State.NEW || thread.getState() == Thread.State.RUNNABLE) {
+			if (System.nanoTime() > deadline)
+				fail("thread never started waiting");
+
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import org.junit.Test;
+import unquietcode.tools.closures.AbstractClosure1;
+import unquietcode.tools.closures.Closure1;
+import unquietcode.tools.closures.codec.Codecs;
+import unquietcode.tools.closures.view.Closure1View;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ */
+public class MappedMemoStore_T {
+	@Test
+	public void restart() throws Exception {
+		// Results kept in a file are still there the next time it is opened.
+
+		File file = File.createTempFile("memo", ".bin");
+		file.deleteOnExit();
+
+		final AtomicInteger runs = new AtomicInteger();
+
+		Closure1<Long, Integer> cube = new AbstractClosure1<Long, Integer>() {
+			public Long run(Integer x) {
+				runs.incrementAndGet();
+				return x == 0 ? null : (long) x * x * x;
+			}
+		};
+
+		MappedMemoStore<Integer, Long> store = new MappedMemoStore<Integer, Long>(file, cube.getClass(), 1 << 20, Codecs.integers(), Codecs.longs());
+		assertFalse(store.isRestored());
+
+		Closure1View<Long, Integer> cached = Memoizer.memoize(cube, store);
+
+		for (int i=0; i < 100; ++i) {
+			cached.run(i);
+		}
+
+		store.close();
+		assertEquals(100, runs.get());
+
+		// a new run picks up where the last one left off
+		store = new MappedMemoStore<Integer, Long>(file, cube.getClass(), 1 << 20, Codecs.integers(), Codecs.longs());
+		assertTrue(store.isRestored());
+		assertEquals(100, store.size());
+
+		cached = Memoizer.memoize(cube, store);
+		assertEquals(Long.valueOf(27), cached.run(3));
+		assertNull(cached.run(0));
+		assertEquals(100, runs.get());
+
+		// without being closed, the file can't be trusted
+		store = new MappedMemoStore<Integer, Long>(file, cube.getClass(), 1 << 20, Codecs.integers(), Codecs.longs());
+		assertFalse(store.isRestored());
+		assertEquals(0, store.size());
+		store.close();
+
+		// a different closure doesn't get the results of another
+		store = new MappedMemoStore<Integer, Long>(file, String.class, 1 << 20, Codecs.integers(), Codecs.longs());
+		assertFalse(store.isRestored());
+		store.close();
+
+		try {
+			store.get(1, null);
+			fail("a closed store should not be usable");
+		} catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+}
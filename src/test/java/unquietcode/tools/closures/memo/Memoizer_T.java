@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import org.junit.Test;
+import unquietcode.tools.closures.AbstractClosure1;
+import unquietcode.tools.closures.AbstractClosure3;
+import unquietcode.tools.closures.view.Closure1View;
+import unquietcode.tools.closures.view.Closure3View;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static unquietcode.tools.closures.util.Shortcuts.out;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ */
+public class Memoizer_T {
+	@Test
+	public void memoize() {
+		// Expensive closures which always give the same answer for the same arguments
+		// can remember their results.
+
+		final AtomicInteger runs = new AtomicInteger();
+
+		Closure1View<Integer, Integer> square = Memoizer.memoize(new AbstractClosure1<Integer, Integer>() {
+			public Integer run(Integer x) {
+				runs.incrementAndGet();
+				return x == 0 ? null : x * x;
+			}
+		}, new BoundedMemoStore<Object>(100));
+
+		assertEquals(Integer.valueOf(9), square.run(3));
+		assertEquals(Integer.valueOf(9), square.run(3));
+		assertNull(square.run(0));
+		assertNull(square.run(0));
+		assertEquals(2, runs.get());
+
+		// closures taking more arguments work the same way
+		final AtomicInteger joins = new AtomicInteger();
+
+		Closure3View<String, String, String, String> join = Memoizer.memoize(new AbstractClosure3<String, String, String, String>() {
+			public String run(String a, String b, String c) {
+				joins.incrementAndGet();
+				return a + b + c;
+			}
+		}, new BoundedMemoStore<Object>(100, EvictionPolicy.lru()));
+
+		assertEquals("abc", join.run("a", "b", "c"));
+		assertEquals("abc", join.run("a", "b", "c"));
+		assertEquals("cba", join.run("c", "b", "a"));
+		assertEquals(2, joins.get());
+	}
+
+	@Test
+	public void lru() {
+		MemoStore<String> store = new BoundedMemoStore<String>(3, EvictionPolicy.lru());
+
+		store.put(1, null, "one");
+		store.put(2, null, "two");
+		store.put(3, null, "three");
+		store.get(1, null);                  // 2 is now the oldest
+		store.put(4, null, "four");
+
+		assertEquals(3, store.size());
+		assertNull(store.get(2, null));
+		assertEquals("one", store.get(1, null));
+		assertEquals("four", store.get(4, null));
+	}
+
+	@Test
+	public void frequency() {
+		// W-TinyLFU keeps popular keys around, even when many keys are seen only once.
+
+		MemoStore<Integer> store = new BoundedMemoStore<Integer>(100);
+
+		for (int round=0; round < 10; ++round) {
+			for (int key=0; key < 50; ++key) {
+				if (store.get(key, null) == null)
+					store.put(key, null, key);
+			}
+		}
+
+		// a scan over keys which will never be seen again
+		for (int key=1000; key < 11000; ++key) {
+			if (store.get(key, null) == null)
+				store.put(key, null, key);
+		}
+
+		int kept = 0;
+		for (int key=0; key < 50; ++key) {
+			if (store.get(key, null) != null)
+				++kept;
+		}
+
+		assertTrue(store.size() <= 100);
+		assertTrue("kept " + kept, kept >= 45);
+		out("kept " + kept + " of the 50 popular keys");
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import org.junit.Test;
+import unquietcode.tools.closures.AbstractClosure1;
+import unquietcode.tools.closures.codec.Codecs;
+import unquietcode.tools.closures.view.Closure1View;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static unquietcode.tools.closures.util.Shortcuts.out;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ */
+public class OffHeapMemoStore_T {
+	@Test
+	public void memoize() {
+		// Results can be kept outside of the heap, as long as they can be written as bytes.
+
+		final AtomicInteger runs = new AtomicInteger();
+
+		Closure1View<String, String> shout = Memoizer.memoize(new AbstractClosure1<String, String>() {
+			public String run(String word) {
+				runs.incrementAndGet();
+				return word == null || word.isEmpty() ? null : word.toUpperCase() + "!";
+			}
+		}, new OffHeapMemoStore<String, String>(1 << 20, Codecs.strings(), Codecs.strings()));
+
+		assertEquals("HELLO!", shout.run("hello"));
+		assertEquals("HELLO!", shout.run("hello"));
+		assertEquals("ÜBER 😀!", shout.run("über 😀"));
+		assertEquals("ÜBER 😀!", shout.run("über 😀"));
+		assertNull(shout.run(""));
+		assertNull(shout.run(""));
+		assertNull(shout.run(null));
+		assertNull(shout.run(null));
+		assertEquals(4, runs.get());
+	}
+
+	@Test
+	public void clock() {
+		// When the store fills up, values which have been used recently are kept.
+
+		MemoStore<Object> store = new OffHeapMemoStore<Integer, byte[]>(64 * 1024, Codecs.integers(), Codecs.bytes());
+
+		for (int key=0; key < 20000; ++key) {
+			store.put(key, null, value(key));
+
+			// a few popular keys, which are read all the time
+			for (int hot=0; hot < 10; ++hot) {
+				if (store.get(hot, null) == null)
+					store.put(hot, null, value(hot));
+			}
+		}
+
+		int kept = 0;
+		for (int key=0; key < 20000; ++key) {
+			byte value[] = (byte[]) store.get(key, null);
+
+			if (value != null) {
+				assertArrayEquals(value(key), value);
+				++kept;
+			}
+		}
+
+		for (int hot=0; hot < 10; ++hot) {
+			assertNotNull(store.get(hot, null));
+		}
+
+		assertEquals(kept, store.size());
+		assertTrue(kept < 20000);
+		out("kept " + kept + " of 20000 values in 64kb");
+
+		store.remove(3, null);
+		assertNull(store.get(3, null));
+
+		store.clear();
+		assertEquals(0, store.size());
+		assertNull(store.get(5, null));
+	}
+
+	private static byte[] value(int key) {
+		byte value[] = new byte[key % 40];
+
+		for (int i=0; i < value.length; ++i) {
+			value[i] = (byte) (key + i);
+		}
+
+		return value;
+	}
+}
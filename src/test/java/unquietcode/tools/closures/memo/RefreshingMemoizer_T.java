@@ -0,0 +1,318 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import org.junit.Test;
+import unquietcode.tools.closures.AbstractClosure0;
+import unquietcode.tools.closures.AbstractClosure1;
+import unquietcode.tools.closures.view.Closure0View;
+import unquietcode.tools.closures.view.Closure1View;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static unquietcode.tools.closures.util.Shortcuts.out;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ */
+public class RefreshingMemoizer_T {
+	@Test
+	public void refreshAhead() {
+		// Values are refreshed in the background once they get old,
+		// and callers keep getting the old value in the meantime.
+
+		final AtomicInteger version = new AtomicInteger();
+		ManualTicker ticker = new ManualTicker();
+		ManualExecutor executor = new ManualExecutor();
+		RefreshingMemoizer memoizer = new RefreshingMemoizer(100, RefreshingMemoizer.NO_LIMIT, TimeUnit.MILLISECONDS, 0.5, executor, ticker);
+
+		Closure0View<Integer> config = memoizer.memoize(new AbstractClosure0<Integer>() {
+			public Integer run() {
+				return version.incrementAndGet();
+			}
+		});
+
+		assertEquals(Integer.valueOf(1), config.run());
+		assertEquals(Integer.valueOf(1), config.run());
+		assertEquals(0, executor.pending());
+
+		// getting old, so one refresh is started, and nobody waits for it
+		ticker.advance(60);
+
+		for (int i=0; i < 10; ++i) {
+			assertEquals(Integer.valueOf(1), config.run());
+		}
+
+		assertEquals(1, executor.pending());
+		assertEquals(1, version.get());
+
+		executor.runAll();
+		assertEquals(Integer.valueOf(2), config.run());
+		assertEquals(2, version.get());
+		assertEquals(0, executor.pending());
+		out("refreshed to version " + config.run());
+	}
+
+	@Test
+	public void expiry() throws Exception {
+		// Nobody waits because a value has expired, however many callers find it that way.
+
+		final AtomicInteger version = new AtomicInteger();
+		ManualTicker ticker = new ManualTicker();
+		ManualExecutor executor = new ManualExecutor();
+		RefreshingMemoizer memoizer = new RefreshingMemoizer(100, RefreshingMemoizer.NO_LIMIT, TimeUnit.MILLISECONDS, 0.5, executor, ticker);
+
+		final Closure0View<Integer> config = memoizer.memoize(new AbstractClosure0<Integer>() {
+			public Integer run() {
+				return version.incrementAndGet();
+			}
+		});
+
+		assertEquals(Integer.valueOf(1), config.run());
+
+		// well past the time to live, and the refresh has not been run
+		ticker.advance(500);
+		final List<Integer> results = new CopyOnWriteArrayList<Integer>();
+		List<Thread> callers = new ArrayList<Thread>();
+
+		for (int i=0; i < 8; ++i) {
+			callers.add(new Thread(new Runnable() {
+				public void run() {
+					results.add(config.run());
+				}
+			}));
+		}
+
+		for (Thread caller : callers) {
+			caller.start();
+		}
+
+		for (Thread caller : callers) {
+			caller.join(5000);
+			assertFalse(caller.isAlive());
+		}
+
+		assertEquals(8, results.size());
+
+		for (Integer result : results) {
+			assertEquals(Integer.valueOf(1), result);
+		}
+
+		// and only one refresh was started for all of them
+		assertEquals(1, executor.pending());
+		assertEquals(1, version.get());
+
+		executor.runAll();
+		assertEquals(Integer.valueOf(2), config.run());
+	}
+
+	@Test
+	public void maxStaleness() throws Exception {
+		// With a limit on staleness, callers wait for a value past it, but share a single run.
+
+		final AtomicInteger version = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		ManualTicker ticker = new ManualTicker();
+		ManualExecutor executor = new ManualExecutor();
+		RefreshingMemoizer memoizer = new RefreshingMemoizer(100, 50, TimeUnit.MILLISECONDS, 0.5, executor, ticker);
+
+		final Closure0View<Integer> config = memoizer.memoize(new AbstractClosure0<Integer>() {
+			public Integer run() {
+				if (version.get() > 0) {
+					started.countDown();
+
+					try {
+						release.await();
+					} catch (InterruptedException ex) {
+						throw new RuntimeException(ex);
+					}
+				}
+
+				return version.incrementAndGet();
+			}
+		});
+
+		assertEquals(Integer.valueOf(1), config.run());
+
+		// stale, but within the limit
+		ticker.advance(120);
+		assertEquals(Integer.valueOf(1), config.run());
+		assertEquals(1, executor.pending());
+
+		// past the limit, with the refresh never run
+		ticker.advance(50);
+		final List<Integer> results = new CopyOnWriteArrayList<Integer>();
+		List<Thread> callers = new ArrayList<Thread>();
+
+		for (int i=0; i < 8; ++i) {
+			Thread caller = new Thread(new Runnable() {
+				public void run() {
+					results.add(config.run());
+				}
+			});
+
+			callers.add(caller);
+			caller.start();
+
+			// the first one runs the closure, the rest wait on it
+			if (i == 0)
+				assertTrue(started.await(5, TimeUnit.SECONDS));
+			else
+				awaitWaiting(caller);
+		}
+
+		release.countDown();
+
+		for (Thread caller : callers) {
+			caller.join(5000);
+			assertFalse(caller.isAlive());
+		}
+
+		assertEquals(8, results.size());
+
+		for (Integer result : results) {
+			assertEquals(Integer.valueOf(2), result);
+		}
+
+		assertEquals(2, version.get());
+		assertEquals(Integer.valueOf(2), config.run());
+	}
+
+	@Test
+	public void failedRefresh() {
+		// A failing refresh is recorded rather than thrown, and the old value is kept.
+
+		final AtomicInteger runs = new AtomicInteger();
+		ManualTicker ticker = new ManualTicker();
+		ManualExecutor executor = new ManualExecutor();
+		RefreshingMemoizer memoizer = new RefreshingMemoizer(100, RefreshingMemoizer.NO_LIMIT, TimeUnit.MILLISECONDS, 0.5, executor, ticker);
+
+		Closure0View<String> config = memoizer.memoize(new AbstractClosure0<String>() {
+			public String run() {
+				if (runs.incrementAndGet() > 1)
+					throw new IllegalStateException("unavailable");
+
+				return "first";
+			}
+		});
+
+		assertEquals("first", config.run());
+		ticker.advance(60);
+		assertEquals("first", config.run());
+
+		executor.runAll();
+		assertEquals(1, memoizer.getRefreshFailures());
+		assertTrue(memoizer.getLastRefreshFailure() instanceof IllegalStateException);
+
+		// the next call tries again
+		assertEquals("first", config.run());
+		assertEquals(1, executor.pending());
+	}
+
+	@Test
+	public void keyed() {
+		final AtomicInteger runs = new AtomicInteger();
+		ManualTicker ticker = new ManualTicker();
+		ManualExecutor executor = new ManualExecutor();
+		RefreshingMemoizer memoizer = new RefreshingMemoizer(50, RefreshingMemoizer.NO_LIMIT, TimeUnit.MILLISECONDS, 0.75, executor, ticker);
+
+		Closure1View<String, String> greet = memoizer.memoize(new AbstractClosure1<String, String>() {
+			public String run(String name) {
+				runs.incrementAndGet();
+				return "hello " + name;
+			}
+		}, new BoundedMemoStore<Object>(100));
+
+		assertEquals("hello a", greet.run("a"));
+		assertEquals("hello a", greet.run("a"));
+		assertEquals("hello b", greet.run("b"));
+		assertEquals(2, runs.get());
+
+		ticker.advance(40);
+		assertEquals("hello a", greet.run("a"));
+		assertEquals(2, runs.get());
+
+		executor.runAll();
+		assertEquals(3, runs.get());
+		assertEquals("hello a", greet.run("a"));
+	}
+
+	/*
+	 * Waits, for a bounded time, until the thread is parked.
+	 */
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+		while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) {
+			if (System.nanoTime() > deadline)
+				fail("thread never started waiting");
+
+			Thread.sleep(1);
+		}
+	}
+
+	// time which only moves when told to
+	private static final class ManualTicker implements RefreshingMemoizer.Ticker {
+		private volatile long now;
+
+		public long read() {
+			return now;
+		}
+
+		void advance(long millis) {
+			now += TimeUnit.MILLISECONDS.toNanos(millis);
+		}
+	}
+
+	// holds on to tasks until they are run by the test
+	private static final class ManualExecutor implements Executor {
+		private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+		public synchronized void execute(Runnable task) {
+			tasks.add(task);
+		}
+
+		synchronized int pending() {
+			return tasks.size();
+		}
+
+		void runAll() {
+			List<Runnable> batch;
+
+			synchronized (this) {
+				batch = new ArrayList<Runnable>(tasks);
+				tasks.clear();
+			}
+
+			for (Runnable task : batch) {
+				task.run();
+			}
+		}
+	}
+}
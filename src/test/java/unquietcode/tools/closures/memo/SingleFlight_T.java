@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.memo;
+
+import org.junit.Test;
+import unquietcode.tools.closures.AbstractClosure1;
+import unquietcode.tools.closures.view.Closure1View;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static unquietcode.tools.closures.util.Shortcuts.out;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ */
+public class SingleFlight_T {
+	@Test
+	public void collapse() throws Exception {
+		// When many threads ask for the same thing at once, only one of them does the work.
+
+		final AtomicInteger runs = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final Closure1View<String, String> slow = SingleFlight.collapse(new AbstractClosure1<String, String>() {
+			public String run(String key) {
+				runs.incrementAndGet();
+
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+					throw new RuntimeException(ex);
+				}
+
+				if (key.equals("bad"))
+					throw new IllegalStateException("bad key");
+
+				return key.toUpperCase();
+			}
+		});
+
+		final List<Object> good = new CopyOnWriteArrayList<Object>();
+		final List<Object> bad = new CopyOnWriteArrayList<Object>();
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for (int i=0; i < 8; ++i) {
+			threads.add(new Thread(new Runnable() {
+				public void run() {
+					good.add(slow.run("good"));
+				}
+			}));
+
+			threads.add(new Thread(new Runnable() {
+				public void run() {
+					try {
+						bad.add(slow.run("bad"));
+					} catch (IllegalStateException ex) {
+						bad.add(ex);
+					}
+				}
+			}));
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+
+		// everyone is either running the closure or waiting on a run in progress
+		for (Thread thread : threads) {
+			awaitWaiting(thread);
+		}
+
+		release.countDown();
+
+		for (Thread thread : threads) {
+			thread.join(5000);
+			assertFalse(thread.isAlive());
+		}
+
+		assertEquals(8, good.size());
+		assertEquals(8, bad.size());
+
+		for (Object result : good) {
+			assertEquals("GOOD", result);
+		}
+
+		for (Object result : bad) {
+			assertTrue(result instanceof IllegalStateException);
+		}
+
+		assertEquals(2, runs.get());
+
+		// nothing is remembered once the run is over
+		assertEquals("GOOD", slow.run("good"));
+		assertEquals(3, runs.get());
+
+		out("runs: " + runs.get());
+	}
+
+	@Test
+	public void checkedFailure() throws Exception {
+		// A checked exception thrown sneakily by the closure still reaches the waiters.
+
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final Closure1View<String, String> failing = SingleFlight.collapse(new AbstractClosure1<String, String>() {
+			public String run(String key) {
+				started.countDown();
+
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+					throw new RuntimeException(ex);
+				}
+
+				throw SingleFlight_T.<RuntimeException>sneaky(new IOException("gone"));
+			}
+		});
+
+		final List<Throwable> errors = new CopyOnWriteArrayList<Throwable>();
+		Runnable caller = new Runnable() {
+			public void run() {
+				try {
+					failing.run("key");
+				} catch (Throwable ex) {
+					errors.add(ex);
+				}
+			}
+		};
+
+		Thread leader = new Thread(caller);
+		leader.start();
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		Thread waiter = new Thread(caller);
+		waiter.start();
+		awaitWaiting(waiter);
+		release.countDown();
+
+		leader.join(5000);
+		waiter.join(5000);
+		assertFalse("the waiter was left hanging", waiter.isAlive());
+		assertEquals(2, errors.size());
+
+		for (Throwable error : errors) {
+			Throwable cause = error instanceof IOException ? error : error.getCause();
+			assertTrue(cause instanceof IOException);
+		}
+	}
+
+	/*
+	 * Waits, for a bounded time, until the thread is parked.
+	 */
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+		while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING) {
+			if (System.nanoTime() > deadline)
+				fail("thread never started waiting");
+
+			Thread.sleep(1);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends Throwable> T sneaky(Throwable ex) throws T {
+		throw (T) ex;
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012 Benjamin Fagin
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ *
+ *     Read the included LICENSE.TXT for more information.
+ */
+
+package unquietcode.tools.closures.profiling;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static unquietcode.tools.closures.util.Shortcuts.out;
+
+/**
+ * @author  Benjamin Fagin
+ * @version 10-17-2026
+ */
+public class LatencyHistogram_T {
+	@Test
+	public void buckets() {
+		// every value lands in a bucket which covers it
+		for (long value = 0; value < (1L << 40); value += 1 + value / 7) {
+			int index = LatencyHistogram.index(value);
+			assertTrue(value <= LatencyHistogram.highestValue(index));
+			assertTrue(index == 0 || value > LatencyHistogram.highestValue(index - 1));
+		}
+	}
+
+	@Test
+	public void percentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		for (int i=1; i <= 10000; ++i) {
+			histogram.record(i * 1000L);
+		}
+
+		HistogramSnapshot snapshot = histogram.snapshot();
+		assertEquals(10000, snapshot.getCount());
+		assertEquals(10000000, snapshot.getMax());
+		assertEquals(5000500, snapshot.getMean(), 1);
+
+		// within the ~3% precision of the buckets
+		assertEquals(5000000, snapshot.getValueAtPercentile(50), 5000000 * 0.035);
+		assertEquals(9900000, snapshot.getValueAtPercentile(99), 9900000 * 0.035);
+		assertEquals(10000000, snapshot.getValueAtPercentile(100));
+
+		out(snapshot);
+	}
+}